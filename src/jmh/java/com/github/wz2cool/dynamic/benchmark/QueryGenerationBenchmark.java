@@ -0,0 +1,120 @@
+package com.github.wz2cool.dynamic.benchmark;
+
+import com.github.wz2cool.dynamic.DynamicQuery;
+import com.github.wz2cool.dynamic.FilterGroupDescriptor;
+import com.github.wz2cool.dynamic.mybatis.ParamExpression;
+import com.github.wz2cool.dynamic.mybatis.QueryHelper;
+import com.github.wz2cool.dynamic.mybatis.db.model.entity.table.Product;
+import com.github.wz2cool.dynamic.mybatis.mapper.provider.DynamicQueryProvider;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static com.github.wz2cool.dynamic.builder.DynamicQueryBuilderHelper.*;
+
+/**
+ * Benchmark of query generation hot paths, run with "mvn -P benchmark test-compile exec:exec".
+ *
+ * @author Frank
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class QueryGenerationBenchmark {
+
+    private static final int IN_SIZE = 1000;
+    private static final int NESTED_DEPTH = 8;
+
+    public enum Shape {
+        /**
+         * and/or filters in one level.
+         */
+        FLAT,
+        /**
+         * filter groups nested in groups.
+         */
+        NESTED,
+        /**
+         * one IN filter with 1000 values.
+         */
+        IN_1000
+    }
+
+    @Param({"FLAT", "NESTED", "IN_1000"})
+    private Shape shape;
+
+    private final QueryHelper queryHelper = new QueryHelper();
+    private Integer[] inValues;
+    private DynamicQuery<Product> dynamicQuery;
+
+    @Setup
+    public void setup() {
+        inValues = new Integer[IN_SIZE];
+        for (int i = 0; i < IN_SIZE; i++) {
+            inValues[i] = i;
+        }
+        dynamicQuery = createQuery();
+    }
+
+    @Benchmark
+    public DynamicQuery<Product> createDynamicQuery() {
+        return createQuery();
+    }
+
+    @Benchmark
+    public ParamExpression toWhereExpression() {
+        return queryHelper.toWhereExpression(Product.class, dynamicQuery.getFilters());
+    }
+
+    @Benchmark
+    public ParamExpression toSortExpression() {
+        return queryHelper.toSortExpression(Product.class, dynamicQuery.getSorts());
+    }
+
+    @Benchmark
+    public String toSelectColumnsExpression() {
+        return queryHelper.toSelectColumnsExpression(Product.class,
+                dynamicQuery.getSelectedProperties(), dynamicQuery.getIgnoredProperties(), false);
+    }
+
+    @Benchmark
+    public Map<String, Object> getDynamicQueryParamInternal() {
+        return DynamicQueryProvider.getDynamicQueryParamInternal(dynamicQuery, false);
+    }
+
+    private DynamicQuery<Product> createQuery() {
+        DynamicQuery<Product> query = DynamicQuery.createQuery(Product.class)
+                .select(Product::getProductID, Product::getProductName, Product::getPrice)
+                .orderBy(Product::getPrice, desc())
+                .orderBy(Product::getProductID, asc());
+        switch (shape) {
+            case NESTED:
+                return query.and(g -> nestedGroup(g, NESTED_DEPTH));
+            case IN_1000:
+                return query.and(Product::getProductID, in(inValues));
+            case FLAT:
+            default:
+                return query
+                        .and(Product::getProductID, greaterThan(1))
+                        .and(Product::getProductName, startWith("Ch"))
+                        .and(Product::getPrice, between(BigDecimal.ONE, BigDecimal.TEN))
+                        .or(Product::getCategoryID, notEqual(2))
+                        .and(Product::getCategoryID, lessThanOrEqual(100));
+        }
+    }
+
+    private static FilterGroupDescriptor<Product> nestedGroup(
+            FilterGroupDescriptor<Product> group, int depth) {
+        group.and(Product::getProductID, greaterThan(depth))
+                .or(Product::getPrice, lessThan(BigDecimal.valueOf(depth)));
+        if (depth > 1) {
+            group.and(g -> nestedGroup(g, depth - 1));
+        }
+        return group;
+    }
+}
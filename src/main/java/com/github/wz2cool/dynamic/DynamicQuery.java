@@ -5,7 +5,10 @@ import com.github.wz2cool.dynamic.builder.direction.ISortDirection;
 import com.github.wz2cool.dynamic.helper.CommonsHelper;
 import com.github.wz2cool.dynamic.lambda.GetCommonPropertyFunction;
 import com.github.wz2cool.dynamic.lambda.GetPropertyFunction;
+import com.github.wz2cool.dynamic.mybatis.FilterOptimizer;
+import com.github.wz2cool.dynamic.mybatis.KeysetHelper;
 import com.github.wz2cool.dynamic.mybatis.ParamExpression;
+import com.github.wz2cool.dynamic.mybatis.ParamPlaceholderStrategy;
 import com.github.wz2cool.dynamic.mybatis.QueryHelper;
 import org.apache.commons.lang3.ArrayUtils;
 
@@ -19,7 +22,7 @@ import java.util.Map;
 public class DynamicQuery<T> extends BaseFilterGroup<T, DynamicQuery<T>> {
 
     private static final long serialVersionUID = -4044703018297658438L;
-    private static final QueryHelper QUERY_HELPER = new QueryHelper();
+    private static final QueryHelper QUERY_HELPER = new QueryHelper(ParamPlaceholderStrategy.POSITIONAL);
     private static final String COLUMN_EXPRESSION_PLACEHOLDER = "columnsExpression";
     private static final String WHERE_EXPRESSION_PLACEHOLDER = "whereExpression";
     private static final String SORT_EXPRESSION_PLACEHOLDER = "orderByExpression";
@@ -137,23 +140,57 @@ public class DynamicQuery<T> extends BaseFilterGroup<T, DynamicQuery<T>> {
         return this;
     }
 
+    /**
+     * Keyset pagination, only keep rows after cursor in sort order.
+     *
+     * @param cursor cursor created by {@link KeysetHelper#createCursor(DynamicQuery, Object)}, ignored if blank.
+     * @return current dynamic query
+     */
+    public DynamicQuery<T> seekAfter(String cursor) {
+        FilterGroupDescriptor<T> seekFilter = KeysetHelper.getSeekFilter(this, cursor);
+        if (seekFilter == null) {
+            return this;
+        }
+
+        if (ArrayUtils.isEmpty(this.getFilters())) {
+            this.setFilters(new BaseFilterDescriptor[]{seekFilter});
+        } else {
+            // keep "OR" of current filters inside.
+            FilterGroupDescriptor<T> currentFilters = new FilterGroupDescriptor<>();
+            currentFilters.setFilters(this.getFilters());
+            this.setFilters(new BaseFilterDescriptor[]{currentFilters, seekFilter});
+        }
+        return this;
+    }
+
+    /**
+     * Create immutable snapshot of current query with fingerprints, later changes of current query
+     * do not affect the snapshot.
+     *
+     * @return frozen dynamic query
+     */
+    public FrozenDynamicQuery<T> freeze() {
+        return new FrozenDynamicQuery<>(this);
+    }
+
     public Map<String, Object> toQueryParamMap() {
         Map<String, Object> result = new HashMap<>(16);
         String selectColumnsExpression = getSelectColumnsExpression();
         result.put(COLUMN_EXPRESSION_PLACEHOLDER, selectColumnsExpression);
 
-        if (ArrayUtils.isNotEmpty(this.getFilters())) {
-            ParamExpression whereExpression = getWhereExpression();
-            String whereString = String.format("WHERE %s ", whereExpression.getExpression());
+        BaseFilterDescriptor[] filters = FilterOptimizer.optimize(this);
+        if (ArrayUtils.isNotEmpty(filters)) {
+            ParamExpression whereExpression = getWhereExpression(filters);
+            String whereString = "WHERE " + whereExpression.getExpression() + " ";
             result.put(WHERE_EXPRESSION_PLACEHOLDER, whereString);
             result.putAll(whereExpression.getParamMap());
         } else {
             result.put(WHERE_EXPRESSION_PLACEHOLDER, "");
         }
 
-        if (ArrayUtils.isNotEmpty(this.sorts)) {
+        if (ArrayUtils.isNotEmpty(this.getSorts())) {
             ParamExpression sortExpression = getSortExpression();
-            String sortString = String.format("ORDER BY %s ", sortExpression.getExpression());
+            String sortString = "ORDER BY " + sortExpression.getExpression() + " ";
             result.put(SORT_EXPRESSION_PLACEHOLDER, sortString);
             result.putAll(sortExpression.getParamMap());
         } else {
@@ -165,15 +202,15 @@ public class DynamicQuery<T> extends BaseFilterGroup<T, DynamicQuery<T>> {
 
     private String getSelectColumnsExpression() {
         return QUERY_HELPER.toSelectColumnsExpression(
-                this.entityClass, this.selectedProperties, this.ignoredProperties,
+                this.getEntityClass(), this.getSelectedProperties(), this.getIgnoredProperties(),
                 false);
     }
 
-    private ParamExpression getWhereExpression() {
-        return QUERY_HELPER.toWhereExpression(this.entityClass, this.getFilters());
+    private ParamExpression getWhereExpression(BaseFilterDescriptor[] filters) {
+        return QUERY_HELPER.toWhereExpression(this.getEntityClass(), filters);
     }
 
     private ParamExpression getSortExpression() {
-        return QUERY_HELPER.toSortExpression(this.entityClass, this.sorts);
+        return QUERY_HELPER.toSortExpression(this.getEntityClass(), this.getSorts());
     }
 }
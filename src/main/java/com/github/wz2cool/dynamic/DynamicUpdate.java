@@ -0,0 +1,90 @@
+package com.github.wz2cool.dynamic;
+
+import com.github.wz2cool.dynamic.builder.opeartor.IUpdateOperator;
+import com.github.wz2cool.dynamic.helper.CommonsHelper;
+import com.github.wz2cool.dynamic.lambda.GetPropertyFunction;
+import org.apache.commons.lang3.ArrayUtils;
+
+import java.io.Serializable;
+
+/**
+ * "SET" part of update, values can be computed from current column values in database,
+ * such as "SET balance = balance + ?".
+ *
+ * @author Frank
+ */
+public class DynamicUpdate<T> implements Serializable {
+    private static final long serialVersionUID = 4675271418807016417L;
+
+    private UpdateDescriptor[] updates = new UpdateDescriptor[]{};
+    private Class<T> entityClass;
+
+    public DynamicUpdate() {
+        // for json
+    }
+
+    public DynamicUpdate(Class<T> entityClass) {
+        this.entityClass = entityClass;
+    }
+
+    public static <T> DynamicUpdate<T> createUpdate(Class<T> entityClass) {
+        return new DynamicUpdate<>(entityClass);
+    }
+
+    public UpdateDescriptor[] getUpdates() {
+        return updates;
+    }
+
+    public void setUpdates(UpdateDescriptor[] updates) {
+        this.updates = updates;
+    }
+
+    public Class<T> getEntityClass() {
+        return entityClass;
+    }
+
+    public void setEntityClass(Class<T> entityClass) {
+        this.entityClass = entityClass;
+    }
+
+    public void addUpdates(UpdateDescriptor... newUpdates) {
+        setUpdates(ArrayUtils.addAll(updates, newUpdates));
+    }
+
+    /**
+     * set column to value, "col = ?", "col = NULL" if value is null.
+     */
+    public DynamicUpdate<T> set(GetPropertyFunction<T, Comparable> getPropertyFunc, Object value) {
+        return set(true, getPropertyFunc, value);
+    }
+
+    public DynamicUpdate<T> set(boolean enable, GetPropertyFunction<T, Comparable> getPropertyFunc, Object value) {
+        if (enable) {
+            String propertyName = CommonsHelper.getPropertyName(getPropertyFunc);
+            addUpdates(new UpdateDescriptor(propertyName, UpdateOperator.SET, value));
+        }
+        return this;
+    }
+
+    /**
+     * set column by current value in database, such as "set(User::getBalance, add(10))",
+     * "set(User::getName, null)" also resolves to this method, it sets column to NULL.
+     */
+    public DynamicUpdate<T> set(GetPropertyFunction<T, Comparable> getPropertyFunc, IUpdateOperator updateOperator) {
+        return set(true, getPropertyFunc, updateOperator);
+    }
+
+    public DynamicUpdate<T> set(boolean enable,
+                                GetPropertyFunction<T, Comparable> getPropertyFunc,
+                                IUpdateOperator updateOperator) {
+        if (!enable) {
+            return this;
+        }
+        if (updateOperator == null) {
+            return set(true, getPropertyFunc, (Object) null);
+        }
+        String propertyName = CommonsHelper.getPropertyName(getPropertyFunc);
+        addUpdates(new UpdateDescriptor(propertyName, updateOperator.getOperator(), updateOperator.getValue()));
+        return this;
+    }
+}
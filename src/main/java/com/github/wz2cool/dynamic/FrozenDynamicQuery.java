@@ -0,0 +1,666 @@
+package com.github.wz2cool.dynamic;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonTypeName;
+import com.github.wz2cool.dynamic.exception.InternalRuntimeException;
+import com.github.wz2cool.dynamic.helper.CommonsHelper;
+import com.github.wz2cool.dynamic.lambda.GetPropertyFunction;
+import com.github.wz2cool.dynamic.model.Fingerprint;
+import com.github.wz2cool.dynamic.mybatis.FilterOptimizer;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.OffsetTime;
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Immutable snapshot of dynamic query created by {@link DynamicQuery#freeze()},
+ * it can be shared between threads and used as key of cache, all setters throw {@link UnsupportedOperationException}.
+ * <p>
+ * Fingerprints are computed once while freezing:
+ * shape fingerprint covers entity, properties, conditions, operators, custom expressions and count of values,
+ * which decide generated sql; fingerprint covers shape and all values, see {@link #hasExactFingerprint()}.
+ *
+ * @author Frank
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public final class FrozenDynamicQuery<T> extends DynamicQuery<T> {
+    private static final String FROZEN_ERROR_MESSAGE = "frozen dynamic query can not be modified";
+
+    private final Class<T> entityClass;
+    private final boolean distinct;
+    private final String[] selectedProperties;
+    private final String[] ignoredProperties;
+    private final BaseFilterDescriptor[] filters;
+    private final BaseSortDescriptor[] sorts;
+    private final Fingerprint shapeFingerprint;
+    private final Fingerprint fingerprint;
+    private final boolean exactFingerprint;
+    private volatile BaseFilterDescriptor[] optimizedFilters;
+
+    FrozenDynamicQuery(final DynamicQuery<T> dynamicQuery) {
+        FingerprintWriter writer = new FingerprintWriter();
+        this.entityClass = dynamicQuery.getEntityClass();
+        writer.writeShape(entityClass == null ? null : entityClass.getName());
+        this.distinct = dynamicQuery.isDistinct();
+        writer.writeShape(String.valueOf(distinct));
+        this.selectedProperties = freezeProperties(dynamicQuery.getSelectedProperties(), writer);
+        this.ignoredProperties = freezeProperties(dynamicQuery.getIgnoredProperties(), writer);
+        this.filters = freezeFilters(dynamicQuery.getFilters(), writer);
+        this.sorts = freezeSorts(dynamicQuery.getSorts(), writer);
+        this.shapeFingerprint = writer.getShapeFingerprint();
+        this.fingerprint = writer.getFingerprint();
+        this.exactFingerprint = writer.isExact();
+    }
+
+    /**
+     * Gets fingerprint of shape, queries with same shape generate same sql with different values.
+     *
+     * @return shape fingerprint
+     */
+    public Fingerprint getShapeFingerprint() {
+        return shapeFingerprint;
+    }
+
+    /**
+     * Gets fingerprint of shape and values.
+     *
+     * @return fingerprint
+     */
+    public Fingerprint getFingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * Whether all values are of known types (such as string, number, date and enum) encoded exactly in fingerprint,
+     * otherwise fingerprint is unique for each frozen query, so that it never collides but is not a useful cache key.
+     *
+     * @return true if fingerprint can be used as cache key
+     */
+    public boolean hasExactFingerprint() {
+        return exactFingerprint;
+    }
+
+    /**
+     * Gets optimized filters, they are computed once and shared by all executions of this query,
+     * internal use only, do not modify them.
+     *
+     * @return optimized filters, see {@link FilterOptimizer#optimize(Class, BaseFilterDescriptor[])}
+     */
+    public BaseFilterDescriptor[] getOptimizedFilters() {
+        BaseFilterDescriptor[] result = optimizedFilters;
+        if (result == null) {
+            // filters can not be changed, computing twice in race returns same filters.
+            result = FilterOptimizer.optimize(entityClass, filters);
+            optimizedFilters = result;
+        }
+        return result;
+    }
+
+    @Override
+    public FrozenDynamicQuery<T> freeze() {
+        return this;
+    }
+
+    @Override
+    public Class<T> getEntityClass() {
+        return entityClass;
+    }
+
+    @Override
+    public boolean isDistinct() {
+        return distinct;
+    }
+
+    @Override
+    public String[] getSelectedProperties() {
+        return selectedProperties.clone();
+    }
+
+    @Override
+    public String[] getIgnoredProperties() {
+        return ignoredProperties.clone();
+    }
+
+    @Override
+    public BaseFilterDescriptor[] getFilters() {
+        return filters.clone();
+    }
+
+    @Override
+    public BaseSortDescriptor[] getSorts() {
+        return sorts.clone();
+    }
+
+    @Override
+    public void setEntityClass(Class<T> entityClass) {
+        throw new UnsupportedOperationException(FROZEN_ERROR_MESSAGE);
+    }
+
+    @Override
+    public void setDistinct(boolean distinct) {
+        throw new UnsupportedOperationException(FROZEN_ERROR_MESSAGE);
+    }
+
+    @Override
+    public void setSelectedProperties(String[] selectedProperties) {
+        throw new UnsupportedOperationException(FROZEN_ERROR_MESSAGE);
+    }
+
+    @Override
+    public void setIgnoredProperties(String[] ignoredProperties) {
+        throw new UnsupportedOperationException(FROZEN_ERROR_MESSAGE);
+    }
+
+    @Override
+    public void setFilters(BaseFilterDescriptor[] filters) {
+        throw new UnsupportedOperationException(FROZEN_ERROR_MESSAGE);
+    }
+
+    @Override
+    public void setSorts(BaseSortDescriptor[] sorts) {
+        throw new UnsupportedOperationException(FROZEN_ERROR_MESSAGE);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof FrozenDynamicQuery)) {
+            return false;
+        }
+        return fingerprint.equals(((FrozenDynamicQuery) obj).fingerprint);
+    }
+
+    @Override
+    public int hashCode() {
+        return fingerprint.hashCode();
+    }
+
+    // region freeze
+
+    private static String[] freezeProperties(final String[] properties, final FingerprintWriter writer) {
+        String[] result = properties == null ? new String[0] : properties.clone();
+        writer.writeShape(result.length);
+        for (String property : result) {
+            writer.writeShape(property);
+        }
+        return result;
+    }
+
+    private static BaseFilterDescriptor[] freezeFilters(final BaseFilterDescriptor[] filters,
+                                                        final FingerprintWriter writer) {
+        if (filters == null) {
+            writer.writeShape(0);
+            return new BaseFilterDescriptor[0];
+        }
+
+        BaseFilterDescriptor[] result = new BaseFilterDescriptor[filters.length];
+        writer.writeShape(filters.length);
+        for (int i = 0; i < filters.length; i++) {
+            result[i] = freezeFilter(filters[i], writer);
+        }
+        return result;
+    }
+
+    private static BaseFilterDescriptor freezeFilter(final BaseFilterDescriptor filter, final FingerprintWriter writer) {
+        if (filter instanceof FilterDescriptor) {
+            FilterDescriptor filterDescriptor = (FilterDescriptor) filter;
+            writer.writeShape("F");
+            writer.writeShape(String.valueOf(filterDescriptor.getCondition()));
+            writer.writeShape(filterDescriptor.getPropertyName());
+            writer.writeShape(String.valueOf(filterDescriptor.getOperator()));
+            Object value = freezeValue(filterDescriptor.getValue());
+            if (value instanceof Object[]) {
+                writer.writeShape(((Object[]) value).length);
+            } else {
+                // "IS NULL" or "= ?".
+                writer.writeShape(String.valueOf(value == null));
+            }
+            writer.writeValue(value);
+            return new FrozenFilterDescriptor(filterDescriptor.getCondition(),
+                    filterDescriptor.getPropertyName(), filterDescriptor.getOperator(), value);
+        }
+
+        if (filter instanceof FilterGroupDescriptor) {
+            FilterGroupDescriptor filterGroupDescriptor = (FilterGroupDescriptor) filter;
+            writer.writeShape("G");
+            writer.writeShape(String.valueOf(filterGroupDescriptor.getCondition()));
+            return new FrozenFilterGroupDescriptor(filterGroupDescriptor.getCondition(),
+                    freezeFilters(filterGroupDescriptor.getFilters(), writer));
+        }
+
+        if (filter instanceof CustomFilterDescriptor) {
+            CustomFilterDescriptor customFilterDescriptor = (CustomFilterDescriptor) filter;
+            writer.writeShape("C");
+            writer.writeShape(String.valueOf(customFilterDescriptor.getCondition()));
+            writer.writeShape(customFilterDescriptor.getExpression());
+            Object[] params = freezeParams(customFilterDescriptor.getParams(), writer);
+            return new FrozenCustomFilterDescriptor(customFilterDescriptor.getCondition(),
+                    customFilterDescriptor.getExpression(), params);
+        }
+
+        if (filter == null) {
+            writer.writeShape((String) null);
+            return null;
+        }
+        String errMsg = String.format("not support filter: %s", filter.getClass().getName());
+        throw new UnsupportedOperationException(errMsg);
+    }
+
+    private static BaseSortDescriptor[] freezeSorts(final BaseSortDescriptor[] sorts, final FingerprintWriter writer) {
+        if (sorts == null) {
+            writer.writeShape(0);
+            return new BaseSortDescriptor[0];
+        }
+
+        BaseSortDescriptor[] result = new BaseSortDescriptor[sorts.length];
+        writer.writeShape(sorts.length);
+        for (int i = 0; i < sorts.length; i++) {
+            BaseSortDescriptor sort = sorts[i];
+            if (sort instanceof SortDescriptor) {
+                SortDescriptor sortDescriptor = (SortDescriptor) sort;
+                writer.writeShape("S");
+                writer.writeShape(sortDescriptor.getPropertyName());
+                writer.writeShape(String.valueOf(sortDescriptor.getDirection()));
+                result[i] = new FrozenSortDescriptor(sortDescriptor.getPropertyName(), sortDescriptor.getDirection());
+            } else if (sort instanceof CustomSortDescriptor) {
+                CustomSortDescriptor customSortDescriptor = (CustomSortDescriptor) sort;
+                writer.writeShape("C");
+                writer.writeShape(customSortDescriptor.getExpression());
+                Object[] params = freezeParams(customSortDescriptor.getParams(), writer);
+                result[i] = new FrozenCustomSortDescriptor(customSortDescriptor.getExpression(), params);
+            } else if (sort == null) {
+                writer.writeShape((String) null);
+            } else {
+                String errMsg = String.format("not support sort: %s", sort.getClass().getName());
+                throw new UnsupportedOperationException(errMsg);
+            }
+        }
+        return result;
+    }
+
+    private static Object[] freezeParams(final Object[] params, final FingerprintWriter writer) {
+        if (params == null) {
+            writer.writeShape(-1);
+            return null;
+        }
+        Object[] result = new Object[params.length];
+        writer.writeShape(params.length);
+        for (int i = 0; i < params.length; i++) {
+            result[i] = freezeValue(params[i]);
+            writer.writeValue(result[i]);
+        }
+        return result;
+    }
+
+    /**
+     * copy mutable values, array and collection become object array.
+     */
+    private static Object freezeValue(final Object value) {
+        if (value instanceof Date) {
+            return ((Date) value).clone();
+        }
+        if (CommonsHelper.isArrayOrCollection(value)) {
+            Object[] values = CommonsHelper.getCollectionValues(value);
+            for (int i = 0; i < values.length; i++) {
+                values[i] = freezeValue(values[i]);
+            }
+            return values;
+        }
+        return value;
+    }
+
+    /**
+     * copy on read, so that frozen values can not be modified.
+     */
+    private static Object copyValue(final Object value) {
+        if (value instanceof Date) {
+            return ((Date) value).clone();
+        }
+        if (value instanceof Object[]) {
+            return ((Object[]) value).clone();
+        }
+        return value;
+    }
+
+    // endregion
+
+    // region frozen descriptors
+
+    @JsonTypeName("filterDescriptor")
+    private static final class FrozenFilterDescriptor extends FilterDescriptor {
+        private final FilterCondition condition;
+        private final String propertyName;
+        private final FilterOperator operator;
+        private final Object value;
+
+        private FrozenFilterDescriptor(FilterCondition condition, String propertyName, FilterOperator operator, Object value) {
+            this.condition = condition;
+            this.propertyName = propertyName;
+            this.operator = operator;
+            this.value = value;
+        }
+
+        @Override
+        public FilterCondition getCondition() {
+            return condition;
+        }
+
+        @Override
+        public String getPropertyName() {
+            return propertyName;
+        }
+
+        @Override
+        public FilterOperator getOperator() {
+            return operator;
+        }
+
+        @Override
+        public Object getValue() {
+            return copyValue(value);
+        }
+
+        @Override
+        public void setCondition(FilterCondition condition) {
+            throw new UnsupportedOperationException(FROZEN_ERROR_MESSAGE);
+        }
+
+        @Override
+        public void setPropertyName(String propertyName) {
+            throw new UnsupportedOperationException(FROZEN_ERROR_MESSAGE);
+        }
+
+        @Override
+        public void setOperator(FilterOperator operator) {
+            throw new UnsupportedOperationException(FROZEN_ERROR_MESSAGE);
+        }
+
+        @Override
+        public void setValue(Object value) {
+            throw new UnsupportedOperationException(FROZEN_ERROR_MESSAGE);
+        }
+    }
+
+    @JsonTypeName("filterGroupDescriptor")
+    private static final class FrozenFilterGroupDescriptor extends FilterGroupDescriptor<Object> {
+        private final FilterCondition condition;
+        private final BaseFilterDescriptor[] filters;
+
+        private FrozenFilterGroupDescriptor(FilterCondition condition, BaseFilterDescriptor[] filters) {
+            this.condition = condition;
+            this.filters = filters;
+        }
+
+        @Override
+        public FilterCondition getCondition() {
+            return condition;
+        }
+
+        @Override
+        public BaseFilterDescriptor[] getFilters() {
+            return filters.clone();
+        }
+
+        @Override
+        public void setCondition(FilterCondition condition) {
+            throw new UnsupportedOperationException(FROZEN_ERROR_MESSAGE);
+        }
+
+        @Override
+        public void setFilters(BaseFilterDescriptor[] filters) {
+            throw new UnsupportedOperationException(FROZEN_ERROR_MESSAGE);
+        }
+    }
+
+    @JsonTypeName("customFilterDescriptor")
+    private static final class FrozenCustomFilterDescriptor extends CustomFilterDescriptor {
+        private static final long serialVersionUID = 2806526592478466213L;
+        private final FilterCondition condition;
+        private final String expression;
+        private final Object[] params;
+
+        private FrozenCustomFilterDescriptor(FilterCondition condition, String expression, Object[] params) {
+            this.condition = condition;
+            this.expression = expression;
+            this.params = params;
+        }
+
+        @Override
+        public FilterCondition getCondition() {
+            return condition;
+        }
+
+        @Override
+        public String getExpression() {
+            return expression;
+        }
+
+        @Override
+        public Object[] getParams() {
+            return params == null ? null : params.clone();
+        }
+
+        @Override
+        public void setCondition(FilterCondition condition) {
+            throw new UnsupportedOperationException(FROZEN_ERROR_MESSAGE);
+        }
+
+        @Override
+        public void setExpression(String expression) {
+            throw new UnsupportedOperationException(FROZEN_ERROR_MESSAGE);
+        }
+
+        @Override
+        public void setParams(Object... params) {
+            throw new UnsupportedOperationException(FROZEN_ERROR_MESSAGE);
+        }
+    }
+
+    @JsonTypeName("SortDescriptor")
+    private static final class FrozenSortDescriptor extends SortDescriptor {
+        private static final long serialVersionUID = 3560436318620283591L;
+        private final String propertyName;
+        private final SortDirection direction;
+
+        private FrozenSortDescriptor(String propertyName, SortDirection direction) {
+            this.propertyName = propertyName;
+            this.direction = direction;
+        }
+
+        @Override
+        public String getPropertyName() {
+            return propertyName;
+        }
+
+        @Override
+        public SortDirection getDirection() {
+            return direction;
+        }
+
+        @Override
+        public void setPropertyName(String propertyName) {
+            throw new UnsupportedOperationException(FROZEN_ERROR_MESSAGE);
+        }
+
+        @Override
+        public <R> void setPropertyPath(GetPropertyFunction<R, Comparable> getFieldFunc) {
+            throw new UnsupportedOperationException(FROZEN_ERROR_MESSAGE);
+        }
+
+        @Override
+        public void setDirection(SortDirection direction) {
+            throw new UnsupportedOperationException(FROZEN_ERROR_MESSAGE);
+        }
+    }
+
+    @JsonTypeName("customSortDescriptor")
+    private static final class FrozenCustomSortDescriptor extends CustomSortDescriptor {
+        private static final long serialVersionUID = -1766178373590962440L;
+        private final String expression;
+        private final Object[] params;
+
+        private FrozenCustomSortDescriptor(String expression, Object[] params) {
+            this.expression = expression;
+            this.params = params;
+        }
+
+        @Override
+        public String getExpression() {
+            return expression;
+        }
+
+        @Override
+        public Object[] getParams() {
+            return params == null ? null : params.clone();
+        }
+
+        @Override
+        public void setExpression(String expression) {
+            throw new UnsupportedOperationException(FROZEN_ERROR_MESSAGE);
+        }
+
+        @Override
+        public void setParams(Object... params) {
+            throw new UnsupportedOperationException(FROZEN_ERROR_MESSAGE);
+        }
+    }
+
+    // endregion
+
+    /**
+     * write tokens into two digests, shape tokens go into both, value tokens only go into full digest.
+     * tokens are length prefixed, so that different token sequences never produce same bytes.
+     */
+    private static class FingerprintWriter {
+        private static final String ALGORITHM = "SHA-256";
+        private static final AtomicLong INEXACT_VALUE_SEQUENCE = new AtomicLong();
+        /**
+         * types whose toString() is different for different values.
+         */
+        private static final Set<Class<?>> EXACT_STRING_TYPES = new HashSet<>(Arrays.asList(
+                String.class, Character.class, Boolean.class,
+                Byte.class, Short.class, Integer.class, Long.class, Float.class, Double.class,
+                BigInteger.class, BigDecimal.class, UUID.class,
+                LocalDate.class, LocalTime.class, LocalDateTime.class,
+                OffsetDateTime.class, OffsetTime.class, ZonedDateTime.class, Instant.class));
+        private final MessageDigest shapeDigest = newDigest();
+        private final MessageDigest fullDigest = newDigest();
+        private final ByteBuffer intBuffer = ByteBuffer.allocate(Integer.BYTES);
+        private boolean exact = true;
+
+        private static MessageDigest newDigest() {
+            try {
+                return MessageDigest.getInstance(ALGORITHM);
+            } catch (NoSuchAlgorithmException e) {
+                throw new InternalRuntimeException(e);
+            }
+        }
+
+        private void writeShape(final int number) {
+            byte[] bytes = toBytes(number);
+            shapeDigest.update(bytes);
+            fullDigest.update(bytes);
+        }
+
+        private void writeShape(final String token) {
+            if (token == null) {
+                writeShape(-1);
+                return;
+            }
+            byte[] bytes = token.getBytes(StandardCharsets.UTF_8);
+            writeShape(bytes.length);
+            shapeDigest.update(bytes);
+            fullDigest.update(bytes);
+        }
+
+        private void writeValue(final Object value) {
+            if (value == null) {
+                fullDigest.update(toBytes(-1));
+            } else if (value instanceof Object[]) {
+                Object[] values = (Object[]) value;
+                fullDigest.update(toBytes(-2));
+                fullDigest.update(toBytes(values.length));
+                for (Object item : values) {
+                    writeValue(item);
+                }
+            } else {
+                writeValueToken(value.getClass().getName());
+                String exactValue = toExactString(value);
+                if (exactValue == null) {
+                    // toString() may be same for different values, make fingerprint unique instead.
+                    exact = false;
+                    writeValueToken(String.valueOf(INEXACT_VALUE_SEQUENCE.incrementAndGet()));
+                } else {
+                    writeValueToken(exactValue);
+                }
+            }
+        }
+
+        /**
+         * string which is different for different values, null if unknown type.
+         */
+        private static String toExactString(final Object value) {
+            if (value instanceof Timestamp) {
+                Timestamp timestamp = (Timestamp) value;
+                return timestamp.getTime() + "." + timestamp.getNanos();
+            }
+            if (value instanceof Date) {
+                return String.valueOf(((Date) value).getTime());
+            }
+            if (value instanceof Enum) {
+                return ((Enum<?>) value).name();
+            }
+            if (EXACT_STRING_TYPES.contains(value.getClass())) {
+                return value.toString();
+            }
+            return null;
+        }
+
+        private void writeValueToken(final String token) {
+            byte[] bytes = token.getBytes(StandardCharsets.UTF_8);
+            fullDigest.update(toBytes(bytes.length));
+            fullDigest.update(bytes);
+        }
+
+        private byte[] toBytes(final int number) {
+            intBuffer.clear();
+            return intBuffer.putInt(number).array();
+        }
+
+        private boolean isExact() {
+            return exact;
+        }
+
+        private Fingerprint getShapeFingerprint() {
+            return toFingerprint(shapeDigest.digest());
+        }
+
+        private Fingerprint getFingerprint() {
+            return toFingerprint(fullDigest.digest());
+        }
+
+        private static Fingerprint toFingerprint(final byte[] digest) {
+            ByteBuffer buffer = ByteBuffer.wrap(digest);
+            return new Fingerprint(buffer.getLong(), buffer.getLong());
+        }
+    }
+}
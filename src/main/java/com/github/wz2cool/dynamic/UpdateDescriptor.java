@@ -0,0 +1,50 @@
+package com.github.wz2cool.dynamic;
+
+import java.io.Serializable;
+
+/**
+ * One "SET" item of dynamic update.
+ *
+ * @author Frank
+ */
+public class UpdateDescriptor implements Serializable {
+    private static final long serialVersionUID = -2418519163730925067L;
+
+    private String propertyName;
+    private UpdateOperator operator = UpdateOperator.SET;
+    private Object value;
+
+    public UpdateDescriptor() {
+        // for json
+    }
+
+    public UpdateDescriptor(String propertyName, UpdateOperator operator, Object value) {
+        this.propertyName = propertyName;
+        this.operator = operator;
+        this.value = value;
+    }
+
+    public String getPropertyName() {
+        return propertyName;
+    }
+
+    public void setPropertyName(String propertyName) {
+        this.propertyName = propertyName;
+    }
+
+    public UpdateOperator getOperator() {
+        return operator;
+    }
+
+    public void setOperator(UpdateOperator operator) {
+        this.operator = operator;
+    }
+
+    public Object getValue() {
+        return value;
+    }
+
+    public void setValue(Object value) {
+        this.value = value;
+    }
+}
@@ -0,0 +1,25 @@
+package com.github.wz2cool.dynamic;
+
+/**
+ * The enum Update operator.
+ *
+ * @author Frank
+ */
+public enum UpdateOperator {
+    /**
+     * "col = ?".
+     */
+    SET,
+    /**
+     * "col = col + ?".
+     */
+    ADD,
+    /**
+     * "col = col - ?".
+     */
+    SUBTRACT,
+    /**
+     * "col = col * ?".
+     */
+    MULTIPLY
+}
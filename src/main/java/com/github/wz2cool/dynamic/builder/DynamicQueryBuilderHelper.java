@@ -71,6 +71,22 @@ public class DynamicQueryBuilderHelper {
 
     /// endregion
 
+    /// region update operator
+
+    public static Add add(Number value) {
+        return new Add(value);
+    }
+
+    public static Subtract subtract(Number value) {
+        return new Subtract(value);
+    }
+
+    public static Multiply multiply(Number value) {
+        return new Multiply(value);
+    }
+
+    /// endregion
+
     /// region sort direction
 
     private static final Ascending ASC = new Ascending();
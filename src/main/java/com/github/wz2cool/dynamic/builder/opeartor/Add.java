@@ -0,0 +1,25 @@
+package com.github.wz2cool.dynamic.builder.opeartor;
+
+import com.github.wz2cool.dynamic.UpdateOperator;
+
+/**
+ * @author Frank
+ */
+public class Add implements IUpdateOperator {
+
+    private final Number value;
+
+    public Add(Number value) {
+        this.value = value;
+    }
+
+    @Override
+    public UpdateOperator getOperator() {
+        return UpdateOperator.ADD;
+    }
+
+    @Override
+    public Number getValue() {
+        return this.value;
+    }
+}
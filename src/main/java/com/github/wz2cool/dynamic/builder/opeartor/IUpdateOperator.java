@@ -0,0 +1,22 @@
+package com.github.wz2cool.dynamic.builder.opeartor;
+
+import com.github.wz2cool.dynamic.UpdateOperator;
+
+/**
+ * @author Frank
+ */
+public interface IUpdateOperator {
+    /**
+     * Get update operator.
+     *
+     * @return update operator.
+     */
+    UpdateOperator getOperator();
+
+    /**
+     * Get operand.
+     *
+     * @return operand.
+     */
+    Number getValue();
+}
@@ -0,0 +1,25 @@
+package com.github.wz2cool.dynamic.builder.opeartor;
+
+import com.github.wz2cool.dynamic.UpdateOperator;
+
+/**
+ * @author Frank
+ */
+public class Multiply implements IUpdateOperator {
+
+    private final Number value;
+
+    public Multiply(Number value) {
+        this.value = value;
+    }
+
+    @Override
+    public UpdateOperator getOperator() {
+        return UpdateOperator.MULTIPLY;
+    }
+
+    @Override
+    public Number getValue() {
+        return this.value;
+    }
+}
@@ -4,6 +4,10 @@ package com.github.wz2cool.dynamic.exception;
  * @author Frank
  */
 public class InternalRuntimeException extends RuntimeException {
+    public InternalRuntimeException(String message) {
+        super(message);
+    }
+
     public InternalRuntimeException(Throwable cause) {
         super(cause);
     }
@@ -10,6 +10,7 @@ import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
 
 
 /**
@@ -17,6 +18,13 @@ import java.util.concurrent.ConcurrentHashMap;
  */
 public class CommonsHelper {
     private static ConcurrentHashMap<String, Class> classMap = new ConcurrentHashMap<>();
+    private static ClassValue<AtomicReference<PropertyInfo>> propertyInfoCache =
+            new ClassValue<AtomicReference<PropertyInfo>>() {
+                @Override
+                protected AtomicReference<PropertyInfo> computeValue(Class<?> type) {
+                    return new AtomicReference<>();
+                }
+            };
 
     private CommonsHelper() {
         throw new UnsupportedOperationException();
@@ -80,8 +88,23 @@ public class CommonsHelper {
         return getPropertyInfo(fn).getPropertyName();
     }
 
-    @SuppressWarnings("squid:S00112")
     public static <T, R extends Comparable> PropertyInfo getPropertyInfo(GetPropertyFunction<T, R> fn) {
+        // every lambda call site has its own class, so property info only need to resolve once per call site.
+        AtomicReference<PropertyInfo> propertyInfoReference = propertyInfoCache.get(fn.getClass());
+        PropertyInfo propertyInfo = propertyInfoReference.get();
+        if (propertyInfo == null) {
+            propertyInfo = getPropertyInfoInternal(fn);
+            propertyInfoReference.set(propertyInfo);
+        }
+        // property info is mutable, return a copy so that callers can not change cached one.
+        PropertyInfo result = new PropertyInfo();
+        result.setPropertyName(propertyInfo.getPropertyName());
+        result.setOwnerClass(propertyInfo.getOwnerClass());
+        return result;
+    }
+
+    @SuppressWarnings("squid:S00112")
+    private static <T, R extends Comparable> PropertyInfo getPropertyInfoInternal(GetPropertyFunction<T, R> fn) {
         try {
             Method method = fn.getClass().getDeclaredMethod("writeReplace");
             method.setAccessible(true);
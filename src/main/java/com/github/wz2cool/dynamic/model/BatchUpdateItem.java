@@ -0,0 +1,30 @@
+package com.github.wz2cool.dynamic.model;
+
+import com.github.wz2cool.dynamic.DynamicQuery;
+
+/**
+ * Record and dynamic query of one update in batch.
+ *
+ * @author Frank
+ */
+public class BatchUpdateItem<T> {
+    private final T record;
+    private final DynamicQuery<T> dynamicQuery;
+
+    public BatchUpdateItem(T record, DynamicQuery<T> dynamicQuery) {
+        this.record = record;
+        this.dynamicQuery = dynamicQuery;
+    }
+
+    public static <T> BatchUpdateItem<T> of(T record, DynamicQuery<T> dynamicQuery) {
+        return new BatchUpdateItem<>(record, dynamicQuery);
+    }
+
+    public T getRecord() {
+        return record;
+    }
+
+    public DynamicQuery<T> getDynamicQuery() {
+        return dynamicQuery;
+    }
+}
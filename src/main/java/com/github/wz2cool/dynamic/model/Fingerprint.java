@@ -0,0 +1,54 @@
+package com.github.wz2cool.dynamic.model;
+
+import java.io.Serializable;
+
+/**
+ * 128-bit fingerprint of frozen dynamic query.
+ *
+ * @author Frank
+ */
+public final class Fingerprint implements Serializable {
+    private static final long serialVersionUID = -2712387536297011543L;
+
+    private final long high;
+    private final long low;
+
+    public Fingerprint(long high, long low) {
+        this.high = high;
+        this.low = low;
+    }
+
+    public long getHigh() {
+        return high;
+    }
+
+    public long getLow() {
+        return low;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof Fingerprint)) {
+            return false;
+        }
+        Fingerprint that = (Fingerprint) obj;
+        return high == that.high && low == that.low;
+    }
+
+    @Override
+    public int hashCode() {
+        // bits of fingerprint are already well mixed.
+        return (int) low;
+    }
+
+    /**
+     * @return 32 hex characters.
+     */
+    @Override
+    public String toString() {
+        return String.format("%016x%016x", high, low);
+    }
+}
@@ -0,0 +1,35 @@
+package com.github.wz2cool.dynamic.model;
+
+import java.util.List;
+
+/**
+ * One page of keyset pagination.
+ *
+ * @author Frank
+ */
+public class KeysetPage<T> {
+    private final List<T> items;
+    private final String nextCursor;
+
+    public KeysetPage(List<T> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    /**
+     * Gets cursor of next page.
+     *
+     * @return cursor of next page, null if this is the last page.
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+}
@@ -0,0 +1,31 @@
+package com.github.wz2cool.dynamic.model;
+
+import java.util.List;
+
+/**
+ * One page of offset pagination with total count.
+ *
+ * @author Frank
+ */
+public class PageResult<T> {
+    private final List<T> items;
+    private final long total;
+
+    public PageResult(List<T> items, long total) {
+        this.items = items;
+        this.total = total;
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    /**
+     * Gets count of all matched items.
+     *
+     * @return total count
+     */
+    public long getTotal() {
+        return total;
+    }
+}
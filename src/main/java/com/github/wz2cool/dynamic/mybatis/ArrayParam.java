@@ -0,0 +1,137 @@
+package com.github.wz2cool.dynamic.mybatis;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Values of "IN" list bound as one jdbc array, or as one json array string on sql server.
+ *
+ * @author Frank
+ */
+public final class ArrayParam {
+    private static final Map<Class<?>, String> ELEMENT_TYPE_NAME_MAP = new HashMap<>();
+
+    static {
+        ELEMENT_TYPE_NAME_MAP.put(Short.class, "int2");
+        ELEMENT_TYPE_NAME_MAP.put(Integer.class, "int4");
+        ELEMENT_TYPE_NAME_MAP.put(Long.class, "int8");
+        ELEMENT_TYPE_NAME_MAP.put(Float.class, "float4");
+        ELEMENT_TYPE_NAME_MAP.put(Double.class, "float8");
+        ELEMENT_TYPE_NAME_MAP.put(BigDecimal.class, "numeric");
+        ELEMENT_TYPE_NAME_MAP.put(Boolean.class, "bool");
+        ELEMENT_TYPE_NAME_MAP.put(String.class, "varchar");
+    }
+
+    /**
+     * column types of "OPENJSON ... WITH" in sql server, decimal is not here as its scale is unknown.
+     */
+    private static final Map<Class<?>, String> JSON_TYPE_NAME_MAP = new HashMap<>();
+
+    static {
+        JSON_TYPE_NAME_MAP.put(Short.class, "smallint");
+        JSON_TYPE_NAME_MAP.put(Integer.class, "int");
+        JSON_TYPE_NAME_MAP.put(Long.class, "bigint");
+        JSON_TYPE_NAME_MAP.put(Float.class, "real");
+        JSON_TYPE_NAME_MAP.put(Double.class, "float");
+        JSON_TYPE_NAME_MAP.put(Boolean.class, "bit");
+        JSON_TYPE_NAME_MAP.put(String.class, "nvarchar(max)");
+    }
+
+    private final String elementTypeName;
+    private final Object[] values;
+
+    private ArrayParam(String elementTypeName, Object[] values) {
+        this.elementTypeName = elementTypeName;
+        this.values = values;
+    }
+
+    /**
+     * Create array param.
+     *
+     * @param values values of "IN" list
+     * @return array param, null if values are empty, contain null or are not the same supported type.
+     */
+    static ArrayParam of(Object[] values) {
+        if (values == null || values.length == 0 || values[0] == null) {
+            return null;
+        }
+
+        Class<?> elementType = values[0].getClass();
+        String elementTypeName = ELEMENT_TYPE_NAME_MAP.get(elementType);
+        if (elementTypeName == null) {
+            return null;
+        }
+        for (Object value : values) {
+            if (value == null || value.getClass() != elementType) {
+                return null;
+            }
+        }
+        return new ArrayParam(elementTypeName, values);
+    }
+
+    /**
+     * sql type name of element, used by {@link java.sql.Connection#createArrayOf(String, Object[])}.
+     *
+     * @return element type name
+     */
+    public String getElementTypeName() {
+        return elementTypeName;
+    }
+
+    public Object[] getValues() {
+        return values;
+    }
+
+    /**
+     * sql server type name of element, used by "OPENJSON(?) WITH (value type '$')".
+     *
+     * @return json type name, null if values can not be bound as json array.
+     */
+    public String getJsonTypeName() {
+        for (Object value : values) {
+            // NaN and Infinity are not json numbers.
+            if ((value instanceof Double && !Double.isFinite((Double) value))
+                    || (value instanceof Float && !Float.isFinite((Float) value))) {
+                return null;
+            }
+        }
+        return JSON_TYPE_NAME_MAP.get(values[0].getClass());
+    }
+
+    /**
+     * Get values as json array, such as "[1,2,3]" or "["a","b"]".
+     *
+     * @return json array string
+     */
+    public String toJson() {
+        StringBuilder json = new StringBuilder(values.length * 8);
+        json.append('[');
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            if (values[i] instanceof String) {
+                appendJsonString(json, (String) values[i]);
+            } else {
+                json.append(values[i]);
+            }
+        }
+        return json.append(']').toString();
+    }
+
+    private static void appendJsonString(final StringBuilder json, final String value) {
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                json.append('\\').append(c);
+            } else if (c < 0x20) {
+                json.append(String.format("\\u%04x", (int) c));
+            } else {
+                json.append(c);
+            }
+        }
+        json.append('"');
+    }
+}
@@ -11,6 +11,7 @@ class ColumnInfo {
     private String columnName;
     private String tableOrAlias;
     private Field field;
+    private String queryColumn;
 
     public Field getField() {
         return field;
@@ -26,6 +27,7 @@ class ColumnInfo {
 
     public void setColumnName(String columnName) {
         this.columnName = columnName;
+        this.queryColumn = null;
     }
 
     public String getTableOrAlias() {
@@ -34,13 +36,17 @@ class ColumnInfo {
 
     public void setTableOrAlias(String tableOrAlias) {
         this.tableOrAlias = tableOrAlias;
+        this.queryColumn = null;
     }
 
     public String getQueryColumn() {
-        if (StringUtils.isNotBlank(getTableOrAlias())) {
-            return String.format("%s.%s", getTableOrAlias(), getColumnName());
-        } else {
-            return this.columnName;
+        if (queryColumn == null) {
+            if (StringUtils.isNotBlank(getTableOrAlias())) {
+                queryColumn = String.format("%s.%s", getTableOrAlias(), getColumnName());
+            } else {
+                queryColumn = this.columnName;
+            }
         }
+        return queryColumn;
     }
 }
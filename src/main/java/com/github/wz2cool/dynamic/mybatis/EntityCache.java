@@ -2,22 +2,35 @@ package com.github.wz2cool.dynamic.mybatis;
 
 import com.github.wz2cool.dynamic.exception.PropertyNotFoundInternalException;
 import com.github.wz2cool.dynamic.helper.ReflectHelper;
+import org.apache.commons.lang3.ArrayUtils;
 import org.apache.commons.lang3.StringUtils;
 
 import javax.persistence.Column;
 import javax.persistence.Transient;
 import java.lang.reflect.Field;
-import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
 class EntityCache {
     private static EntityCache instance = new EntityCache();
-    private final Map<Class, String[]> propertyNameCacheMap = new ConcurrentHashMap<>();
-    private final Map<Class, Map<String, ColumnInfo>> columnInfoCacheMap = new ConcurrentHashMap<>();
     private static final String ENTITY_CLASS = "entityClass";
+    private static final int MAX_PROJECTION_CACHE_SIZE = 256;
+
+    /**
+     * metadata is built once per entity class, only projection cache inside is filled later.
+     */
+    private final ClassValue<EntityMetadata> entityMetadataCache = new ClassValue<EntityMetadata>() {
+        @Override
+        protected EntityMetadata computeValue(Class<?> type) {
+            return new EntityMetadata(type);
+        }
+    };
 
     // region implement singleton.
 
@@ -30,23 +43,11 @@ class EntityCache {
 
     // endregion
 
+    /**
+     * shared array of cache, do not modify.
+     */
     String[] getPropertyNames(final Class entityClass) {
-        if (entityClass == null) {
-            throw new NullPointerException(ENTITY_CLASS);
-        }
-
-        if (propertyNameCacheMap.containsKey(entityClass)) {
-            return propertyNameCacheMap.get(entityClass);
-        } else {
-            Field[] fields = ReflectHelper.getProperties(entityClass);
-            Collection<String> propertyNames = new ArrayList<>();
-            for (Field field : fields) {
-                propertyNames.add(field.getName());
-            }
-            String[] fieldArray = propertyNames.toArray(new String[propertyNames.size()]);
-            propertyNameCacheMap.put(entityClass, fieldArray);
-            return fieldArray;
-        }
+        return getEntityMetadata(entityClass).propertyNames;
     }
 
     boolean hasProperty(final Class entityClass, final String propertyName) {
@@ -54,14 +55,7 @@ class EntityCache {
             return false;
         }
 
-        String[] propertyNames = getPropertyNames(entityClass);
-        for (String pName : propertyNames) {
-            if (propertyName.equalsIgnoreCase(pName)) {
-                return true;
-            }
-        }
-
-        return false;
+        return getEntityMetadata(entityClass).hasProperty(propertyName);
     }
 
     ColumnInfo getColumnInfo(Class entityClass, String propertyName) {
@@ -69,32 +63,102 @@ class EntityCache {
             throw new NullPointerException("propertyName");
         }
 
-        Map<String, ColumnInfo> propertyDbColumnMap = getPropertyColumnInfoMap(entityClass);
-        if (!propertyDbColumnMap.containsKey(propertyName)) {
+        ColumnInfo columnInfo = getEntityMetadata(entityClass).columnInfoMap.get(propertyName);
+        if (columnInfo == null) {
             throw new PropertyNotFoundInternalException(String.format("Can't found property: %s", propertyName));
         }
 
-        return propertyDbColumnMap.get(propertyName);
+        return columnInfo;
     }
 
+    /**
+     * shared array of cache, do not modify.
+     */
     ColumnInfo[] getColumnInfos(Class entityClass) {
-        Map<String, ColumnInfo> propertyDbColumnMap = getPropertyColumnInfoMap(entityClass);
-        Collection<ColumnInfo> columnInfos = propertyDbColumnMap.values();
-        return columnInfos.toArray(new ColumnInfo[columnInfos.size()]);
+        return getEntityMetadata(entityClass).columnInfos;
+    }
+
+    /**
+     * Get expression of all columns, such as "product_id AS productId, price AS price".
+     *
+     * @param entityClass              entity class
+     * @param mapUnderscoreToCamelCase use underscore property name as column alias.
+     * @return all columns expression
+     */
+    String getAllColumnsExpression(Class entityClass, boolean mapUnderscoreToCamelCase) {
+        EntityMetadata entityMetadata = getEntityMetadata(entityClass);
+        return mapUnderscoreToCamelCase
+                ? entityMetadata.allUnderscoreColumnsExpression : entityMetadata.allColumnsExpression;
+    }
+
+    /**
+     * Get expression of selected columns, rendered expression is cached per projection.
+     *
+     * @param entityClass              entity class
+     * @param selectedProperties       selected properties, select all if empty.
+     * @param ignoredProperties        ignored properties, only used if no selected properties.
+     * @param mapUnderscoreToCamelCase use underscore property name as column alias.
+     * @return selected columns expression
+     */
+    String getColumnsExpression(Class entityClass,
+                                String[] selectedProperties,
+                                String[] ignoredProperties,
+                                boolean mapUnderscoreToCamelCase) {
+        EntityMetadata entityMetadata = getEntityMetadata(entityClass);
+        boolean isSelectedPropertiesNotEmpty = ArrayUtils.isNotEmpty(selectedProperties);
+        boolean isIgnoredPropertiesNotEmpty = ArrayUtils.isNotEmpty(ignoredProperties);
+        if (!isSelectedPropertiesNotEmpty && !isIgnoredPropertiesNotEmpty) {
+            return mapUnderscoreToCamelCase
+                    ? entityMetadata.allUnderscoreColumnsExpression : entityMetadata.allColumnsExpression;
+        }
+
+        BitSet columnIndexes = new BitSet(entityMetadata.columnInfos.length);
+        if (isSelectedPropertiesNotEmpty) {
+            entityMetadata.setColumnIndexes(columnIndexes, selectedProperties);
+        } else {
+            columnIndexes.set(0, entityMetadata.columnInfos.length);
+            BitSet ignoredColumnIndexes = new BitSet(entityMetadata.columnInfos.length);
+            entityMetadata.setColumnIndexes(ignoredColumnIndexes, ignoredProperties);
+            columnIndexes.andNot(ignoredColumnIndexes);
+        }
+        return entityMetadata.getColumnsExpression(columnIndexes, mapUnderscoreToCamelCase);
     }
 
-    private Map<String, ColumnInfo> getPropertyColumnInfoMap(Class entityClass) {
+    private EntityMetadata getEntityMetadata(Class entityClass) {
         if (entityClass == null) {
             throw new NullPointerException(ENTITY_CLASS);
         }
 
-        Map<String, ColumnInfo> propertyDbColumnMap;
-        if (columnInfoCacheMap.containsKey(entityClass)) {
-            propertyDbColumnMap = columnInfoCacheMap.get(entityClass);
-        } else {
-            Map<String, ColumnInfo> map = new HashMap<>(10);
+        return entityMetadataCache.get(entityClass);
+    }
+
+    private static class EntityMetadata {
+        private final String[] propertyNames;
+        private final Set<String> propertyNameSet;
+        private final Set<String> lowerCasePropertyNameSet;
+        private final Map<String, ColumnInfo> columnInfoMap;
+        private final ColumnInfo[] columnInfos;
+        private final String allColumnsExpression;
+        private final String allUnderscoreColumnsExpression;
+        private final Map<String, Integer> columnIndexMap;
+        private final String[] selectColumns;
+        private final String[] underscoreSelectColumns;
+        private final Map<BitSet, String> columnsExpressionCache = new ConcurrentHashMap<>();
+        private final Map<BitSet, String> underscoreColumnsExpressionCache = new ConcurrentHashMap<>();
+
+        private EntityMetadata(Class<?> entityClass) {
             Field[] properties = ReflectHelper.getProperties(entityClass);
+            propertyNames = new String[properties.length];
+            propertyNameSet = new HashSet<>(properties.length * 2);
+            lowerCasePropertyNameSet = new HashSet<>(properties.length * 2);
+            for (int i = 0; i < properties.length; i++) {
+                String pName = properties[i].getName();
+                propertyNames[i] = pName;
+                propertyNameSet.add(pName);
+                lowerCasePropertyNameSet.add(pName.toLowerCase(Locale.ROOT));
+            }
 
+            Map<String, ColumnInfo> map = new HashMap<>(10);
             for (Field field : properties) {
                 field.setAccessible(true);
                 // and Transient
@@ -113,10 +177,61 @@ class EntityCache {
                 columnInfo.setTableOrAlias(tableOrAlias);
                 map.put(pName, columnInfo);
             }
-            columnInfoCacheMap.put(entityClass, map);
-            propertyDbColumnMap = map;
+            columnInfoMap = map;
+            Collection<ColumnInfo> columnInfoCollection = map.values();
+            columnInfos = columnInfoCollection.toArray(new ColumnInfo[0]);
+            columnIndexMap = new HashMap<>(columnInfos.length * 2);
+            selectColumns = new String[columnInfos.length];
+            underscoreSelectColumns = new String[columnInfos.length];
+            for (int i = 0; i < columnInfos.length; i++) {
+                String fieldName = columnInfos[i].getField().getName();
+                String queryColumn = columnInfos[i].getQueryColumn();
+                columnIndexMap.put(fieldName, i);
+                selectColumns[i] = String.format("%s AS %s", queryColumn, fieldName);
+                underscoreSelectColumns[i] = String.format("%s AS %s",
+                        queryColumn, EntityHelper.camelCaseToUnderscore(fieldName));
+            }
+            allColumnsExpression = String.join(", ", selectColumns);
+            allUnderscoreColumnsExpression = String.join(", ", underscoreSelectColumns);
         }
 
-        return propertyDbColumnMap;
+        private void setColumnIndexes(BitSet columnIndexes, String[] properties) {
+            for (String property : properties) {
+                Integer index = columnIndexMap.get(property);
+                if (index != null) {
+                    columnIndexes.set(index);
+                }
+            }
+        }
+
+        private String getColumnsExpression(BitSet columnIndexes, boolean mapUnderscoreToCamelCase) {
+            Map<BitSet, String> cache = mapUnderscoreToCamelCase
+                    ? underscoreColumnsExpressionCache : columnsExpressionCache;
+            String expression = cache.get(columnIndexes);
+            if (expression != null) {
+                return expression;
+            }
+
+            String[] columns = mapUnderscoreToCamelCase ? underscoreSelectColumns : selectColumns;
+            StringBuilder sb = new StringBuilder();
+            for (int i = columnIndexes.nextSetBit(0); i >= 0; i = columnIndexes.nextSetBit(i + 1)) {
+                if (sb.length() > 0) {
+                    sb.append(", ");
+                }
+                sb.append(columns[i]);
+            }
+            expression = sb.toString();
+            // projections come from code, but keep memory bounded if they come from user input.
+            if (cache.size() < MAX_PROJECTION_CACHE_SIZE) {
+                cache.put(columnIndexes, expression);
+            }
+            return expression;
+        }
+
+        private boolean hasProperty(String propertyName) {
+            // exact name is the common case, no need to lower case.
+            return propertyNameSet.contains(propertyName)
+                    || lowerCasePropertyNameSet.contains(propertyName.toLowerCase(Locale.ROOT));
+        }
     }
 }
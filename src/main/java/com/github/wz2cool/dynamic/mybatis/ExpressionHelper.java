@@ -3,114 +3,188 @@ package com.github.wz2cool.dynamic.mybatis;
 import com.github.wz2cool.dynamic.FilterOperator;
 
 import java.security.InvalidParameterException;
-import java.util.ArrayList;
-import java.util.List;
 
 /**
  * Created by Frank on 7/17/2017.
  */
 @SuppressWarnings("squid:S1192")
 class ExpressionHelper {
+    static final int IN_CHUNK_SIZE = 1000;
 
-    @SuppressWarnings("squid:MethodCyclomaticComplexity")
     String getExpression(final FilterOperator operator, final ColumnInfo columnInfo, final Object filterValue, final String... paramPlaceholders) {
+        return appendExpression(new StringBuilder(), operator, columnInfo, filterValue, paramPlaceholders).toString();
+    }
+
+    /**
+     * Append expression of one filter into sink, so that a filter tree can be rendered into one builder.
+     *
+     * @return sink
+     */
+    @SuppressWarnings("squid:MethodCyclomaticComplexity")
+    StringBuilder appendExpression(final StringBuilder sink,
+                                   final FilterOperator operator,
+                                   final ColumnInfo columnInfo,
+                                   final Object filterValue,
+                                   final String... paramPlaceholders) {
         switch (operator) {
             case EQUAL:
-                return getEqualExpression(columnInfo, filterValue, paramPlaceholders);
+                return filterValue == null
+                        ? appendColumn(sink, columnInfo).append(" IS NULL")
+                        : appendBinaryExpression(sink, columnInfo, " = ", paramPlaceholders[0]);
             case NOT_EQUAL:
-                return getNotEqualExpression(columnInfo, filterValue, paramPlaceholders);
+                return filterValue == null
+                        ? appendColumn(sink, columnInfo).append(" IS NOT NULL")
+                        : appendBinaryExpression(sink, columnInfo, " <> ", paramPlaceholders[0]);
             case LESS_THAN:
-                return getLessThanExpression(columnInfo, paramPlaceholders);
+                return appendBinaryExpression(sink, columnInfo, " < ", paramPlaceholders[0]);
             case LESS_THAN_OR_EQUAL:
-                return getLessThanOrEqualExpression(columnInfo, paramPlaceholders);
+                return appendBinaryExpression(sink, columnInfo, " <= ", paramPlaceholders[0]);
             case GREATER_THAN_OR_EQUAL:
-                return getGreaterThanOrEqualExpression(columnInfo, paramPlaceholders);
+                return appendBinaryExpression(sink, columnInfo, " >= ", paramPlaceholders[0]);
             case GREATER_THAN:
-                return getGreaterThanExpression(columnInfo, paramPlaceholders);
+                return appendBinaryExpression(sink, columnInfo, " > ", paramPlaceholders[0]);
             case START_WITH:
             case END_WITH:
             case CONTAINS:
-                return getLikeExpression(columnInfo, paramPlaceholders);
+                return appendBinaryExpression(sink, columnInfo, " LIKE ", paramPlaceholders[0]);
             case IN:
-                return getInExpression(columnInfo, paramPlaceholders);
+                return paramPlaceholders.length == 0
+                        ? sink.append("FALSE")
+                        : appendChunkedInExpression(sink, columnInfo, " IN (", " OR ", paramPlaceholders);
             case NOT_IN:
-                return getNotInExpression(columnInfo, paramPlaceholders);
+                return paramPlaceholders.length == 0
+                        ? sink.append("TRUE")
+                        : appendChunkedInExpression(sink, columnInfo, " NOT IN (", " AND ", paramPlaceholders);
             case BETWEEN:
-                return getBetweenExpression(columnInfo, paramPlaceholders);
+                return appendBetweenExpression(sink, columnInfo, paramPlaceholders);
             default:
                 throw new UnsupportedOperationException(String.format("not support operator: %s", operator));
         }
     }
 
     String getEqualExpression(final ColumnInfo columnInfo, Object filterValue, final String... paramPlaceholders) {
-        if (filterValue == null) {
-            return String.format("%s IS NULL", columnInfo.getQueryColumn());
-        }
-
-        return String.format("%s = #{%s}", columnInfo.getQueryColumn(), paramPlaceholders[0]);
+        return getExpression(FilterOperator.EQUAL, columnInfo, filterValue, paramPlaceholders);
     }
 
     String getNotEqualExpression(final ColumnInfo columnInfo, Object filterValue, final String... paramPlaceholders) {
-        if (filterValue == null) {
-            return String.format("%s IS NOT NULL", columnInfo.getQueryColumn());
-        }
-
-        return String.format("%s <> #{%s}", columnInfo.getQueryColumn(), paramPlaceholders[0]);
+        return getExpression(FilterOperator.NOT_EQUAL, columnInfo, filterValue, paramPlaceholders);
     }
 
     String getLessThanExpression(final ColumnInfo columnInfo, final String... paramPlaceholders) {
-        return String.format("%s < #{%s}", columnInfo.getQueryColumn(), paramPlaceholders[0]);
+        return getExpression(FilterOperator.LESS_THAN, columnInfo, null, paramPlaceholders);
     }
 
     String getLessThanOrEqualExpression(final ColumnInfo columnInfo, final String... paramPlaceholders) {
-        return String.format("%s <= #{%s}", columnInfo.getQueryColumn(), paramPlaceholders[0]);
+        return getExpression(FilterOperator.LESS_THAN_OR_EQUAL, columnInfo, null, paramPlaceholders);
     }
 
     String getGreaterThanOrEqualExpression(final ColumnInfo columnInfo, final String... paramPlaceholders) {
-        return String.format("%s >= #{%s}", columnInfo.getQueryColumn(), paramPlaceholders[0]);
+        return getExpression(FilterOperator.GREATER_THAN_OR_EQUAL, columnInfo, null, paramPlaceholders);
     }
 
     String getGreaterThanExpression(final ColumnInfo columnInfo, final String... paramPlaceholders) {
-        return String.format("%s > #{%s}", columnInfo.getQueryColumn(), paramPlaceholders[0]);
+        return getExpression(FilterOperator.GREATER_THAN, columnInfo, null, paramPlaceholders);
     }
 
     String getLikeExpression(final ColumnInfo columnInfo, final String... paramPlaceholders) {
-        return String.format("%s LIKE #{%s}", columnInfo.getQueryColumn(), paramPlaceholders[0]);
+        return getExpression(FilterOperator.CONTAINS, columnInfo, null, paramPlaceholders);
     }
 
     String getInExpression(final ColumnInfo columnInfo, final String... paramPlaceholders) {
-        if (paramPlaceholders.length == 0) {
-            return "FALSE";
-        }
-
-        String inStr = "%s IN (%s)";
-        List<String> formattedParams = new ArrayList<>();
-        for (String paramPlaceholder : paramPlaceholders) {
-            formattedParams.add(String.format("#{%s}", paramPlaceholder));
-        }
-        return String.format(inStr, columnInfo.getQueryColumn(), String.join(",", formattedParams));
+        return getExpression(FilterOperator.IN, columnInfo, null, paramPlaceholders);
     }
 
     String getNotInExpression(final ColumnInfo columnInfo, final String... paramPlaceholders) {
-        if (paramPlaceholders.length == 0) {
-            return "TRUE";
-        }
+        return getExpression(FilterOperator.NOT_IN, columnInfo, null, paramPlaceholders);
+    }
 
-        String notInStr = "%s NOT IN (%s)";
-        List<String> formattedParams = new ArrayList<>();
-        for (String paramPlaceholder : paramPlaceholders) {
-            formattedParams.add(String.format("#{%s}", paramPlaceholder));
+    String getBetweenExpression(final ColumnInfo columnInfo, final String... paramPlaceholders) {
+        return getExpression(FilterOperator.BETWEEN, columnInfo, null, paramPlaceholders);
+    }
+
+    StringBuilder appendArrayInExpression(final StringBuilder sink,
+                                          final InExpressionStrategy inExpressionStrategy,
+                                          final FilterOperator operator,
+                                          final ColumnInfo columnInfo,
+                                          final String elementTypeName,
+                                          final String paramPlaceholder) {
+        boolean notIn = operator == FilterOperator.NOT_IN;
+        switch (inExpressionStrategy) {
+            case ANY_ARRAY:
+                appendColumn(sink, columnInfo).append(notIn ? " <> ALL(" : " = ANY(");
+                return appendPlaceholder(sink, paramPlaceholder).append(')');
+            case TABLE_ARRAY:
+                appendColumn(sink, columnInfo).append(notIn ? " NOT IN (" : " IN (")
+                        .append("SELECT X FROM TABLE(X ").append(elementTypeName).append(" = ");
+                return appendPlaceholder(sink, paramPlaceholder).append("))");
+            case JSON_ARRAY:
+                appendColumn(sink, columnInfo).append(notIn ? " NOT IN (" : " IN (")
+                        .append("SELECT value FROM OPENJSON(");
+                return appendPlaceholder(sink, paramPlaceholder)
+                        .append(") WITH (value ").append(elementTypeName).append(" '$'))");
+            default:
+                throw new UnsupportedOperationException(
+                        String.format("not support array in expression strategy: %s", inExpressionStrategy));
         }
-        return String.format(notInStr, columnInfo.getQueryColumn(), String.join(",", formattedParams));
     }
 
-    String getBetweenExpression(final ColumnInfo columnInfo, final String... paramPlaceholders) {
+    private StringBuilder appendColumn(final StringBuilder sink, final ColumnInfo columnInfo) {
+        return sink.append(columnInfo.getQueryColumn());
+    }
+
+    private StringBuilder appendPlaceholder(final StringBuilder sink, final String paramPlaceholder) {
+        return sink.append("#{").append(paramPlaceholder).append('}');
+    }
+
+    private StringBuilder appendBinaryExpression(final StringBuilder sink,
+                                                 final ColumnInfo columnInfo,
+                                                 final String operator,
+                                                 final String paramPlaceholder) {
+        appendColumn(sink, columnInfo).append(operator);
+        return appendPlaceholder(sink, paramPlaceholder);
+    }
+
+    private StringBuilder appendBetweenExpression(final StringBuilder sink,
+                                                  final ColumnInfo columnInfo,
+                                                  final String... paramPlaceholders) {
         int expectedSize = 2;
         if (paramPlaceholders.length != expectedSize) {
             String errMsg = "if \"Between\" operator, the count of paramPlaceholders must be 2";
             throw new InvalidParameterException(errMsg);
         }
 
-        return String.format("%s BETWEEN #{%s} AND #{%s}", columnInfo.getQueryColumn(), paramPlaceholders[0], paramPlaceholders[1]);
+        appendBinaryExpression(sink, columnInfo, " BETWEEN ", paramPlaceholders[0]).append(" AND ");
+        return appendPlaceholder(sink, paramPlaceholders[1]);
+    }
+
+    /**
+     * some databases limit size of one "IN" list (such as 1000 in oracle), split it into chunks.
+     * count of bind parameters is not changed, it is checked against limit of database by provider.
+     */
+    private StringBuilder appendChunkedInExpression(final StringBuilder sink,
+                                                    final ColumnInfo columnInfo,
+                                                    final String inOperator,
+                                                    final String chunkCondition,
+                                                    final String... paramPlaceholders) {
+        boolean chunked = paramPlaceholders.length > IN_CHUNK_SIZE;
+        if (chunked) {
+            sink.append('(');
+        }
+        for (int i = 0; i < paramPlaceholders.length; i++) {
+            if (i % IN_CHUNK_SIZE == 0) {
+                if (i > 0) {
+                    sink.append(')').append(chunkCondition);
+                }
+                appendColumn(sink, columnInfo).append(inOperator);
+            } else {
+                sink.append(',');
+            }
+            appendPlaceholder(sink, paramPlaceholders[i]);
+        }
+        sink.append(')');
+        if (chunked) {
+            sink.append(')');
+        }
+        return sink;
     }
 }
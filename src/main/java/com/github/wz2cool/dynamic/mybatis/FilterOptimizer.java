@@ -0,0 +1,452 @@
+package com.github.wz2cool.dynamic.mybatis;
+
+import com.github.wz2cool.dynamic.BaseFilterDescriptor;
+import com.github.wz2cool.dynamic.CustomFilterDescriptor;
+import com.github.wz2cool.dynamic.DynamicQuery;
+import com.github.wz2cool.dynamic.FilterCondition;
+import com.github.wz2cool.dynamic.FilterDescriptor;
+import com.github.wz2cool.dynamic.FilterGroupDescriptor;
+import com.github.wz2cool.dynamic.FilterOperator;
+import com.github.wz2cool.dynamic.FrozenDynamicQuery;
+import org.apache.commons.lang3.ArrayUtils;
+
+import java.time.temporal.Temporal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Simplify filter tree before rendering, filters passed in are never modified.
+ * <p>
+ * Filters of one group are read as SQL does ("AND" before "OR"), so a group is an "OR" of "AND" terms:
+ * <ul>
+ * <li>groups with one term are merged into parent term, groups with terms only are merged into parent "OR".</li>
+ * <li>same filters in one term and same terms in one group are removed.</li>
+ * <li>"IN" with one value becomes "EQUAL", "NOT_IN" with one value becomes "NOT_EQUAL".</li>
+ * <li>"a &gt;= x AND a &lt;= y" becomes "a BETWEEN x AND y".</li>
+ * <li>always true filters (such as "NOT_IN" nothing) are removed, always false filters
+ * (such as "IN" nothing) remove the term, empty result means no filter.</li>
+ * </ul>
+ * Groups which contain {@link CustomFilterDescriptor} directly are kept as they are,
+ * because precedence inside custom expression is unknown, only child groups of them are simplified.
+ *
+ * @author Frank
+ */
+public class FilterOptimizer {
+    private static final EntityCache ENTITY_CACHE = EntityCache.getInstance();
+    private static final String ALWAYS_TRUE_EXPRESSION = "1 = 1";
+    private static final String ALWAYS_FALSE_EXPRESSION = "1 = 0";
+    private static final FilterDescriptor ALWAYS_TRUE = new FilterDescriptor();
+    private static final FilterDescriptor ALWAYS_FALSE = new FilterDescriptor();
+
+    private FilterOptimizer() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Optimize filters.
+     *
+     * @param entityClass entity class, properties of filters are validated even if filters are removed.
+     * @param filters     filters
+     * @return new filters, empty if filters are always true.
+     */
+    public static BaseFilterDescriptor[] optimize(final Class entityClass, final BaseFilterDescriptor[] filters) {
+        if (filters == null || filters.length == 0) {
+            return new BaseFilterDescriptor[0];
+        }
+
+        Disjunction disjunction = optimizeGroup(entityClass, filters);
+        if (disjunction.alwaysTrue) {
+            return new BaseFilterDescriptor[0];
+        }
+        if (disjunction.terms.isEmpty()) {
+            return new BaseFilterDescriptor[]{new CustomFilterDescriptor(ALWAYS_FALSE_EXPRESSION)};
+        }
+        // outer filters are rendered with brackets as group does.
+        if (disjunction.terms.size() == 1 && disjunction.terms.get(0).size() == 1
+                && disjunction.terms.get(0).get(0) instanceof FilterGroupDescriptor) {
+            return ((FilterGroupDescriptor) disjunction.terms.get(0).get(0)).getFilters();
+        }
+        return toFilters(disjunction);
+    }
+
+    /**
+     * Optimize filters of dynamic query, result of frozen dynamic query is computed only once.
+     *
+     * @param dynamicQuery dynamic query
+     * @return new filters, empty if filters are always true, do not modify them.
+     */
+    public static BaseFilterDescriptor[] optimize(final DynamicQuery<?> dynamicQuery) {
+        if (dynamicQuery instanceof FrozenDynamicQuery) {
+            return ((FrozenDynamicQuery<?>) dynamicQuery).getOptimizedFilters();
+        }
+        return optimize(dynamicQuery.getEntityClass(), dynamicQuery.getFilters());
+    }
+
+    /**
+     * Check if optimized filters are always false, so that optimizing is not needed again.
+     *
+     * @param optimizedFilters result of {@link #optimize(Class, BaseFilterDescriptor[])}
+     * @return true if no row matches filters.
+     */
+    public static boolean isOptimizedAlwaysFalse(final BaseFilterDescriptor[] optimizedFilters) {
+        if (optimizedFilters == null || optimizedFilters.length != 1
+                || !(optimizedFilters[0] instanceof CustomFilterDescriptor)) {
+            return false;
+        }
+        CustomFilterDescriptor customFilter = (CustomFilterDescriptor) optimizedFilters[0];
+        return ALWAYS_FALSE_EXPRESSION.equals(customFilter.getExpression())
+                && ArrayUtils.isEmpty(customFilter.getParams());
+    }
+
+    /**
+     * Check if filters are always false, such as "IN" nothing.
+     *
+     * @param entityClass entity class
+     * @param filters     filters
+     * @return true if no row matches filters.
+     */
+    public static boolean isAlwaysFalse(final Class entityClass, final BaseFilterDescriptor[] filters) {
+        if (filters == null || filters.length == 0) {
+            return false;
+        }
+        Disjunction disjunction = optimizeGroup(entityClass, filters);
+        return !disjunction.alwaysTrue && disjunction.terms.isEmpty();
+    }
+
+    private static Disjunction optimizeGroup(final Class entityClass, final BaseFilterDescriptor[] filters) {
+        if (filters == null) {
+            return Disjunction.alwaysTrue();
+        }
+        for (BaseFilterDescriptor filter : filters) {
+            if (filter instanceof CustomFilterDescriptor) {
+                return optimizeCustomGroup(entityClass, filters);
+            }
+        }
+
+        Disjunction result = new Disjunction();
+        List<BaseFilterDescriptor> term = new ArrayList<>();
+        boolean termStarted = false;
+        boolean termAlwaysFalse = false;
+        for (BaseFilterDescriptor filter : filters) {
+            if (filter == null) {
+                continue;
+            }
+            if (filter.getCondition() == FilterCondition.OR && termStarted) {
+                if (addTerm(result, term, termAlwaysFalse)) {
+                    return result;
+                }
+                term = new ArrayList<>();
+                termAlwaysFalse = false;
+            }
+            termStarted = true;
+            termAlwaysFalse |= addToTerm(entityClass, term, filter);
+        }
+        if (termStarted) {
+            addTerm(result, term, termAlwaysFalse);
+        } else {
+            result.alwaysTrue = true;
+        }
+        return result;
+    }
+
+    /**
+     * @return true if term is always false.
+     */
+    private static boolean addToTerm(final Class entityClass,
+                                     final List<BaseFilterDescriptor> term,
+                                     final BaseFilterDescriptor filter) {
+        if (filter instanceof FilterDescriptor) {
+            FilterDescriptor filterDescriptor = optimizeFilter(entityClass, (FilterDescriptor) filter);
+            if (filterDescriptor == ALWAYS_FALSE) {
+                return true;
+            }
+            if (filterDescriptor != ALWAYS_TRUE) {
+                term.add(filterDescriptor);
+            }
+            return false;
+        }
+
+        if (filter instanceof FilterGroupDescriptor) {
+            Disjunction child = optimizeGroup(entityClass, ((FilterGroupDescriptor) filter).getFilters());
+            if (child.alwaysTrue) {
+                return false;
+            }
+            if (child.terms.isEmpty()) {
+                return true;
+            }
+            if (child.terms.size() == 1) {
+                term.addAll(child.terms.get(0));
+            } else {
+                term.add(new OptimizedGroup(child));
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return true if disjunction is always true.
+     */
+    private static boolean addTerm(final Disjunction disjunction,
+                                   final List<BaseFilterDescriptor> term,
+                                   final boolean termAlwaysFalse) {
+        if (termAlwaysFalse) {
+            return false;
+        }
+
+        removeSameFilters(term);
+        if (mergeRanges(term)) {
+            return false;
+        }
+        if (term.isEmpty()) {
+            disjunction.alwaysTrue = true;
+            disjunction.terms.clear();
+            return true;
+        }
+
+        if (term.size() == 1 && term.get(0) instanceof OptimizedGroup) {
+            // "a OR (b OR c)"
+            for (List<BaseFilterDescriptor> childTerm : ((OptimizedGroup) term.get(0)).disjunction.terms) {
+                addDistinctTerm(disjunction, childTerm);
+            }
+        } else {
+            addDistinctTerm(disjunction, term);
+        }
+        return false;
+    }
+
+    private static void addDistinctTerm(final Disjunction disjunction, final List<BaseFilterDescriptor> term) {
+        for (List<BaseFilterDescriptor> existingTerm : disjunction.terms) {
+            if (isSameFilters(existingTerm, term)) {
+                return;
+            }
+        }
+        disjunction.terms.add(term);
+    }
+
+    private static Disjunction optimizeCustomGroup(final Class entityClass, final BaseFilterDescriptor[] filters) {
+        List<BaseFilterDescriptor> newFilters = new ArrayList<>(filters.length);
+        for (BaseFilterDescriptor filter : filters) {
+            if (filter instanceof FilterGroupDescriptor) {
+                Disjunction child = optimizeGroup(entityClass, ((FilterGroupDescriptor) filter).getFilters());
+                BaseFilterDescriptor newFilter;
+                if (child.alwaysTrue) {
+                    newFilter = new CustomFilterDescriptor(ALWAYS_TRUE_EXPRESSION);
+                } else if (child.terms.isEmpty()) {
+                    newFilter = new CustomFilterDescriptor(ALWAYS_FALSE_EXPRESSION);
+                } else {
+                    newFilter = new OptimizedGroup(child);
+                }
+                newFilter.setCondition(filter.getCondition());
+                newFilters.add(newFilter);
+            } else if (filter instanceof FilterDescriptor) {
+                // validate only, filter is kept as it is.
+                optimizeFilter(entityClass, (FilterDescriptor) filter);
+                newFilters.add(filter);
+            } else if (filter != null) {
+                newFilters.add(filter);
+            }
+        }
+
+        FilterGroupDescriptor<Object> group = new FilterGroupDescriptor<>();
+        group.setFilters(newFilters.toArray(new BaseFilterDescriptor[0]));
+        Disjunction result = new Disjunction();
+        result.terms.add(new ArrayList<>(Collections.singletonList(group)));
+        return result;
+    }
+
+    /**
+     * @return new filter with normalized value, {@link #ALWAYS_TRUE} or {@link #ALWAYS_FALSE}.
+     */
+    private static FilterDescriptor optimizeFilter(final Class entityClass, final FilterDescriptor filterDescriptor) {
+        String propertyName = filterDescriptor.getPropertyName();
+        FilterOperator operator = filterDescriptor.getOperator();
+        if (entityClass != null) {
+            ENTITY_CACHE.getColumnInfo(entityClass, propertyName);
+        }
+        Object[] filterValues = QueryHelper.getFilterValues(filterDescriptor);
+
+        if (operator == FilterOperator.IN || operator == FilterOperator.NOT_IN) {
+            Set<Object> valueSet = new LinkedHashSet<>(Arrays.asList(filterValues));
+            boolean containsNull = valueSet.remove(null);
+            if (operator == FilterOperator.NOT_IN && containsNull) {
+                // "a NOT IN (NULL)" is never true.
+                return ALWAYS_FALSE;
+            }
+            if (valueSet.isEmpty()) {
+                return operator == FilterOperator.IN ? ALWAYS_FALSE : ALWAYS_TRUE;
+            }
+            if (valueSet.size() == 1) {
+                FilterOperator newOperator = operator == FilterOperator.IN ? FilterOperator.EQUAL : FilterOperator.NOT_EQUAL;
+                return new FilterDescriptor(propertyName, newOperator, valueSet.iterator().next());
+            }
+            return new FilterDescriptor(propertyName, operator, valueSet.toArray());
+        }
+
+        if (operator == FilterOperator.BETWEEN) {
+            return newBetweenFilter(propertyName, filterValues[0], filterValues[1]);
+        }
+        return new FilterDescriptor(propertyName, operator, filterDescriptor.getValue());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static FilterDescriptor newBetweenFilter(final String propertyName, final Object min, final Object max) {
+        if (min != null && max != null && min.getClass() == max.getClass() && isCollationFreeOrdered(min)) {
+            int compareResult = ((Comparable) min).compareTo(max);
+            if (compareResult > 0) {
+                return ALWAYS_FALSE;
+            }
+            if (compareResult == 0) {
+                return new FilterDescriptor(propertyName, FilterOperator.EQUAL, min);
+            }
+        }
+        return new FilterDescriptor(propertyName, FilterOperator.BETWEEN, new Object[]{min, max});
+    }
+
+    /**
+     * order of string (and unknown types) depends on database collation, such as case insensitive,
+     * only values of these types can be compared in java.
+     */
+    private static boolean isCollationFreeOrdered(final Object value) {
+        return value instanceof Number
+                || value instanceof Date
+                || value instanceof Temporal
+                || value instanceof Boolean;
+    }
+
+    private static void removeSameFilters(final List<BaseFilterDescriptor> term) {
+        for (int i = term.size() - 1; i > 0; i--) {
+            for (int j = 0; j < i; j++) {
+                if (isSameFilter(term.get(i), term.get(j))) {
+                    term.remove(i);
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * merge "a &gt;= x" and "a &lt;= y" into "a BETWEEN x AND y".
+     *
+     * @return true if term is always false.
+     */
+    private static boolean mergeRanges(final List<BaseFilterDescriptor> term) {
+        for (int i = 0; i < term.size(); i++) {
+            FilterDescriptor min = getRangeFilter(term.get(i), FilterOperator.GREATER_THAN_OR_EQUAL);
+            if (min == null) {
+                continue;
+            }
+            for (int j = 0; j < term.size(); j++) {
+                FilterDescriptor max = getRangeFilter(term.get(j), FilterOperator.LESS_THAN_OR_EQUAL);
+                if (max != null && max.getPropertyName().equals(min.getPropertyName())) {
+                    FilterDescriptor between = newBetweenFilter(min.getPropertyName(), min.getValue(), max.getValue());
+                    if (between == ALWAYS_FALSE) {
+                        return true;
+                    }
+                    term.set(Math.min(i, j), between);
+                    term.remove(Math.max(i, j));
+                    // start over, positions are changed.
+                    i = -1;
+                    break;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static FilterDescriptor getRangeFilter(final BaseFilterDescriptor filter, final FilterOperator operator) {
+        if (!(filter instanceof FilterDescriptor)) {
+            return null;
+        }
+        FilterDescriptor filterDescriptor = (FilterDescriptor) filter;
+        return filterDescriptor.getOperator() == operator && filterDescriptor.getValue() != null
+                ? filterDescriptor : null;
+    }
+
+    private static boolean isSameFilters(final List<BaseFilterDescriptor> filters1, final List<BaseFilterDescriptor> filters2) {
+        if (filters1.size() != filters2.size()) {
+            return false;
+        }
+        for (int i = 0; i < filters1.size(); i++) {
+            if (!isSameFilter(filters1.get(i), filters2.get(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isSameFilter(final BaseFilterDescriptor filter1, final BaseFilterDescriptor filter2) {
+        if (filter1 instanceof FilterDescriptor && filter2 instanceof FilterDescriptor) {
+            FilterDescriptor filterDescriptor1 = (FilterDescriptor) filter1;
+            FilterDescriptor filterDescriptor2 = (FilterDescriptor) filter2;
+            return filterDescriptor1.getOperator() == filterDescriptor2.getOperator()
+                    && Objects.equals(filterDescriptor1.getPropertyName(), filterDescriptor2.getPropertyName())
+                    && Objects.deepEquals(filterDescriptor1.getValue(), filterDescriptor2.getValue());
+        }
+        if (filter1 instanceof FilterGroupDescriptor && filter2 instanceof FilterGroupDescriptor) {
+            BaseFilterDescriptor[] filters1 = ((FilterGroupDescriptor) filter1).getFilters();
+            BaseFilterDescriptor[] filters2 = ((FilterGroupDescriptor) filter2).getFilters();
+            if (filters1.length != filters2.length) {
+                return false;
+            }
+            for (int i = 0; i < filters1.length; i++) {
+                if (filters1[i].getCondition() != filters2[i].getCondition() || !isSameFilter(filters1[i], filters2[i])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        if (filter1 instanceof CustomFilterDescriptor && filter2 instanceof CustomFilterDescriptor) {
+            CustomFilterDescriptor customFilter1 = (CustomFilterDescriptor) filter1;
+            CustomFilterDescriptor customFilter2 = (CustomFilterDescriptor) filter2;
+            return Objects.equals(customFilter1.getExpression(), customFilter2.getExpression())
+                    && Arrays.deepEquals(customFilter1.getParams(), customFilter2.getParams());
+        }
+        return false;
+    }
+
+    private static BaseFilterDescriptor[] toFilters(final Disjunction disjunction) {
+        List<BaseFilterDescriptor> result = new ArrayList<>();
+        for (int i = 0; i < disjunction.terms.size(); i++) {
+            List<BaseFilterDescriptor> term = disjunction.terms.get(i);
+            for (int j = 0; j < term.size(); j++) {
+                BaseFilterDescriptor filter = term.get(j);
+                // filters in terms are always created by optimizer, so that condition can be set.
+                filter.setCondition(i > 0 && j == 0 ? FilterCondition.OR : FilterCondition.AND);
+                result.add(filter);
+            }
+        }
+        return result.toArray(new BaseFilterDescriptor[0]);
+    }
+
+    /**
+     * "OR" of "AND" terms, always false if no term.
+     */
+    private static class Disjunction {
+        private final List<List<BaseFilterDescriptor>> terms = new ArrayList<>();
+        private boolean alwaysTrue;
+
+        private static Disjunction alwaysTrue() {
+            Disjunction disjunction = new Disjunction();
+            disjunction.alwaysTrue = true;
+            return disjunction;
+        }
+    }
+
+    /**
+     * group created from disjunction, so that terms can be merged into parent "OR" later.
+     */
+    private static class OptimizedGroup extends FilterGroupDescriptor<Object> {
+        private final Disjunction disjunction;
+
+        private OptimizedGroup(final Disjunction disjunction) {
+            this.disjunction = disjunction;
+            this.setFilters(toFilters(disjunction));
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.github.wz2cool.dynamic.mybatis;
+
+/**
+ * The enum In expression strategy, how large "IN" and "NOT_IN" lists are rendered.
+ * if array can not be used, lists longer than {@link ExpressionHelper#IN_CHUNK_SIZE} are split into chunks,
+ * which only avoids limit of list size, every value is still one bind parameter.
+ *
+ * @author Frank
+ */
+public enum InExpressionStrategy {
+    /**
+     * One placeholder per value, such as "id IN (#{p0},#{p1})".
+     */
+    PLACEHOLDER,
+    /**
+     * PostgreSQL, one array placeholder for large list, such as "id = ANY(#{p})".
+     */
+    ANY_ARRAY,
+    /**
+     * H2, one array placeholder for large list, such as "id IN (SELECT X FROM TABLE(X int4 = #{p}))".
+     */
+    TABLE_ARRAY,
+    /**
+     * SQL Server, one json string placeholder for large list,
+     * such as "id IN (SELECT value FROM OPENJSON(#{p}) WITH (value int '$'))".
+     */
+    JSON_ARRAY
+}
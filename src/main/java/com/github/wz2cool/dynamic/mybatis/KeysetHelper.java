@@ -0,0 +1,281 @@
+package com.github.wz2cool.dynamic.mybatis;
+
+import com.github.wz2cool.dynamic.*;
+import com.github.wz2cool.dynamic.exception.InternalRuntimeException;
+import org.apache.commons.lang3.StringUtils;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Keyset (seek) pagination, next page is located by sort values of last row instead of offset,
+ * sorts should end with an unique property (such as id) and sort values can not be null.
+ *
+ * @author Frank
+ */
+public class KeysetHelper {
+    private static final EntityCache ENTITY_CACHE = EntityCache.getInstance();
+
+    private KeysetHelper() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Create cursor of row, the cursor contains sort properties, directions and sort values of row.
+     *
+     * @param dynamicQuery dynamic query
+     * @param row          last row of current page
+     * @param <T>          entity type
+     * @return the cursor
+     */
+    public static <T> String createCursor(final DynamicQuery<T> dynamicQuery, final T row) {
+        if (row == null) {
+            throw new NullPointerException("row");
+        }
+
+        StringBuilder cursor = new StringBuilder();
+        for (SortDescriptor sortDescriptor : getSortDescriptors(dynamicQuery)) {
+            String propertyName = sortDescriptor.getPropertyName();
+            Object value = getPropertyValue(dynamicQuery.getEntityClass(), propertyName, row);
+            if (value == null) {
+                String errMsg = String.format("keyset pagination not support null value of property: %s", propertyName);
+                throw new IllegalArgumentException(errMsg);
+            }
+            appendCursorPart(cursor, propertyName);
+            appendCursorPart(cursor, sortDescriptor.getDirection().name());
+            appendCursorPart(cursor, formatValue(value));
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(cursor.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Create new dynamic query of page after cursor, filters, sorts and selected properties are copied,
+     * the original dynamic query is not changed, so that it can be shared between threads.
+     *
+     * @param dynamicQuery dynamic query
+     * @param cursor       cursor created by {@link #createCursor(DynamicQuery, Object)}, ignored if blank.
+     * @param <T>          entity type
+     * @return dynamic query of page after cursor
+     */
+    public static <T> DynamicQuery<T> createSeekQuery(final DynamicQuery<T> dynamicQuery, final String cursor) {
+        DynamicQuery<T> seekQuery = DynamicQuery.createQuery(dynamicQuery.getEntityClass());
+        seekQuery.setDistinct(dynamicQuery.isDistinct());
+        seekQuery.setSelectedProperties(dynamicQuery.getSelectedProperties());
+        seekQuery.setIgnoredProperties(dynamicQuery.getIgnoredProperties());
+        seekQuery.setFilters(dynamicQuery.getFilters());
+        seekQuery.setSorts(dynamicQuery.getSorts());
+        return seekQuery.seekAfter(cursor);
+    }
+
+    /**
+     * Get seek filter of cursor, rows after cursor in sort order match this filter.
+     * such as "a &gt;= ? AND (a &gt; ? OR (a = ? AND b &gt; ?))" if sort by "a ASC, b ASC".
+     *
+     * @param dynamicQuery dynamic query
+     * @param cursor       cursor created by {@link #createCursor(DynamicQuery, Object)}
+     * @param <T>          entity type
+     * @return the seek filter, null if cursor is blank.
+     */
+    public static <T> FilterGroupDescriptor<T> getSeekFilter(final DynamicQuery<T> dynamicQuery, final String cursor) {
+        if (StringUtils.isBlank(cursor)) {
+            return null;
+        }
+
+        SortDescriptor[] sortDescriptors = getSortDescriptors(dynamicQuery);
+        Object[] sortValues = parseCursor(dynamicQuery.getEntityClass(), sortDescriptors, cursor);
+
+        FilterGroupDescriptor<T> orGroup = new FilterGroupDescriptor<>();
+        for (int i = 0; i < sortDescriptors.length; i++) {
+            FilterGroupDescriptor<T> andGroup = new FilterGroupDescriptor<>();
+            andGroup.setCondition(FilterCondition.OR);
+            for (int j = 0; j < i; j++) {
+                andGroup.addFilters(new FilterDescriptor(
+                        sortDescriptors[j].getPropertyName(), FilterOperator.EQUAL, sortValues[j]));
+            }
+            andGroup.addFilters(new FilterDescriptor(sortDescriptors[i].getPropertyName(),
+                    getSeekOperator(sortDescriptors[i].getDirection(), false), sortValues[i]));
+            orGroup.addFilters(andGroup);
+        }
+
+        // redundant range on first sort property, so that database can seek by index directly.
+        FilterGroupDescriptor<T> seekFilter = new FilterGroupDescriptor<>();
+        seekFilter.addFilters(
+                new FilterDescriptor(sortDescriptors[0].getPropertyName(),
+                        getSeekOperator(sortDescriptors[0].getDirection(), true), sortValues[0]),
+                orGroup);
+        return seekFilter;
+    }
+
+    private static FilterOperator getSeekOperator(final SortDirection direction, final boolean inclusive) {
+        if (direction == SortDirection.DESC) {
+            return inclusive ? FilterOperator.LESS_THAN_OR_EQUAL : FilterOperator.LESS_THAN;
+        } else {
+            return inclusive ? FilterOperator.GREATER_THAN_OR_EQUAL : FilterOperator.GREATER_THAN;
+        }
+    }
+
+    private static SortDescriptor[] getSortDescriptors(final DynamicQuery<?> dynamicQuery) {
+        BaseSortDescriptor[] sorts = dynamicQuery.getSorts();
+        if (sorts == null || sorts.length == 0) {
+            throw new IllegalArgumentException("keyset pagination requires sorts");
+        }
+
+        SortDescriptor[] sortDescriptors = new SortDescriptor[sorts.length];
+        for (int i = 0; i < sorts.length; i++) {
+            if (!(sorts[i] instanceof SortDescriptor)) {
+                throw new IllegalArgumentException("keyset pagination only support SortDescriptor");
+            }
+            sortDescriptors[i] = (SortDescriptor) sorts[i];
+        }
+        return sortDescriptors;
+    }
+
+    private static Object getPropertyValue(final Class entityClass, final String propertyName, final Object row) {
+        try {
+            return ENTITY_CACHE.getColumnInfo(entityClass, propertyName).getField().get(row);
+        } catch (IllegalAccessException e) {
+            throw new InternalRuntimeException(e);
+        }
+    }
+
+    private static Object[] parseCursor(
+            final Class entityClass, final SortDescriptor[] sortDescriptors, final String cursor) {
+        String cursorString;
+        try {
+            cursorString = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("invalid cursor: " + cursor, e);
+        }
+
+        List<String> parts = new ArrayList<>();
+        int index = 0;
+        while (index < cursorString.length()) {
+            int separatorIndex = cursorString.indexOf(':', index);
+            if (separatorIndex < 0) {
+                throw new IllegalArgumentException("invalid cursor: " + cursor);
+            }
+            int length = Integer.parseInt(cursorString.substring(index, separatorIndex));
+            index = separatorIndex + 1 + length;
+            if (index > cursorString.length()) {
+                throw new IllegalArgumentException("invalid cursor: " + cursor);
+            }
+            parts.add(cursorString.substring(separatorIndex + 1, index));
+        }
+
+        // property name, direction and value of each sort.
+        int partsOfSort = 3;
+        if (parts.size() != sortDescriptors.length * partsOfSort) {
+            throw new IllegalArgumentException("cursor does not match sorts of dynamic query");
+        }
+
+        Object[] values = new Object[sortDescriptors.length];
+        for (int i = 0; i < sortDescriptors.length; i++) {
+            String propertyName = sortDescriptors[i].getPropertyName();
+            if (!propertyName.equals(parts.get(i * partsOfSort))
+                    || !sortDescriptors[i].getDirection().name().equals(parts.get(i * partsOfSort + 1))) {
+                throw new IllegalArgumentException("cursor does not match sorts of dynamic query");
+            }
+            Class<?> type = ENTITY_CACHE.getColumnInfo(entityClass, propertyName).getField().getType();
+            values[i] = parseValue(type, parts.get(i * partsOfSort + 2));
+        }
+        return values;
+    }
+
+    /**
+     * timestamp keeps nanos, such as "1500000000123.123456789", sort keys of microseconds are not truncated.
+     * java time types use iso format of "toString", enum uses name.
+     */
+    private static String formatValue(final Object value) {
+        if (value instanceof Enum) {
+            return ((Enum) value).name();
+        }
+        if (value instanceof java.sql.Timestamp) {
+            java.sql.Timestamp timestamp = (java.sql.Timestamp) value;
+            return timestamp.getTime() + "." + timestamp.getNanos();
+        }
+        if (value instanceof Date) {
+            return String.valueOf(((Date) value).getTime());
+        }
+        return value.toString();
+    }
+
+    private static java.sql.Timestamp parseTimestamp(final String value) {
+        int nanosIndex = value.indexOf('.');
+        if (nanosIndex < 0) {
+            return new java.sql.Timestamp(Long.parseLong(value));
+        }
+
+        java.sql.Timestamp timestamp = new java.sql.Timestamp(Long.parseLong(value.substring(0, nanosIndex)));
+        try {
+            timestamp.setNanos(Integer.parseInt(value.substring(nanosIndex + 1)));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(String.format("invalid cursor value: %s", value), e);
+        }
+        return timestamp;
+    }
+
+    private static void appendCursorPart(final StringBuilder cursor, final String part) {
+        cursor.append(part.length()).append(':').append(part);
+    }
+
+    @SuppressWarnings({"squid:MethodCyclomaticComplexity", "unchecked"})
+    private static Object parseValue(final Class<?> type, final String value) {
+        try {
+            if (type == String.class) {
+                return value;
+            } else if (type == Integer.class || type == int.class) {
+                return Integer.valueOf(value);
+            } else if (type == Long.class || type == long.class) {
+                return Long.valueOf(value);
+            } else if (type == Short.class || type == short.class) {
+                return Short.valueOf(value);
+            } else if (type == Byte.class || type == byte.class) {
+                return Byte.valueOf(value);
+            } else if (type == Double.class || type == double.class) {
+                return Double.valueOf(value);
+            } else if (type == Float.class || type == float.class) {
+                return Float.valueOf(value);
+            } else if (type == Boolean.class || type == boolean.class) {
+                return Boolean.valueOf(value);
+            } else if (type == BigDecimal.class) {
+                return new BigDecimal(value);
+            } else if (type == BigInteger.class) {
+                return new BigInteger(value);
+            } else if (type == java.sql.Timestamp.class) {
+                return parseTimestamp(value);
+            } else if (type == java.sql.Date.class) {
+                return new java.sql.Date(Long.parseLong(value));
+            } else if (Date.class.isAssignableFrom(type)) {
+                return new Date(Long.parseLong(value));
+            } else if (type == LocalDateTime.class) {
+                return LocalDateTime.parse(value);
+            } else if (type == LocalDate.class) {
+                return LocalDate.parse(value);
+            } else if (type == LocalTime.class) {
+                return LocalTime.parse(value);
+            } else if (type == Instant.class) {
+                return Instant.parse(value);
+            } else if (type == UUID.class) {
+                return UUID.fromString(value);
+            } else if (type.isEnum()) {
+                return Enum.valueOf((Class<Enum>) type, value);
+            }
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            // NumberFormatException is IllegalArgumentException.
+            throw new IllegalArgumentException(String.format("invalid cursor value: %s", value), e);
+        }
+
+        throw new UnsupportedOperationException(String.format("keyset pagination not support type: %s", type));
+    }
+}
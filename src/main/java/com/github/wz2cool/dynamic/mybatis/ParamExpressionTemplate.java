@@ -0,0 +1,114 @@
+package com.github.wz2cool.dynamic.mybatis;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * compiled expression of one filter/sort shape, only values need to be bound per call.
+ *
+ * @author Frank
+ */
+class ParamExpressionTemplate {
+    private static final String PLACEHOLDER_START = "#{";
+    private static final String PLACEHOLDER_END = "}";
+
+    /**
+     * text between placeholders, size is always slot count + 1.
+     */
+    private final String[] segments;
+    /**
+     * index of param referenced by each placeholder slot.
+     */
+    private final int[] slotParamIndexes;
+    /**
+     * param name without generated suffix, such as "param_age_EQUAL".
+     */
+    private final String[] paramNamePrefixes;
+
+    private ParamExpressionTemplate(String[] segments, int[] slotParamIndexes, String[] paramNamePrefixes) {
+        this.segments = segments;
+        this.slotParamIndexes = slotParamIndexes;
+        this.paramNamePrefixes = paramNamePrefixes;
+    }
+
+    /**
+     * compile a rendered param expression into template.
+     *
+     * @param paramExpression    rendered expression, params must be in binding order.
+     * @param paramNamePrefixes prefix of each param name in paramMap order.
+     * @return template
+     */
+    static ParamExpressionTemplate compile(final ParamExpression paramExpression, final String[] paramNamePrefixes) {
+        String expression = paramExpression.getExpression();
+        Map<String, Integer> paramIndexMap = new HashMap<>(paramNamePrefixes.length * 2);
+        int index = 0;
+        for (String paramName : paramExpression.getParamMap().keySet()) {
+            paramIndexMap.put(paramName, index++);
+        }
+        List<String> segments = new ArrayList<>();
+        List<Integer> slotParamIndexes = new ArrayList<>();
+
+        int segmentStart = 0;
+        int searchStart = 0;
+        while (true) {
+            int start = expression.indexOf(PLACEHOLDER_START, searchStart);
+            if (start < 0) {
+                break;
+            }
+            int end = expression.indexOf(PLACEHOLDER_END, start);
+            if (end < 0) {
+                break;
+            }
+
+            Integer paramIndex = paramIndexMap.get(expression.substring(start + PLACEHOLDER_START.length(), end));
+            if (paramIndex != null) {
+                segments.add(expression.substring(segmentStart, start));
+                slotParamIndexes.add(paramIndex);
+                segmentStart = end + PLACEHOLDER_END.length();
+            }
+            searchStart = end + PLACEHOLDER_END.length();
+        }
+        segments.add(expression.substring(segmentStart));
+
+        int[] slotParamIndexArray = new int[slotParamIndexes.size()];
+        for (int i = 0; i < slotParamIndexArray.length; i++) {
+            slotParamIndexArray[i] = slotParamIndexes.get(i);
+        }
+        return new ParamExpressionTemplate(
+                segments.toArray(new String[0]), slotParamIndexArray, paramNamePrefixes);
+    }
+
+    String[] getParamNamePrefixes() {
+        return paramNamePrefixes;
+    }
+
+    /**
+     * bind values into a new param expression.
+     *
+     * @param paramNames        param names, same size and order as param name prefixes.
+     * @param values            param values, same size and order as param name prefixes.
+     * @param placeholderPrefix prefix of param name in placeholders only, such as "dynamicQueryParams.".
+     * @return param expression
+     */
+    ParamExpression bind(final String[] paramNames, final Object[] values, final String placeholderPrefix) {
+        StringBuilder expression = new StringBuilder();
+        for (int i = 0; i < slotParamIndexes.length; i++) {
+            expression.append(segments[i])
+                    .append(PLACEHOLDER_START)
+                    .append(placeholderPrefix)
+                    .append(paramNames[slotParamIndexes[i]])
+                    .append(PLACEHOLDER_END);
+        }
+        expression.append(segments[segments.length - 1]);
+
+        ParamExpression paramExpression = new ParamExpression();
+        paramExpression.setExpression(expression.toString());
+        Map<String, Object> paramMap = paramExpression.getParamMap();
+        for (int i = 0; i < paramNames.length; i++) {
+            paramMap.put(paramNames[i], values[i]);
+        }
+        return paramExpression;
+    }
+}
@@ -0,0 +1,18 @@
+package com.github.wz2cool.dynamic.mybatis;
+
+/**
+ * The enum Param placeholder strategy.
+ *
+ * @author Frank
+ */
+public enum ParamPlaceholderStrategy {
+    /**
+     * Random suffix, param names never repeat, so params of different expressions can be put into one map.
+     */
+    UNIQUE,
+    /**
+     * Index suffix in binding order, such as "param_age_EQUAL_0",
+     * the same query shape always generates the same expression.
+     */
+    POSITIONAL
+}
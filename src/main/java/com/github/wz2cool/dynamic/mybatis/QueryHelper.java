@@ -3,124 +3,261 @@ package com.github.wz2cool.dynamic.mybatis;
 import com.github.wz2cool.dynamic.*;
 import com.github.wz2cool.dynamic.exception.PropertyNotFoundException;
 import com.github.wz2cool.dynamic.helper.CommonsHelper;
-import org.apache.commons.lang3.ArrayUtils;
-import org.apache.commons.lang3.StringUtils;
 
 import java.security.InvalidParameterException;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * @author Frank
  */
 public class QueryHelper {
+    private static final String CUSTOM_FILTER_PARAM_PREFIX = "param_custom_filter";
+    private static final String CUSTOM_SORT_PARAM_PREFIX = "param_custom_sort";
+    private static final int MAX_TEMPLATE_CACHE_SIZE = 1024;
+    /**
+     * small "IN" lists keep one placeholder per value, so that database can use column statistics.
+     */
+    private static final int ARRAY_IN_MIN_SIZE = 100;
+    private static final Map<String, ParamExpressionTemplate> WHERE_TEMPLATE_CACHE = new ConcurrentHashMap<>();
+    private static final Map<String, ParamExpressionTemplate> SORT_TEMPLATE_CACHE = new ConcurrentHashMap<>();
     private final EntityCache entityCache = EntityCache.getInstance();
     private final ExpressionHelper expressionHelper = new ExpressionHelper();
+    private final ParamPlaceholderStrategy paramPlaceholderStrategy;
+    private final InExpressionStrategy inExpressionStrategy;
+
+    public QueryHelper() {
+        this(ParamPlaceholderStrategy.UNIQUE);
+    }
+
+    public QueryHelper(ParamPlaceholderStrategy paramPlaceholderStrategy) {
+        this(paramPlaceholderStrategy, InExpressionStrategy.PLACEHOLDER);
+    }
+
+    public QueryHelper(ParamPlaceholderStrategy paramPlaceholderStrategy, InExpressionStrategy inExpressionStrategy) {
+        this.paramPlaceholderStrategy = paramPlaceholderStrategy;
+        this.inExpressionStrategy = inExpressionStrategy;
+    }
 
     // region and
 
     public ParamExpression toWhereExpression(Class entityClass, final BaseFilterDescriptor[] filters) {
+        return toWhereExpression(entityClass, filters, "");
+    }
+
+    /**
+     * To where expression.
+     *
+     * @param entityClass       the entity class
+     * @param filters           the filters
+     * @param placeholderPrefix prefix of param name in placeholders, such as "dynamicQueryParams.",
+     *                          keys of param map are not prefixed.
+     * @return the param expression
+     */
+    public ParamExpression toWhereExpression(Class entityClass,
+                                             final BaseFilterDescriptor[] filters,
+                                             final String placeholderPrefix) {
         if (filters == null || filters.length == 0) {
             return new ParamExpression();
         }
 
-        String expression = "";
-        Map<String, Object> paramMap = new LinkedHashMap<>();
-        for (BaseFilterDescriptor baseFilterDescriptor : filters) {
-            ParamExpression paramExpression = toWhereExpression(entityClass, baseFilterDescriptor);
-            if (paramExpression != null) {
-                paramMap.putAll(paramExpression.getParamMap());
+        StringBuilder templateKey = new StringBuilder();
+        appendKeyPart(templateKey, entityClass == null ? null : entityClass.getName());
+        List<Object> values = new ArrayList<>();
+        collectWhereTemplateKeyAndValues(filters, templateKey, values);
 
-                if (StringUtils.isEmpty(expression)) {
-                    expression = paramExpression.getExpression();
-                } else {
-                    expression = String.format("%s %s %s",
-                            expression, baseFilterDescriptor.getCondition(), paramExpression.getExpression());
-                }
-            }
+        ParamExpressionTemplate template = WHERE_TEMPLATE_CACHE.get(templateKey.toString());
+        if (template == null) {
+            template = compileTemplate(renderWhereExpression(entityClass, filters));
+            cacheTemplate(WHERE_TEMPLATE_CACHE, templateKey.toString(), template);
         }
+        return bindTemplate(template, values, placeholderPrefix);
+    }
 
-        expression = String.format("(%s)", expression);
-        ParamExpression paramExpression = new ParamExpression();
-        paramExpression.setExpression(expression);
-        paramExpression.getParamMap().putAll(paramMap);
-        return paramExpression;
+    private ParamExpression renderWhereExpression(Class entityClass, final BaseFilterDescriptor[] filters) {
+        StringBuilder sink = new StringBuilder();
+        Map<String, Object> paramMap = new LinkedHashMap<>();
+        appendWhereExpression(sink, paramMap, entityClass, filters);
+        return newParamExpression(sink, paramMap);
     }
 
     ParamExpression toWhereExpression(Class entityClass, final BaseFilterDescriptor baseFilterDescriptor) {
+        StringBuilder sink = new StringBuilder();
+        Map<String, Object> paramMap = new LinkedHashMap<>();
+        appendWhereExpression(sink, paramMap, entityClass, baseFilterDescriptor);
+        return newParamExpression(sink, paramMap);
+    }
+
+    ParamExpression toWhereExpression(final CustomFilterDescriptor customFilterDescriptor) {
+        StringBuilder sink = new StringBuilder();
+        // keep order.
+        Map<String, Object> paramMap = new LinkedHashMap<>();
+        appendCustomExpression(sink, paramMap, CUSTOM_FILTER_PARAM_PREFIX,
+                customFilterDescriptor.getExpression(), customFilterDescriptor.getParams());
+        return newParamExpression(sink, paramMap);
+    }
+
+    /**
+     * render filter tree into one sink, children are never rendered into separate strings.
+     */
+    private void appendWhereExpression(final StringBuilder sink,
+                                       final Map<String, Object> paramMap,
+                                       final Class entityClass,
+                                       final BaseFilterDescriptor[] filters) {
+        if (filters == null || filters.length == 0) {
+            return;
+        }
+
+        sink.append('(');
+        int expressionStart = sink.length();
+        for (BaseFilterDescriptor baseFilterDescriptor : filters) {
+            if (sink.length() > expressionStart) {
+                sink.append(' ').append(baseFilterDescriptor.getCondition()).append(' ');
+            }
+            appendWhereExpression(sink, paramMap, entityClass, baseFilterDescriptor);
+        }
+        sink.append(')');
+    }
+
+    private void appendWhereExpression(final StringBuilder sink,
+                                       final Map<String, Object> paramMap,
+                                       final Class entityClass,
+                                       final BaseFilterDescriptor baseFilterDescriptor) {
         if (baseFilterDescriptor instanceof FilterDescriptor) {
-            return toWhereExpression(entityClass, (FilterDescriptor) baseFilterDescriptor);
+            appendWhereExpression(sink, paramMap, entityClass, (FilterDescriptor) baseFilterDescriptor);
         } else if (baseFilterDescriptor instanceof FilterGroupDescriptor) {
             FilterGroupDescriptor filterGroupDescriptor = (FilterGroupDescriptor) baseFilterDescriptor;
-            return toWhereExpression(entityClass, filterGroupDescriptor.getFilters());
+            appendWhereExpression(sink, paramMap, entityClass, filterGroupDescriptor.getFilters());
         } else if (baseFilterDescriptor instanceof CustomFilterDescriptor) {
             CustomFilterDescriptor customFilterDescriptor = (CustomFilterDescriptor) baseFilterDescriptor;
-            return toWhereExpression(customFilterDescriptor);
+            appendCustomExpression(sink, paramMap, CUSTOM_FILTER_PARAM_PREFIX,
+                    customFilterDescriptor.getExpression(), customFilterDescriptor.getParams());
+        }
+    }
+
+    private void appendWhereExpression(final StringBuilder sink,
+                                       final Map<String, Object> paramMap,
+                                       final Class entityClass,
+                                       final FilterDescriptor filterDescriptor) {
+        String propertyPath = filterDescriptor.getPropertyName();
+        FilterOperator operator = filterDescriptor.getOperator();
+        Object[] filterValues = getFilterValues(filterDescriptor);
+        ColumnInfo columnInfo = entityCache.getColumnInfo(entityClass, propertyPath);
+        String paramNamePrefix = "param_" + propertyPath + "_" + operator;
+        ArrayParam arrayParam = operator == FilterOperator.IN || operator == FilterOperator.NOT_IN
+                ? toArrayParam(filterValues) : null;
+
+        if (arrayParam != null) {
+            String paramPlaceholder = newParamName(paramNamePrefix);
+            expressionHelper.appendArrayInExpression(sink,
+                    inExpressionStrategy, operator, columnInfo, getElementTypeName(arrayParam), paramPlaceholder);
+            paramMap.put(paramPlaceholder, getArrayValue(arrayParam));
+        } else if (operator == FilterOperator.BETWEEN || operator == FilterOperator.IN || operator == FilterOperator.NOT_IN) {
+            String[] paramPlaceholders = new String[filterValues.length];
+            for (int i = 0; i < filterValues.length; i++) {
+                paramPlaceholders[i] = newParamName(paramNamePrefix);
+                paramMap.put(paramPlaceholders[i], filterValues[i]);
+            }
+            expressionHelper.appendExpression(sink, operator, columnInfo, filterDescriptor.getValue(), paramPlaceholders);
         } else {
-            return new ParamExpression();
+            String paramPlaceholder = newParamName(paramNamePrefix);
+            expressionHelper.appendExpression(sink, operator, columnInfo, filterDescriptor.getValue(), paramPlaceholder);
+            paramMap.put(paramPlaceholder, processSingleFilterValue(operator, filterValues[0]));
         }
     }
 
-    ParamExpression toWhereExpression(final CustomFilterDescriptor customFilterDescriptor) {
-        Map<String, Object> paramMap = new HashMap<>(10);
-        Object[] params = customFilterDescriptor.getParams();
-        String expression = customFilterDescriptor.getExpression();
+    /**
+     * replace "{0}", "{1}" ... of custom expression with generated placeholders in one pass.
+     */
+    private void appendCustomExpression(final StringBuilder sink,
+                                        final Map<String, Object> paramMap,
+                                        final String paramNamePrefix,
+                                        final String expression,
+                                        final Object[] params) {
+        String[] paramPlaceholders = new String[params.length];
         for (int i = 0; i < params.length; i++) {
-            String genParamName = String.format("param_custom_filter_%s", UUID.randomUUID().toString().replace("-", ""));
-            expression = expression.replace(String.format("{%s}", i), String.format("#{%s}", genParamName));
-            paramMap.put(genParamName, params[i]);
+            paramPlaceholders[i] = newParamName(paramNamePrefix);
+            paramMap.put(paramPlaceholders[i], params[i]);
         }
 
-        ParamExpression paramExpression = new ParamExpression();
-        paramExpression.setExpression(expression);
-        paramExpression.getParamMap().putAll(paramMap);
-        return paramExpression;
+        int segmentStart = 0;
+        int start = expression.indexOf('{');
+        while (start >= 0) {
+            int end = expression.indexOf('}', start);
+            if (end < 0) {
+                break;
+            }
+            int paramIndex = parseParamIndex(expression, start + 1, end);
+            if (paramIndex >= 0 && paramIndex < params.length) {
+                sink.append(expression, segmentStart, start)
+                        .append("#{").append(paramPlaceholders[paramIndex]).append('}');
+                segmentStart = end + 1;
+                start = expression.indexOf('{', segmentStart);
+            } else {
+                start = expression.indexOf('{', start + 1);
+            }
+        }
+        sink.append(expression, segmentStart, expression.length());
     }
 
-    private ParamExpression toWhereExpression(final Class entityClass, final FilterDescriptor filterDescriptor) {
-        String propertyPath = filterDescriptor.getPropertyName();
-        FilterOperator operator = filterDescriptor.getOperator();
-        Object[] filterValues = getFilterValues(filterDescriptor);
+    /**
+     * @return index between begin and end, -1 if not a plain index such as "01" or "a".
+     */
+    private int parseParamIndex(final String expression, final int begin, final int end) {
+        if (begin >= end || end - begin > 9 || (expression.charAt(begin) == '0' && end - begin > 1)) {
+            return -1;
+        }
 
-        String expression;
-        // keep order.
-        Map<String, Object> paramMap = new LinkedHashMap<>();
-        if (operator == FilterOperator.BETWEEN) {
-            String paramPlaceholder1;
-            String paramPlaceholder2;
-            paramPlaceholder1 =
-                    String.format("param_%s_BETWEEN_%s", propertyPath, UUID.randomUUID().toString().replace("-", ""));
-            paramPlaceholder2 =
-                    String.format("param_%s_BETWEEN_%s", propertyPath, UUID.randomUUID().toString().replace("-", ""));
-            expression = generateFilterExpression(entityClass, filterDescriptor, paramPlaceholder1, paramPlaceholder2);
-            paramMap.put(paramPlaceholder1, filterValues[0]);
-            paramMap.put(paramPlaceholder2, filterValues[1]);
-        } else if (operator == FilterOperator.IN || operator == FilterOperator.NOT_IN) {
-            List<String> paramPlaceholders = new ArrayList<>();
-            for (Object filterValue : filterValues) {
-                String paramPlaceholder =
-                        String.format("param_%s_%s_%s", propertyPath, operator, UUID.randomUUID().toString().replace("-", ""));
-                paramPlaceholders.add(paramPlaceholder);
-                paramMap.put(paramPlaceholder, filterValue);
+        int index = 0;
+        for (int i = begin; i < end; i++) {
+            char c = expression.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
             }
-
-            String[] paramPlaceholdersArray = paramPlaceholders.toArray(new String[paramPlaceholders.size()]);
-            expression = generateFilterExpression(entityClass, filterDescriptor, paramPlaceholdersArray);
-        } else {
-            String paramPlaceholder;
-            paramPlaceholder =
-                    String.format("param_%s_%s_%s", propertyPath, operator, UUID.randomUUID().toString().replace("-", ""));
-            expression = generateFilterExpression(entityClass, filterDescriptor, paramPlaceholder);
-
-            Object filterValue = processSingleFilterValue(operator, filterValues[0]);
-            paramMap.put(paramPlaceholder, filterValue);
+            index = index * 10 + (c - '0');
         }
+        return index;
+    }
 
+    private ParamExpression newParamExpression(final StringBuilder sink, final Map<String, Object> paramMap) {
         ParamExpression paramExpression = new ParamExpression();
-        paramExpression.setExpression(expression);
+        paramExpression.setExpression(sink.toString());
         paramExpression.getParamMap().putAll(paramMap);
         return paramExpression;
     }
 
+    /**
+     * Bind "IN" list as one array param if strategy supports array and list is large.
+     *
+     * @param filterValues values of "IN" list
+     * @return array param, null if not use array.
+     */
+    private ArrayParam toArrayParam(final Object[] filterValues) {
+        if (inExpressionStrategy == InExpressionStrategy.PLACEHOLDER || filterValues.length < ARRAY_IN_MIN_SIZE) {
+            return null;
+        }
+
+        ArrayParam arrayParam = ArrayParam.of(filterValues);
+        if (arrayParam != null && inExpressionStrategy == InExpressionStrategy.JSON_ARRAY
+                && arrayParam.getJsonTypeName() == null) {
+            return null;
+        }
+        return arrayParam;
+    }
+
+    private String getElementTypeName(final ArrayParam arrayParam) {
+        return inExpressionStrategy == InExpressionStrategy.JSON_ARRAY
+                ? arrayParam.getJsonTypeName() : arrayParam.getElementTypeName();
+    }
+
+    /**
+     * json array is bound as string, other arrays are bound by ArrayParamTypeHandler.
+     */
+    private Object getArrayValue(final ArrayParam arrayParam) {
+        return inExpressionStrategy == InExpressionStrategy.JSON_ARRAY ? arrayParam.toJson() : arrayParam;
+    }
+
     Object processSingleFilterValue(final FilterOperator operator, final Object filterValue) {
         Object result;
         if (operator == FilterOperator.START_WITH) {
@@ -144,7 +281,7 @@ public class QueryHelper {
         return expressionHelper.getExpression(filterDescriptor.getOperator(), columnInfo, value, paramPlaceholders);
     }
 
-    Object[] getFilterValues(final FilterDescriptor filterDescriptor) {
+    static Object[] getFilterValues(final FilterDescriptor filterDescriptor) {
         FilterOperator operator = filterDescriptor.getOperator();
         Object filterValue = filterDescriptor.getValue();
         if (operator == FilterOperator.IN || operator == FilterOperator.NOT_IN) {
@@ -188,109 +325,311 @@ public class QueryHelper {
     // region sort
 
     public ParamExpression toSortExpression(final Class entityClass, final BaseSortDescriptor... sorts) {
+        return toSortExpression(entityClass, sorts, "");
+    }
+
+    /**
+     * To sort expression.
+     *
+     * @param entityClass       the entity class
+     * @param sorts             the sorts
+     * @param placeholderPrefix prefix of param name in placeholders, such as "dynamicQueryParams.",
+     *                          keys of param map are not prefixed.
+     * @return the param expression
+     */
+    public ParamExpression toSortExpression(final Class entityClass,
+                                            final BaseSortDescriptor[] sorts,
+                                            final String placeholderPrefix) {
         if (entityClass == null || sorts == null || sorts.length == 0) {
             return new ParamExpression();
         }
 
-        String expression = "";
+        StringBuilder templateKey = new StringBuilder();
+        appendKeyPart(templateKey, entityClass.getName());
+        List<Object> values = new ArrayList<>();
+        collectSortTemplateKeyAndValues(sorts, templateKey, values);
+
+        ParamExpressionTemplate template = SORT_TEMPLATE_CACHE.get(templateKey.toString());
+        if (template == null) {
+            template = compileTemplate(renderSortExpression(entityClass, sorts));
+            cacheTemplate(SORT_TEMPLATE_CACHE, templateKey.toString(), template);
+        }
+        return bindTemplate(template, values, placeholderPrefix);
+    }
+
+    private ParamExpression renderSortExpression(final Class entityClass, final BaseSortDescriptor... sorts) {
+        StringBuilder sink = new StringBuilder();
         Map<String, Object> paramMap = new LinkedHashMap<>();
+        int expressionStart = sink.length();
         for (BaseSortDescriptor sort : sorts) {
-            ParamExpression paramExpression = toSortExpression(entityClass, sort);
-            if (paramExpression != null) {
-                paramMap.putAll(paramExpression.getParamMap());
-
-                if (StringUtils.isEmpty(expression)) {
-                    expression = paramExpression.getExpression();
-                } else if (StringUtils.isNotBlank(paramExpression.getExpression())) {
-                    expression = String.format("%s, %s", expression, paramExpression.getExpression());
-                }
+            int sortStart = sink.length();
+            boolean hasExpression = sortStart > expressionStart;
+            if (hasExpression) {
+                sink.append(", ");
+            }
+            appendSortExpression(sink, paramMap, entityClass, sort);
+            if (hasExpression && isBlank(sink, sortStart + 2)) {
+                // skip blank custom sort.
+                sink.setLength(sortStart);
             }
         }
-        ParamExpression paramExpression = new ParamExpression();
-        paramExpression.setExpression(expression);
-        paramExpression.getParamMap().putAll(paramMap);
-        return paramExpression;
+        return newParamExpression(sink, paramMap);
     }
 
     ParamExpression toSortExpression(final Class entityClass, final BaseSortDescriptor baseSortDescriptor) {
+        StringBuilder sink = new StringBuilder();
+        Map<String, Object> paramMap = new LinkedHashMap<>();
+        appendSortExpression(sink, paramMap, entityClass, baseSortDescriptor);
+        return newParamExpression(sink, paramMap);
+    }
+
+    ParamExpression toSortExpression(final Class entityClass, final SortDescriptor sortDescriptor) {
+        return toSortExpression(entityClass, (BaseSortDescriptor) sortDescriptor);
+    }
+
+    ParamExpression toSortExpression(final CustomSortDescriptor customSortDescriptor) {
+        return toSortExpression(null, customSortDescriptor);
+    }
+
+    private void appendSortExpression(final StringBuilder sink,
+                                      final Map<String, Object> paramMap,
+                                      final Class entityClass,
+                                      final BaseSortDescriptor baseSortDescriptor) {
         if (baseSortDescriptor instanceof SortDescriptor) {
-            return toSortExpression(entityClass, (SortDescriptor) baseSortDescriptor);
+            SortDescriptor sortDescriptor = (SortDescriptor) baseSortDescriptor;
+            ColumnInfo columnInfo = entityCache.getColumnInfo(entityClass, sortDescriptor.getPropertyName());
+            sink.append(columnInfo.getQueryColumn()).append(' ').append(sortDescriptor.getDirection());
         } else if (baseSortDescriptor instanceof CustomSortDescriptor) {
-            return toSortExpression((CustomSortDescriptor) baseSortDescriptor);
+            CustomSortDescriptor customSortDescriptor = (CustomSortDescriptor) baseSortDescriptor;
+            // keep order.
+            appendCustomExpression(sink, paramMap, CUSTOM_SORT_PARAM_PREFIX,
+                    customSortDescriptor.getExpression(), customSortDescriptor.getParams());
+        }
+    }
+
+    private boolean isBlank(final CharSequence sink, final int start) {
+        for (int i = start; i < sink.length(); i++) {
+            if (!Character.isWhitespace(sink.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+    // endregion
+
+    // region template
+
+    private void collectWhereTemplateKeyAndValues(
+            final BaseFilterDescriptor[] filters, final StringBuilder templateKey, final List<Object> values) {
+        if (filters == null) {
+            templateKey.append('-');
+            return;
+        }
+
+        templateKey.append('[');
+        for (BaseFilterDescriptor filter : filters) {
+            if (filter instanceof FilterDescriptor) {
+                FilterDescriptor filterDescriptor = (FilterDescriptor) filter;
+                FilterOperator operator = filterDescriptor.getOperator();
+                Object[] filterValues = getFilterValues(filterDescriptor);
+                templateKey.append('F').append(filterDescriptor.getCondition()).append(operator);
+                appendKeyPart(templateKey, filterDescriptor.getPropertyName());
+                ArrayParam arrayParam = operator == FilterOperator.IN || operator == FilterOperator.NOT_IN
+                        ? toArrayParam(filterValues) : null;
+                if (arrayParam != null) {
+                    // one array param whatever the size, expression depends on strategy and element type.
+                    templateKey.append('A').append(inExpressionStrategy.ordinal());
+                    appendKeyPart(templateKey, getElementTypeName(arrayParam));
+                    values.add(getArrayValue(arrayParam));
+                } else if (operator == FilterOperator.BETWEEN || operator == FilterOperator.IN || operator == FilterOperator.NOT_IN) {
+                    templateKey.append(filterValues.length);
+                    Collections.addAll(values, filterValues);
+                } else {
+                    // "IS NULL" and "IS NOT NULL" have different expression.
+                    templateKey.append(filterDescriptor.getValue() == null ? 'N' : 'V');
+                    values.add(processSingleFilterValue(operator, filterValues[0]));
+                }
+            } else if (filter instanceof FilterGroupDescriptor) {
+                FilterGroupDescriptor filterGroupDescriptor = (FilterGroupDescriptor) filter;
+                templateKey.append('G').append(filterGroupDescriptor.getCondition());
+                collectWhereTemplateKeyAndValues(filterGroupDescriptor.getFilters(), templateKey, values);
+            } else if (filter instanceof CustomFilterDescriptor) {
+                CustomFilterDescriptor customFilterDescriptor = (CustomFilterDescriptor) filter;
+                Object[] params = customFilterDescriptor.getParams();
+                templateKey.append('C').append(customFilterDescriptor.getCondition()).append(params.length);
+                appendKeyPart(templateKey, customFilterDescriptor.getExpression());
+                Collections.addAll(values, params);
+            } else {
+                templateKey.append('-');
+            }
+        }
+        templateKey.append(']');
+    }
+
+    private void collectSortTemplateKeyAndValues(
+            final BaseSortDescriptor[] sorts, final StringBuilder templateKey, final List<Object> values) {
+        for (BaseSortDescriptor sort : sorts) {
+            if (sort instanceof SortDescriptor) {
+                SortDescriptor sortDescriptor = (SortDescriptor) sort;
+                templateKey.append('S').append(sortDescriptor.getDirection());
+                appendKeyPart(templateKey, sortDescriptor.getPropertyName());
+            } else if (sort instanceof CustomSortDescriptor) {
+                CustomSortDescriptor customSortDescriptor = (CustomSortDescriptor) sort;
+                Object[] params = customSortDescriptor.getParams();
+                templateKey.append('C').append(params.length);
+                appendKeyPart(templateKey, customSortDescriptor.getExpression());
+                Collections.addAll(values, params);
+            } else {
+                templateKey.append('-');
+            }
+        }
+    }
+
+    /**
+     * append length before text, so that different texts never produce the same key.
+     */
+    private void appendKeyPart(final StringBuilder templateKey, final String part) {
+        if (part == null) {
+            templateKey.append('-');
         } else {
-            return new ParamExpression();
+            templateKey.append(part.length()).append(':').append(part);
         }
     }
 
-    ParamExpression toSortExpression(final Class entityClass, final SortDescriptor sortDescriptor) {
-        ParamExpression paramExpression = new ParamExpression();
-        ColumnInfo columnInfo = entityCache.getColumnInfo(entityClass, sortDescriptor.getPropertyName());
-        String expression = String.format("%s %s", columnInfo.getQueryColumn(), sortDescriptor.getDirection());
-        paramExpression.setExpression(expression);
-        return paramExpression;
+    private ParamExpressionTemplate compileTemplate(final ParamExpression paramExpression) {
+        Set<String> paramNames = paramExpression.getParamMap().keySet();
+        String[] paramNamePrefixes = new String[paramNames.size()];
+        int i = 0;
+        for (String paramName : paramNames) {
+            paramNamePrefixes[i++] = paramName.substring(0, paramName.lastIndexOf('_'));
+        }
+        return ParamExpressionTemplate.compile(paramExpression, paramNamePrefixes);
     }
 
-    ParamExpression toSortExpression(final CustomSortDescriptor customSortDescriptor) {
-        if (customSortDescriptor == null) {
-            return new ParamExpression();
+    private void cacheTemplate(final Map<String, ParamExpressionTemplate> templateCache,
+                               final String templateKey,
+                               final ParamExpressionTemplate template) {
+        if (templateCache.size() >= MAX_TEMPLATE_CACHE_SIZE) {
+            // clear on overflow, so that shapes used later are still cached, reads never wait for a lock.
+            templateCache.clear();
         }
+        templateCache.putIfAbsent(templateKey, template);
+    }
 
-        Map<String, Object> paramMap = new HashMap<>(10);
-        Object[] params = customSortDescriptor.getParams();
-        String expression = customSortDescriptor.getExpression();
-        for (int i = 0; i < params.length; i++) {
-            String genParamName = String.format("param_custom_sort_%s",
-                    UUID.randomUUID().toString().replace("-", ""));
-            expression = expression.replace(String.format("{%s}", i), String.format("#{%s}", genParamName));
-            paramMap.put(genParamName, params[i]);
+    private ParamExpression bindTemplate(final ParamExpressionTemplate template,
+                                         final List<Object> values,
+                                         final String placeholderPrefix) {
+        String[] paramNamePrefixes = template.getParamNamePrefixes();
+        String[] paramNames = new String[paramNamePrefixes.length];
+        for (int i = 0; i < paramNamePrefixes.length; i++) {
+            paramNames[i] = newParamName(paramNamePrefixes[i], i);
         }
+        return template.bind(paramNames, values.toArray(), placeholderPrefix);
+    }
 
-        ParamExpression paramExpression = new ParamExpression();
-        paramExpression.setExpression(expression);
-        paramExpression.getParamMap().putAll(paramMap);
-        return paramExpression;
+    private String newParamName(final String paramNamePrefix) {
+        return newParamName(paramNamePrefix, -1);
     }
+
+    /**
+     * new param name.
+     *
+     * @param paramNamePrefix param name prefix
+     * @param index           index in binding order, less than 0 if unknown.
+     * @return param name
+     */
+    private String newParamName(final String paramNamePrefix, final int index) {
+        if (paramPlaceholderStrategy == ParamPlaceholderStrategy.POSITIONAL && index >= 0) {
+            return paramNamePrefix + "_" + index;
+        }
+
+        // ThreadLocalRandom instead of UUID, UUID.randomUUID() shares one SecureRandom between threads.
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return paramNamePrefix + "_" + Long.toHexString(random.nextLong()) + Long.toHexString(random.nextLong());
+    }
+
+    // endregion
+
+    // region update
+
+    /**
+     * To update set expression, such as "balance = balance + #{param}".
+     *
+     * @param entityClass       the entity class
+     * @param updates           the updates
+     * @param placeholderPrefix prefix of param name in placeholders, such as "dynamicUpdateParams.",
+     *                          keys of param map are not prefixed.
+     * @return the param expression
+     */
+    public ParamExpression toUpdateSetExpression(final Class entityClass,
+                                                 final UpdateDescriptor[] updates,
+                                                 final String placeholderPrefix) {
+        if (entityClass == null || updates == null || updates.length == 0) {
+            throw new InvalidParameterException("updates can not be empty");
+        }
+
+        StringBuilder sink = new StringBuilder();
+        Map<String, Object> paramMap = new LinkedHashMap<>();
+        Set<String> columnNames = new HashSet<>();
+        for (int i = 0; i < updates.length; i++) {
+            UpdateDescriptor update = updates[i];
+            String columnName = entityCache.getColumnInfo(entityClass, update.getPropertyName()).getColumnName();
+            if (!columnNames.add(columnName)) {
+                String errMsg = String.format("property \"%s\" can not be set more than once", update.getPropertyName());
+                throw new InvalidParameterException(errMsg);
+            }
+            UpdateOperator operator = update.getOperator() == null ? UpdateOperator.SET : update.getOperator();
+            if (i > 0) {
+                sink.append(", ");
+            }
+            sink.append(columnName).append(" = ");
+            if (update.getValue() == null) {
+                if (operator != UpdateOperator.SET) {
+                    String errMsg = String.format("value of \"%s\" operator can not be null", operator);
+                    throw new InvalidParameterException(errMsg);
+                }
+                sink.append("NULL");
+                continue;
+            }
+
+            String paramName = newParamName("param_set_" + update.getPropertyName(), i);
+            appendUpdateOperand(sink, operator, columnName);
+            sink.append("#{").append(placeholderPrefix).append(paramName).append('}');
+            paramMap.put(paramName, update.getValue());
+        }
+        return newParamExpression(sink, paramMap);
+    }
+
+    private void appendUpdateOperand(final StringBuilder sink, final UpdateOperator operator, final String columnName) {
+        switch (operator) {
+            case SET:
+                return;
+            case ADD:
+                sink.append(columnName).append(" + ");
+                return;
+            case SUBTRACT:
+                sink.append(columnName).append(" - ");
+                return;
+            case MULTIPLY:
+                sink.append(columnName).append(" * ");
+                return;
+            default:
+                throw new UnsupportedOperationException(String.format("not support update operator: %s", operator));
+        }
+    }
+
     // endregion
 
     public String toSelectColumnsExpression(final Class entityClass,
                                             final String[] selectedProperties,
                                             final String[] ignoredProperties,
                                             final boolean mapUnderscoreToCamelCase) {
-        ColumnInfo[] columnInfos = entityCache.getColumnInfos(entityClass);
-        List<String> columns = new ArrayList<>();
-        boolean isSelectedPropertiesNotEmpty = ArrayUtils.isNotEmpty(selectedProperties);
-        boolean isIgnoredPropertiesNotEmpty = ArrayUtils.isNotEmpty(ignoredProperties);
-        for (ColumnInfo columnInfo : columnInfos) {
-            String fieldName = columnInfo.getField().getName();
-            boolean needSelectColumn;
-            if (isSelectedPropertiesNotEmpty) {
-                needSelectColumn = ArrayUtils.contains(selectedProperties, fieldName);
-            } else if (isIgnoredPropertiesNotEmpty) {
-                needSelectColumn = !ArrayUtils.contains(ignoredProperties, fieldName);
-            } else {
-                needSelectColumn = true;
-            }
-
-            if (needSelectColumn) {
-                // 这里我们需要判断一下，是否设置了 @column ,如果有的话，我们不做驼峰
-                String useFieldName = mapUnderscoreToCamelCase ? EntityHelper.camelCaseToUnderscore(fieldName) : fieldName;
-                String column = String.format("%s AS %s", columnInfo.getQueryColumn(), useFieldName);
-                columns.add(column);
-            }
-        }
-        return String.join(", ", columns);
+        return entityCache.getColumnsExpression(
+                entityClass, selectedProperties, ignoredProperties, mapUnderscoreToCamelCase);
     }
 
     String toAllColumnsExpression(final Class entityClass) {
-        ColumnInfo[] columnInfos = entityCache.getColumnInfos(entityClass);
-        List<String> columns = new ArrayList<>();
-        for (ColumnInfo columnInfo : columnInfos) {
-            String column = String.format("%s AS %s",
-                    columnInfo.getQueryColumn(),
-                    EntityHelper.camelCaseToUnderscore(columnInfo.getField().getName()));
-            columns.add(column);
-        }
-        return String.join(", ", columns);
+        return entityCache.getAllColumnsExpression(entityClass, true);
     }
 
     ColumnInfo getColumnInfo(final Class entityClass, final String propertyName) {
@@ -0,0 +1,48 @@
+package com.github.wz2cool.dynamic.mybatis.mapper;
+
+import com.github.wz2cool.dynamic.mybatis.mapper.constant.MapperConstants;
+import com.github.wz2cool.dynamic.mybatis.mapper.provider.DynamicQueryProvider;
+import org.apache.ibatis.annotations.InsertProvider;
+import org.apache.ibatis.annotations.Param;
+import tk.mybatis.mapper.annotation.RegisterMapper;
+
+import java.util.List;
+
+/**
+ * @author Frank
+ */
+@RegisterMapper
+public interface BulkInsertMapper<T> {
+
+    /**
+     * insert records by one multi-row insert statement, all insertable columns (including id) are inserted,
+     * generated keys are not read back.
+     * sql of full chunk (see {@link com.github.wz2cool.dynamic.mybatis.mapper.dialect.DialectHelper#getInsertChunkSize})
+     * is built once and shared, sql of other row count is built per call.
+     *
+     * @param records records, size must fit parameter limit of database,
+     *                see {@link com.github.wz2cool.dynamic.mybatis.mapper.dialect.DialectHelper#getInsertChunkSize}
+     * @return effect rows
+     */
+    @InsertProvider(type = DynamicQueryProvider.class, method = "dynamicSQL")
+    int bulkInsert(@Param(MapperConstants.RECORDS) List<? extends T> records);
+
+    /**
+     * insert records by multi-row insert statements of at most "chunkSize" rows.
+     *
+     * @param records   records
+     * @param chunkSize max rows of one statement, use chunk size of dialect to reuse sql of full chunks.
+     * @return effect rows
+     */
+    default int bulkInsert(List<? extends T> records, int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("chunkSize must be greater than 0");
+        }
+
+        int result = 0;
+        for (int start = 0; start < records.size(); start += chunkSize) {
+            result += bulkInsert(records.subList(start, Math.min(start + chunkSize, records.size())));
+        }
+        return result;
+    }
+}
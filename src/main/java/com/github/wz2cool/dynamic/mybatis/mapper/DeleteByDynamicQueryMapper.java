@@ -20,4 +20,15 @@ public interface DeleteByDynamicQueryMapper<T> {
      */
     @DeleteProvider(type = DynamicQueryProvider.class, method = "dynamicSQL")
     int deleteByDynamicQuery(@Param(MapperConstants.DYNAMIC_QUERY) DynamicQuery<T> dynamicQuery);
-}
\ No newline at end of file
+
+    /**
+     * delete at most limit rows by dynamic query, used to purge large data in chunks.
+     *
+     * @param dynamicQuery dynamic query
+     * @param limit        max count of deleted rows
+     * @return effect rows
+     */
+    @DeleteProvider(type = DynamicQueryProvider.class, method = "dynamicSQL")
+    int deleteLimitByDynamicQuery(@Param(MapperConstants.DYNAMIC_QUERY) DynamicQuery<T> dynamicQuery,
+                                  @Param(MapperConstants.LIMIT) int limit);
+}
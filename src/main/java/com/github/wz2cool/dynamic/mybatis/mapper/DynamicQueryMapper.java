@@ -12,10 +12,16 @@ import tk.mybatis.mapper.common.special.InsertListMapper;
 public interface DynamicQueryMapper<T> extends
         BaseMapper<T>,
         InsertListMapper<T>,
+        BulkInsertMapper<T>,
+        UpsertMapper<T>,
         SelectCountByDynamicQueryMapper<T>,
+        ExistsByDynamicQueryMapper<T>,
         DeleteByDynamicQueryMapper<T>,
         SelectByDynamicQueryMapper<T>,
         SelectRowBoundsByDynamicQueryMapper<T>,
+        SelectPageByDynamicQueryMapper<T>,
+        StreamByDynamicQueryMapper<T>,
         UpdateSelectiveByDynamicQueryMapper<T>,
-        UpdateByDynamicQueryMapper<T> {
+        UpdateByDynamicQueryMapper<T>,
+        UpdateSetByDynamicQueryMapper<T> {
 }
\ No newline at end of file
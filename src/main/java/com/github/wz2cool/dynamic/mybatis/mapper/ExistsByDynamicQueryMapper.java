@@ -0,0 +1,36 @@
+package com.github.wz2cool.dynamic.mybatis.mapper;
+
+import com.github.wz2cool.dynamic.DynamicQuery;
+import com.github.wz2cool.dynamic.mybatis.mapper.constant.MapperConstants;
+import com.github.wz2cool.dynamic.mybatis.mapper.provider.DynamicQueryProvider;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.SelectProvider;
+import tk.mybatis.mapper.annotation.RegisterMapper;
+
+/**
+ * @author Frank
+ */
+@RegisterMapper
+public interface ExistsByDynamicQueryMapper<T> {
+
+    /**
+     * select "1" of first matched row, use {@link #existsByDynamicQuery(DynamicQuery)} instead.
+     *
+     * @param dynamicQuery dynamic query
+     * @return 1 if any row matched, null if not.
+     */
+    @SelectProvider(type = DynamicQueryProvider.class, method = "dynamicSQL")
+    Integer selectOneIfExistsByDynamicQuery(@Param(MapperConstants.DYNAMIC_QUERY) DynamicQuery<T> dynamicQuery);
+
+    /**
+     * check if any row matches dynamic query, database stops at first matched row instead of counting all.
+     *
+     * @param dynamicQuery dynamic query
+     * @return true if any row matched
+     */
+    default boolean existsByDynamicQuery(DynamicQuery<T> dynamicQuery) {
+        Integer result = selectOneIfExistsByDynamicQuery(dynamicQuery);
+        // 0 if skipped by always false filters.
+        return result != null && result > 0;
+    }
+}
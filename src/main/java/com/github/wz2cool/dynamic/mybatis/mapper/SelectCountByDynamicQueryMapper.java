@@ -1,12 +1,17 @@
 package com.github.wz2cool.dynamic.mybatis.mapper;
 
 import com.github.wz2cool.dynamic.DynamicQuery;
+import com.github.wz2cool.dynamic.mybatis.mapper.constant.CountMode;
 import com.github.wz2cool.dynamic.mybatis.mapper.constant.MapperConstants;
+import com.github.wz2cool.dynamic.mybatis.mapper.helper.CountEstimateHelper;
 import com.github.wz2cool.dynamic.mybatis.mapper.provider.DynamicQueryProvider;
 import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.SelectProvider;
 import tk.mybatis.mapper.annotation.RegisterMapper;
 
+import java.util.List;
+import java.util.Map;
+
 /**
  * @author Frank
  */
@@ -21,4 +26,58 @@ public interface SelectCountByDynamicQueryMapper<T> {
      */
     @SelectProvider(type = DynamicQueryProvider.class, method = "dynamicSQL")
     int selectCountByDynamicQuery(@Param(MapperConstants.DYNAMIC_QUERY) DynamicQuery<T> dynamicQuery);
-}
\ No newline at end of file
+
+    /**
+     * select count of at most "cap" rows, use {@link #selectCountByDynamicQuery(DynamicQuery, int)} instead.
+     *
+     * @param dynamicQuery dynamic query
+     * @param cap          max count
+     * @return the count of items, not greater than cap
+     */
+    @SelectProvider(type = DynamicQueryProvider.class, method = "dynamicSQL")
+    int selectCappedCountByDynamicQuery(
+            @Param(MapperConstants.DYNAMIC_QUERY) DynamicQuery<T> dynamicQuery,
+            @Param(MapperConstants.LIMIT) int cap);
+
+    /**
+     * select count by dynamic query, database stops scanning after "cap" matched rows,
+     * such as showing "1000+" on a page.
+     *
+     * @param dynamicQuery dynamic query
+     * @param cap          max count
+     * @return the count of items, not greater than cap
+     */
+    default int selectCountByDynamicQuery(DynamicQuery<T> dynamicQuery, int cap) {
+        if (cap <= 0) {
+            throw new IllegalArgumentException("cap must be greater than 0");
+        }
+        return selectCappedCountByDynamicQuery(dynamicQuery, cap);
+    }
+
+    /**
+     * select rows of query plan, use {@link #selectCountByDynamicQuery(DynamicQuery, CountMode)} instead.
+     *
+     * @param dynamicQuery dynamic query
+     * @return rows of "EXPLAIN" on PostgreSQL and MySQL, row of exact count on other databases.
+     */
+    @SelectProvider(type = DynamicQueryProvider.class, method = "dynamicSQL")
+    List<Map<String, Object>> selectCountEstimateRowsByDynamicQuery(
+            @Param(MapperConstants.DYNAMIC_QUERY) DynamicQuery<T> dynamicQuery);
+
+    /**
+     * select exact or estimated count by dynamic query.
+     *
+     * @param dynamicQuery dynamic query
+     * @param countMode    exact count, or row estimate of query planner (no rows scanned) for huge tables.
+     * @return the count of items
+     */
+    default long selectCountByDynamicQuery(DynamicQuery<T> dynamicQuery, CountMode countMode) {
+        if (countMode == CountMode.ESTIMATED) {
+            Long estimatedCount = CountEstimateHelper.getEstimatedCount(selectCountEstimateRowsByDynamicQuery(dynamicQuery));
+            if (estimatedCount != null) {
+                return estimatedCount;
+            }
+        }
+        return selectCountByDynamicQuery(dynamicQuery);
+    }
+}
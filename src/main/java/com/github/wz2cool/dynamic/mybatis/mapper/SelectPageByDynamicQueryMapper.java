@@ -0,0 +1,66 @@
+package com.github.wz2cool.dynamic.mybatis.mapper;
+
+import com.github.wz2cool.dynamic.DynamicQuery;
+import com.github.wz2cool.dynamic.FrozenDynamicQuery;
+import com.github.wz2cool.dynamic.model.PageResult;
+import com.github.wz2cool.dynamic.mybatis.mapper.constant.MapperConstants;
+import com.github.wz2cool.dynamic.mybatis.mapper.handler.PageTotalTypeHandler;
+import com.github.wz2cool.dynamic.mybatis.mapper.provider.DynamicQueryProvider;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.SelectProvider;
+import tk.mybatis.mapper.annotation.RegisterMapper;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @author Frank
+ */
+@RegisterMapper
+public interface SelectPageByDynamicQueryMapper<T> extends SelectCountByDynamicQueryMapper<T> {
+
+    /**
+     * select rows of page, "COUNT(*) OVER()" column is selected if dialect supports it,
+     * total count is only read by {@link #selectPageByDynamicQuery(DynamicQuery, int, int)}, use it instead.
+     *
+     * @param dynamicQuery dynamic query
+     * @param offset       number of rows to skip
+     * @param limit        max number of rows to return
+     * @return the list of items
+     */
+    @SelectProvider(type = DynamicQueryProvider.class, method = "dynamicSQL")
+    List<T> selectPageRowsByDynamicQuery(
+            @Param(MapperConstants.DYNAMIC_QUERY) DynamicQuery<T> dynamicQuery,
+            @Param(MapperConstants.OFFSET) int offset,
+            @Param(MapperConstants.LIMIT) int limit);
+
+    /**
+     * select page and total count by dynamic query.
+     * total count is selected with rows in one statement by "COUNT(*) OVER()" on PostgreSQL and SQL Server,
+     * otherwise it is computed from rows if this is the last page, or selected by count statement
+     * (in same connection if called in transaction), filters are rendered only once.
+     *
+     * @param dynamicQuery dynamic query
+     * @param offset       number of rows to skip
+     * @param limit        max number of rows to return
+     * @return page of items and total count
+     */
+    default PageResult<T> selectPageByDynamicQuery(DynamicQuery<T> dynamicQuery, int offset, int limit) {
+        if (offset < 0) {
+            throw new IllegalArgumentException("offset can not be less than 0");
+        }
+        if (limit <= 0) {
+            throw new IllegalArgumentException("limit must be greater than 0");
+        }
+
+        FrozenDynamicQuery<T> frozenQuery = dynamicQuery.freeze();
+        AtomicLong total = new AtomicLong(-1);
+        List<T> items = PageTotalTypeHandler.readPageTotal(
+                total, () -> selectPageRowsByDynamicQuery(frozenQuery, offset, limit));
+        if (total.get() < 0) {
+            boolean lastPage = items.isEmpty() ? offset == 0 : items.size() < limit;
+            total.set(lastPage ? offset + items.size() : selectCountByDynamicQuery(frozenQuery));
+        }
+        return new PageResult<>(items, total.get());
+    }
+}
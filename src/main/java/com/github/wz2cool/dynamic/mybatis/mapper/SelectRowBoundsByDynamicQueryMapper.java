@@ -1,6 +1,8 @@
 package com.github.wz2cool.dynamic.mybatis.mapper;
 
 import com.github.wz2cool.dynamic.DynamicQuery;
+import com.github.wz2cool.dynamic.model.KeysetPage;
+import com.github.wz2cool.dynamic.mybatis.KeysetHelper;
 import com.github.wz2cool.dynamic.mybatis.mapper.constant.MapperConstants;
 import com.github.wz2cool.dynamic.mybatis.mapper.provider.DynamicQueryProvider;
 import org.apache.ibatis.annotations.Param;
@@ -18,7 +20,9 @@ import java.util.Optional;
 public interface SelectRowBoundsByDynamicQueryMapper<T> {
 
     /**
-     * select row rounds by dynamic query.
+     * select row rounds by dynamic query, rows before offset are skipped by mybatis on client side,
+     * use {@link #selectLimitByDynamicQuery(DynamicQuery, int, int)} for large offset
+     * if no pagination plugin rewrites this query.
      *
      * @param dynamicQuery dynamic query
      * @param rowBounds    row bounds
@@ -29,6 +33,20 @@ public interface SelectRowBoundsByDynamicQueryMapper<T> {
             @Param(MapperConstants.DYNAMIC_QUERY) DynamicQuery<T> dynamicQuery,
             RowBounds rowBounds);
 
+    /**
+     * select limit by dynamic query, rows are skipped by database instead of client.
+     *
+     * @param dynamicQuery dynamic query
+     * @param offset       number of rows to skip
+     * @param limit        max number of rows to return
+     * @return the list of items
+     */
+    @SelectProvider(type = DynamicQueryProvider.class, method = "dynamicSQL")
+    List<T> selectLimitByDynamicQuery(
+            @Param(MapperConstants.DYNAMIC_QUERY) DynamicQuery<T> dynamicQuery,
+            @Param(MapperConstants.OFFSET) int offset,
+            @Param(MapperConstants.LIMIT) int limit);
+
     /**
      * select first record by dynamic query
      *
@@ -36,12 +54,31 @@ public interface SelectRowBoundsByDynamicQueryMapper<T> {
      * @return matched first record
      */
     default Optional<T> selectFirstByDynamicQuery(DynamicQuery<T> dynamicQuery) {
-        RowBounds rowBounds = new RowBounds(0, 1);
-        List<T> result = selectRowBoundsByDynamicQuery(dynamicQuery, rowBounds);
+        List<T> result = selectLimitByDynamicQuery(dynamicQuery, 0, 1);
         if (result == null || result.isEmpty()) {
             return Optional.empty();
         } else {
             return Optional.ofNullable(result.get(0));
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * select page by keyset pagination, cost of each page does not grow with page number.
+     *
+     * @param dynamicQuery dynamic query, sorts should end with an unique property, it is not changed.
+     * @param cursor       next cursor of previous page, null or empty for first page.
+     * @param pageSize     page size
+     * @return page of items and cursor of next page
+     */
+    default KeysetPage<T> selectKeysetByDynamicQuery(DynamicQuery<T> dynamicQuery, String cursor, int pageSize) {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("pageSize must be greater than 0");
+        }
+
+        DynamicQuery<T> seekQuery = KeysetHelper.createSeekQuery(dynamicQuery, cursor);
+        List<T> items = selectLimitByDynamicQuery(seekQuery, 0, pageSize);
+        String nextCursor = items.size() < pageSize ?
+                null : KeysetHelper.createCursor(dynamicQuery, items.get(items.size() - 1));
+        return new KeysetPage<>(items, nextCursor);
+    }
+}
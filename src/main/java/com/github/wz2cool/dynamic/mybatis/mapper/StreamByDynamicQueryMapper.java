@@ -0,0 +1,30 @@
+package com.github.wz2cool.dynamic.mybatis.mapper;
+
+import com.github.wz2cool.dynamic.DynamicQuery;
+import com.github.wz2cool.dynamic.mybatis.mapper.constant.MapperConstants;
+import com.github.wz2cool.dynamic.mybatis.mapper.provider.DynamicQueryProvider;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.SelectProvider;
+import org.apache.ibatis.cursor.Cursor;
+import tk.mybatis.mapper.annotation.RegisterMapper;
+
+/**
+ * @author Frank
+ */
+@RegisterMapper
+public interface StreamByDynamicQueryMapper<T> {
+
+    /**
+     * stream by dynamic query, rows are fetched while iterating cursor,
+     * cursor must be used inside transaction (session) and closed after used.
+     *
+     * @param dynamicQuery dynamic query
+     * @param fetchSize    rows fetched per round trip, use {@link Integer#MIN_VALUE} for mysql streaming,
+     *                     postgresql only use fetch size when auto commit is off.
+     * @return cursor of items
+     */
+    @SelectProvider(type = DynamicQueryProvider.class, method = "dynamicSQL")
+    Cursor<T> streamByDynamicQuery(
+            @Param(MapperConstants.DYNAMIC_QUERY) DynamicQuery<T> dynamicQuery,
+            @Param(MapperConstants.FETCH_SIZE) int fetchSize);
+}
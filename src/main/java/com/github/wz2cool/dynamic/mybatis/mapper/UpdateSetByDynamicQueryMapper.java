@@ -0,0 +1,42 @@
+package com.github.wz2cool.dynamic.mybatis.mapper;
+
+import com.github.wz2cool.dynamic.DynamicQuery;
+import com.github.wz2cool.dynamic.DynamicUpdate;
+import com.github.wz2cool.dynamic.mybatis.mapper.constant.MapperConstants;
+import com.github.wz2cool.dynamic.mybatis.mapper.provider.DynamicQueryProvider;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.UpdateProvider;
+import tk.mybatis.mapper.annotation.RegisterMapper;
+
+/**
+ * @author Frank
+ */
+@RegisterMapper
+public interface UpdateSetByDynamicQueryMapper<T> {
+    /**
+     * update columns by dynamic update and dynamic query, values can be computed in database,
+     * such as "SET balance = balance + ?", no select and write back needed.
+     *
+     * @param dynamicUpdate dynamic update
+     * @param dynamicQuery  dynamic query
+     * @return effect rows
+     */
+    @UpdateProvider(type = DynamicQueryProvider.class, method = "dynamicSQL")
+    int updateSetByDynamicQuery(
+            @Param(MapperConstants.DYNAMIC_UPDATE) DynamicUpdate<T> dynamicUpdate,
+            @Param(MapperConstants.DYNAMIC_QUERY) DynamicQuery<T> dynamicQuery);
+
+    /**
+     * update at most limit rows by dynamic update and dynamic query, used to update large data in chunks.
+     *
+     * @param dynamicUpdate dynamic update
+     * @param dynamicQuery  dynamic query
+     * @param limit         max count of updated rows
+     * @return effect rows
+     */
+    @UpdateProvider(type = DynamicQueryProvider.class, method = "dynamicSQL")
+    int updateSetLimitByDynamicQuery(
+            @Param(MapperConstants.DYNAMIC_UPDATE) DynamicUpdate<T> dynamicUpdate,
+            @Param(MapperConstants.DYNAMIC_QUERY) DynamicQuery<T> dynamicQuery,
+            @Param(MapperConstants.LIMIT) int limit);
+}
@@ -0,0 +1,24 @@
+package com.github.wz2cool.dynamic.mybatis.mapper;
+
+import com.github.wz2cool.dynamic.mybatis.mapper.constant.MapperConstants;
+import com.github.wz2cool.dynamic.mybatis.mapper.provider.DynamicQueryProvider;
+import org.apache.ibatis.annotations.InsertProvider;
+import org.apache.ibatis.annotations.Param;
+import tk.mybatis.mapper.annotation.RegisterMapper;
+
+/**
+ * @author Frank
+ */
+@RegisterMapper
+public interface UpsertMapper<T> {
+    /**
+     * insert record, or update it if row of same primary key exists, in one statement
+     * ("ON CONFLICT" on PostgreSQL, "ON DUPLICATE KEY UPDATE" on MySQL, "MERGE" on H2 and SQL Server).
+     * all columns are written including null values.
+     *
+     * @param record record of item
+     * @return effect rows, MySQL returns 2 if existing row is updated.
+     */
+    @InsertProvider(type = DynamicQueryProvider.class, method = "dynamicSQL")
+    int upsert(@Param(MapperConstants.RECORD) T record);
+}
@@ -0,0 +1,17 @@
+package com.github.wz2cool.dynamic.mybatis.mapper.batch;
+
+/**
+ * progress of chunked delete or update, called after each chunk is committed.
+ *
+ * @author Frank
+ */
+@FunctionalInterface
+public interface ChunkProgressListener {
+    /**
+     * chunk committed.
+     *
+     * @param chunkRows effect rows of current chunk
+     * @param totalRows effect rows of all committed chunks
+     */
+    void onChunk(int chunkRows, long totalRows);
+}
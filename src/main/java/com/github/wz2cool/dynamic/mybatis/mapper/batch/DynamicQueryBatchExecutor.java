@@ -0,0 +1,357 @@
+package com.github.wz2cool.dynamic.mybatis.mapper.batch;
+
+import com.github.wz2cool.dynamic.DynamicQuery;
+import com.github.wz2cool.dynamic.DynamicUpdate;
+import com.github.wz2cool.dynamic.FrozenDynamicQuery;
+import com.github.wz2cool.dynamic.exception.InternalRuntimeException;
+import com.github.wz2cool.dynamic.model.BatchUpdateItem;
+import com.github.wz2cool.dynamic.mybatis.FilterOptimizer;
+import com.github.wz2cool.dynamic.mybatis.mapper.BulkInsertMapper;
+import com.github.wz2cool.dynamic.mybatis.mapper.DeleteByDynamicQueryMapper;
+import com.github.wz2cool.dynamic.mybatis.mapper.UpdateByDynamicQueryMapper;
+import com.github.wz2cool.dynamic.mybatis.mapper.UpdateSelectiveByDynamicQueryMapper;
+import com.github.wz2cool.dynamic.mybatis.mapper.UpdateSetByDynamicQueryMapper;
+import com.github.wz2cool.dynamic.mybatis.mapper.UpsertMapper;
+import com.github.wz2cool.dynamic.mybatis.mapper.constant.MapperConstants;
+import com.github.wz2cool.dynamic.mybatis.mapper.dialect.DatabaseDialect;
+import com.github.wz2cool.dynamic.mybatis.mapper.dialect.DialectHelper;
+import org.apache.ibatis.executor.BatchResult;
+import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.reflection.SystemMetaObject;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import tk.mybatis.mapper.entity.EntityColumn;
+import tk.mybatis.mapper.mapperhelper.EntityHelper;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.ToIntBiFunction;
+
+/**
+ * Execute many updates or deletes by dynamic query in JDBC batches of {@link ExecutorType#BATCH} session,
+ * items of same statement shape are executed together so that they share one prepared statement,
+ * also bulk insert in chunks and upsert.
+ * <p>
+ * Session is committed after all batches, it joins current transaction if session factory is managed by spring.
+ * <p>
+ * Large deletes or updates can be executed in chunks, each chunk is committed in its own session,
+ * so that locks and undo log are kept small. Chunks can not be executed in spring transaction,
+ * sessions of spring managed session factory join that transaction and nothing is committed until it ends,
+ * so that {@link IllegalStateException} is thrown if spring transaction is active.
+ *
+ * @author Frank
+ */
+public class DynamicQueryBatchExecutor {
+    private static final Method IS_ACTUAL_TRANSACTION_ACTIVE_METHOD = getIsActualTransactionActiveMethod();
+
+    private final SqlSessionFactory sqlSessionFactory;
+
+    public DynamicQueryBatchExecutor(SqlSessionFactory sqlSessionFactory) {
+        this.sqlSessionFactory = sqlSessionFactory;
+    }
+
+    /**
+     * update by dynamic query in batches.
+     *
+     * @param mapperClass mapper interface, such as "ProductDao.class"
+     * @param items       record and dynamic query of each update
+     * @return effect rows of each item in order of items, {@link java.sql.Statement#SUCCESS_NO_INFO}
+     * if driver does not report count of batched statement.
+     */
+    public <T, M extends UpdateByDynamicQueryMapper<T>> int[] updateByDynamicQuery(
+            final Class<M> mapperClass, final List<BatchUpdateItem<T>> items) {
+        return execute(mapperClass, items, BatchUpdateItem::getDynamicQuery, item -> "",
+                (mapper, item, query) -> mapper.updateByDynamicQuery(item.getRecord(), query));
+    }
+
+    /**
+     * update not null properties by dynamic query in batches.
+     *
+     * @param mapperClass mapper interface, such as "ProductDao.class"
+     * @param items       record and dynamic query of each update
+     * @return effect rows of each item in order of items, {@link java.sql.Statement#SUCCESS_NO_INFO}
+     * if driver does not report count of batched statement.
+     */
+    public <T, M extends UpdateSelectiveByDynamicQueryMapper<T>> int[] updateSelectiveByDynamicQuery(
+            final Class<M> mapperClass, final List<BatchUpdateItem<T>> items) {
+        return execute(mapperClass, items, BatchUpdateItem::getDynamicQuery,
+                item -> getNullPropertiesKey(item.getRecord()),
+                (mapper, item, query) -> mapper.updateSelectiveByDynamicQuery(item.getRecord(), query));
+    }
+
+    /**
+     * delete by dynamic query in batches.
+     *
+     * @param mapperClass    mapper interface, such as "ProductDao.class"
+     * @param dynamicQueries dynamic query of each delete
+     * @return effect rows of each query in order of queries, {@link java.sql.Statement#SUCCESS_NO_INFO}
+     * if driver does not report count of batched statement.
+     */
+    public <T, M extends DeleteByDynamicQueryMapper<T>> int[] deleteByDynamicQuery(
+            final Class<M> mapperClass, final List<DynamicQuery<T>> dynamicQueries) {
+        return execute(mapperClass, dynamicQueries, query -> query, query -> "",
+                (mapper, item, query) -> mapper.deleteByDynamicQuery(query));
+    }
+
+    /**
+     * insert records by multi-row insert statements, rows of one statement are limited by
+     * count of inserted columns and parameter limit of database.
+     *
+     * @param mapperClass mapper interface, such as "UserDao.class"
+     * @param records     records
+     * @param batch       send statements in one JDBC batch, all full chunks share one prepared statement.
+     * @return effect rows, count of records if driver does not report count of batched statement.
+     */
+    public <T, M extends BulkInsertMapper<T>> int bulkInsert(
+            final Class<M> mapperClass, final List<? extends T> records, final boolean batch) {
+        if (records.isEmpty()) {
+            return 0;
+        }
+
+        int columnCount = 0;
+        for (EntityColumn entityColumn : EntityHelper.getColumns(records.get(0).getClass())) {
+            if (entityColumn.isInsertable()) {
+                columnCount++;
+            }
+        }
+        DatabaseDialect dialect = DialectHelper.getDialect(sqlSessionFactory.getConfiguration());
+        int chunkSize = DialectHelper.getInsertChunkSize(dialect, columnCount);
+
+        try (SqlSession sqlSession = sqlSessionFactory.openSession(batch ? ExecutorType.BATCH : ExecutorType.SIMPLE)) {
+            M mapper = sqlSession.getMapper(mapperClass);
+            int result = mapper.bulkInsert(records, chunkSize);
+            if (batch) {
+                result = 0;
+                for (BatchResult batchResult : sqlSession.flushStatements()) {
+                    List<Object> parameterObjects = batchResult.getParameterObjects();
+                    int[] updateCounts = batchResult.getUpdateCounts();
+                    for (int i = 0; i < updateCounts.length; i++) {
+                        result += updateCounts[i] >= 0 ? updateCounts[i] : getRecordCount(parameterObjects.get(i));
+                    }
+                }
+            }
+            sqlSession.commit();
+            return result;
+        }
+    }
+
+    /**
+     * upsert records in one JDBC batch, all records share one prepared statement.
+     *
+     * @param mapperClass mapper interface, such as "UserDao.class"
+     * @param records     records
+     * @return effect rows of each record in order of records, {@link java.sql.Statement#SUCCESS_NO_INFO}
+     * if driver does not report count of batched statement.
+     */
+    public <T, M extends UpsertMapper<T>> int[] upsert(final Class<M> mapperClass, final List<? extends T> records) {
+        int[] result = new int[records.size()];
+        if (records.isEmpty()) {
+            return result;
+        }
+
+        try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH)) {
+            M mapper = sqlSession.getMapper(mapperClass);
+            for (T record : records) {
+                mapper.upsert(record);
+            }
+
+            int position = 0;
+            for (BatchResult batchResult : sqlSession.flushStatements()) {
+                for (int updateCount : batchResult.getUpdateCounts()) {
+                    result[position++] = updateCount;
+                }
+            }
+            sqlSession.commit();
+        }
+        return result;
+    }
+
+    /**
+     * delete rows by dynamic query in chunks until no row matches.
+     *
+     * @param mapperClass  mapper interface, such as "ProductDao.class"
+     * @param dynamicQuery dynamic query
+     * @param chunkSize    max count of deleted rows in one chunk
+     * @param pauseMillis  pause between chunks to let other transactions go, no pause if not positive.
+     * @param listener     called after each chunk, nullable.
+     * @return effect rows of all chunks
+     * @throws IllegalStateException if spring transaction is active.
+     */
+    public <T, M extends DeleteByDynamicQueryMapper<T>> long deleteInChunks(
+            final Class<M> mapperClass,
+            final DynamicQuery<T> dynamicQuery,
+            final int chunkSize,
+            final long pauseMillis,
+            final ChunkProgressListener listener) {
+        return executeInChunks(mapperClass, dynamicQuery, chunkSize, pauseMillis, listener,
+                (mapper, query) -> mapper.deleteLimitByDynamicQuery(query, chunkSize));
+    }
+
+    /**
+     * update rows by dynamic update and dynamic query in chunks until no row matches,
+     * dynamic update must make updated rows no longer match dynamic query, otherwise it never ends.
+     *
+     * @param mapperClass   mapper interface, such as "ProductDao.class"
+     * @param dynamicUpdate dynamic update
+     * @param dynamicQuery  dynamic query
+     * @param chunkSize     max count of updated rows in one chunk
+     * @param pauseMillis   pause between chunks to let other transactions go, no pause if not positive.
+     * @param listener      called after each chunk, nullable.
+     * @return effect rows of all chunks
+     * @throws IllegalStateException if spring transaction is active.
+     */
+    public <T, M extends UpdateSetByDynamicQueryMapper<T>> long updateSetInChunks(
+            final Class<M> mapperClass,
+            final DynamicUpdate<T> dynamicUpdate,
+            final DynamicQuery<T> dynamicQuery,
+            final int chunkSize,
+            final long pauseMillis,
+            final ChunkProgressListener listener) {
+        return executeInChunks(mapperClass, dynamicQuery, chunkSize, pauseMillis, listener,
+                (mapper, query) -> mapper.updateSetLimitByDynamicQuery(dynamicUpdate, query, chunkSize));
+    }
+
+    private <T, M> long executeInChunks(final Class<M> mapperClass,
+                                        final DynamicQuery<T> dynamicQuery,
+                                        final int chunkSize,
+                                        final long pauseMillis,
+                                        final ChunkProgressListener listener,
+                                        final ToIntBiFunction<M, DynamicQuery<T>> executeChunk) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("chunkSize must be greater than 0");
+        }
+        if (isSpringTransactionActive()) {
+            throw new IllegalStateException(
+                    "chunks can not be committed one by one in spring transaction, execute them outside of transaction");
+        }
+
+        // later changes of dynamic query do not affect remaining chunks.
+        DynamicQuery<T> frozenQuery = dynamicQuery.freeze();
+        long totalRows = 0;
+        while (true) {
+            int chunkRows;
+            try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.SIMPLE)) {
+                chunkRows = executeChunk.applyAsInt(sqlSession.getMapper(mapperClass), frozenQuery);
+                sqlSession.commit();
+            }
+            totalRows += chunkRows;
+            if (listener != null) {
+                listener.onChunk(chunkRows, totalRows);
+            }
+            if (chunkRows < chunkSize) {
+                return totalRows;
+            }
+            pause(pauseMillis);
+        }
+    }
+
+    private static boolean isSpringTransactionActive() {
+        if (IS_ACTUAL_TRANSACTION_ACTIVE_METHOD == null) {
+            return false;
+        }
+        try {
+            return Boolean.TRUE.equals(IS_ACTUAL_TRANSACTION_ACTIVE_METHOD.invoke(null));
+        } catch (ReflectiveOperationException e) {
+            throw new InternalRuntimeException(e);
+        }
+    }
+
+    /**
+     * spring is optional.
+     */
+    private static Method getIsActualTransactionActiveMethod() {
+        try {
+            return Class.forName("org.springframework.transaction.support.TransactionSynchronizationManager")
+                    .getMethod("isActualTransactionActive");
+        } catch (ClassNotFoundException | NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    private static void pause(final long pauseMillis) {
+        if (pauseMillis <= 0) {
+            return;
+        }
+
+        try {
+            Thread.sleep(pauseMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InternalRuntimeException("interrupted between chunks");
+        }
+    }
+
+    private static int getRecordCount(final Object parameterObject) {
+        return ((List<?>) ((Map<?, ?>) parameterObject).get(MapperConstants.RECORDS)).size();
+    }
+
+    private <T, M, I> int[] execute(final Class<M> mapperClass,
+                                    final List<I> items,
+                                    final Function<I, DynamicQuery<T>> getDynamicQuery,
+                                    final Function<I, String> getRecordShape,
+                                    final BatchItemExecutor<M, I, T> executeItem) {
+        int[] result = new int[items.size()];
+        // filters of frozen query are optimized only once, here and in EmptyQueryInterceptor and sql source.
+        List<FrozenDynamicQuery<T>> frozenQueries = new ArrayList<>(items.size());
+        // consecutive statements of same sql share one batch in BatchExecutor.
+        Map<String, List<Integer>> shapeIndexesMap = new LinkedHashMap<>();
+        for (int i = 0; i < items.size(); i++) {
+            FrozenDynamicQuery<T> frozenQuery = getDynamicQuery.apply(items.get(i)).freeze();
+            frozenQueries.add(frozenQuery);
+            if (FilterOptimizer.isOptimizedAlwaysFalse(FilterOptimizer.optimize(frozenQuery))) {
+                // skipped by EmptyQueryInterceptor without batch entry.
+                continue;
+            }
+            String shape = frozenQuery.getShapeFingerprint() + getRecordShape.apply(items.get(i));
+            shapeIndexesMap.computeIfAbsent(shape, key -> new ArrayList<>()).add(i);
+        }
+        if (shapeIndexesMap.isEmpty()) {
+            return result;
+        }
+
+        try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH)) {
+            M mapper = sqlSession.getMapper(mapperClass);
+            List<Integer> executedIndexes = new ArrayList<>(items.size());
+            for (List<Integer> indexes : shapeIndexesMap.values()) {
+                for (Integer index : indexes) {
+                    executeItem.execute(mapper, items.get(index), frozenQueries.get(index));
+                    executedIndexes.add(index);
+                }
+            }
+
+            int position = 0;
+            for (BatchResult batchResult : sqlSession.flushStatements()) {
+                for (int updateCount : batchResult.getUpdateCounts()) {
+                    if (position >= executedIndexes.size()) {
+                        throw new InternalRuntimeException("count of batch results is greater than count of items");
+                    }
+                    result[executedIndexes.get(position++)] = updateCount;
+                }
+            }
+            if (position != executedIndexes.size()) {
+                throw new InternalRuntimeException("count of batch results is less than count of items");
+            }
+            sqlSession.commit();
+        }
+        return result;
+    }
+
+    @FunctionalInterface
+    private interface BatchItemExecutor<M, I, T> {
+        void execute(M mapper, I item, DynamicQuery<T> frozenQuery);
+    }
+
+    private static String getNullPropertiesKey(final Object record) {
+        MetaObject metaObject = SystemMetaObject.forObject(record);
+        StringBuilder key = new StringBuilder();
+        for (EntityColumn entityColumn : EntityHelper.getColumns(record.getClass())) {
+            key.append(metaObject.getValue(entityColumn.getProperty()) == null ? '0' : '1');
+        }
+        return key.toString();
+    }
+}
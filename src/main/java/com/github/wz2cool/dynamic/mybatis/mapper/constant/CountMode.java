@@ -0,0 +1,18 @@
+package com.github.wz2cool.dynamic.mybatis.mapper.constant;
+
+/**
+ * The enum Count mode.
+ *
+ * @author Frank
+ */
+public enum CountMode {
+    /**
+     * "SELECT COUNT(*)", scans all matched rows.
+     */
+    EXACT,
+    /**
+     * Row estimate of query planner (EXPLAIN) on PostgreSQL and MySQL, may differ from exact count,
+     * other databases fall back to exact count.
+     */
+    ESTIMATED
+}
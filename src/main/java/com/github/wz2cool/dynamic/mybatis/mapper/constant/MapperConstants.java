@@ -11,7 +11,18 @@ public class MapperConstants {
     public static final String DISTINCT = "distinct";
     public static final String DYNAMIC_QUERY = "dynamicQuery";
     public static final String DYNAMIC_QUERY_PARAMS = "dynamicQueryParams";
+    public static final String OPTIMIZED_FILTERS = "optimizedFilters";
+    public static final String DYNAMIC_UPDATE = "dynamicUpdate";
+    public static final String DYNAMIC_UPDATE_PARAMS = "dynamicUpdateParams";
+    public static final String UPDATE_SET_EXPRESSION = "updateSetExpression";
     public static final String SELECT_COLUMNS_EXPRESSION = "selectColumnsExpression";
     public static final String WHERE_EXPRESSION = "whereExpression";
     public static final String SORT_EXPRESSION = "sortExpression";
+    public static final String OFFSET = "offset";
+    public static final String LIMIT = "limit";
+    public static final String FETCH_SIZE = "fetchSize";
+    public static final String PAGE_TOTAL_COLUMN = "dynamic_query_page_total";
+    public static final String ESTIMATED_COUNT_COLUMN = "dynamic_query_estimated_count";
+    public static final String RECORD = "record";
+    public static final String RECORDS = "records";
 }
\ No newline at end of file
@@ -0,0 +1,56 @@
+package com.github.wz2cool.dynamic.mybatis.mapper.dialect;
+
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * The enum Database dialect.
+ *
+ * @author Frank
+ */
+public enum DatabaseDialect {
+    /**
+     * H2 database.
+     */
+    H2,
+    /**
+     * MySQL and MariaDB.
+     */
+    MYSQL,
+    /**
+     * PostgreSQL.
+     */
+    POSTGRESQL,
+    /**
+     * SQL Server 2012 and later.
+     */
+    SQLSERVER,
+    /**
+     * Unknown database, use ANSI like syntax.
+     */
+    UNKNOWN;
+
+    /**
+     * Get dialect by database product name or mybatis database id.
+     *
+     * @param databaseName database product name or database id, such as "MySQL", "Microsoft SQL Server".
+     * @return the database dialect
+     */
+    public static DatabaseDialect of(final String databaseName) {
+        if (StringUtils.isBlank(databaseName)) {
+            return UNKNOWN;
+        }
+
+        String useDatabaseName = databaseName.toLowerCase().replace(" ", "");
+        if (useDatabaseName.contains("h2")) {
+            return H2;
+        } else if (useDatabaseName.contains("mysql") || useDatabaseName.contains("mariadb")) {
+            return MYSQL;
+        } else if (useDatabaseName.contains("postgre")) {
+            return POSTGRESQL;
+        } else if (useDatabaseName.contains("sqlserver")) {
+            return SQLSERVER;
+        } else {
+            return UNKNOWN;
+        }
+    }
+}
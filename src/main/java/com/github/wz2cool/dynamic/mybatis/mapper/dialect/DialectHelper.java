@@ -0,0 +1,110 @@
+package com.github.wz2cool.dynamic.mybatis.mapper.dialect;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.session.Configuration;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * @author Frank
+ */
+public class DialectHelper {
+    /**
+     * weak keys, so that configuration is released after context is closed,
+     * configuration does not override equals, keys are compared by identity.
+     */
+    private static final Map<Configuration, DatabaseDialect> DIALECT_CACHE =
+            Collections.synchronizedMap(new WeakHashMap<>());
+    /**
+     * max rows of one "VALUES" list in sql server, also keeps statement of other databases small.
+     */
+    private static final int MAX_INSERT_ROWS = 1000;
+
+    private DialectHelper() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Get dialect of configuration, use database id if "databaseIdProvider" has been set,
+     * otherwise use product name of data source.
+     *
+     * @param configuration mybatis configuration
+     * @return the database dialect
+     */
+    public static DatabaseDialect getDialect(final Configuration configuration) {
+        if (configuration == null) {
+            return DatabaseDialect.UNKNOWN;
+        }
+
+        DatabaseDialect dialect = DIALECT_CACHE.get(configuration);
+        if (dialect != null) {
+            return dialect;
+        }
+
+        dialect = getDialectInternal(configuration);
+        if (dialect == null) {
+            // database is not reachable, detect again next time.
+            return DatabaseDialect.UNKNOWN;
+        }
+        DIALECT_CACHE.put(configuration, dialect);
+        return dialect;
+    }
+
+    /**
+     * @return dialect, null if connection failed.
+     */
+    private static DatabaseDialect getDialectInternal(final Configuration configuration) {
+        String databaseId = configuration.getDatabaseId();
+        if (StringUtils.isNotBlank(databaseId)) {
+            return DatabaseDialect.of(databaseId);
+        }
+
+        Environment environment = configuration.getEnvironment();
+        if (environment == null || environment.getDataSource() == null) {
+            return DatabaseDialect.UNKNOWN;
+        }
+
+        try (Connection connection = environment.getDataSource().getConnection()) {
+            return DatabaseDialect.of(connection.getMetaData().getDatabaseProductName());
+        } catch (SQLException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Get max count of bind parameters in one statement.
+     *
+     * @param dialect database dialect
+     * @return max count of bind parameters
+     */
+    public static int getMaxBindParameters(final DatabaseDialect dialect) {
+        switch (dialect) {
+            case SQLSERVER:
+                return 2100;
+            case MYSQL:
+                return 65535;
+            default:
+                // limit of postgresql jdbc driver, also used for unknown databases.
+                return 32767;
+        }
+    }
+
+    /**
+     * Get max rows of one multi-row insert statement, limited by count of bind parameters.
+     *
+     * @param dialect     database dialect
+     * @param columnCount count of inserted columns
+     * @return max rows, at least 1
+     */
+    public static int getInsertChunkSize(final DatabaseDialect dialect, final int columnCount) {
+        if (columnCount <= 0) {
+            return MAX_INSERT_ROWS;
+        }
+        return Math.max(1, Math.min(MAX_INSERT_ROWS, getMaxBindParameters(dialect) / columnCount));
+    }
+}
@@ -0,0 +1,57 @@
+package com.github.wz2cool.dynamic.mybatis.mapper.handler;
+
+import com.github.wz2cool.dynamic.mybatis.ArrayParam;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.type.BaseTypeHandler;
+import org.apache.ibatis.type.JdbcType;
+import org.apache.ibatis.type.TypeHandlerRegistry;
+
+import java.sql.Array;
+import java.sql.CallableStatement;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Bind {@link ArrayParam} as jdbc array, only used for parameters.
+ *
+ * @author Frank
+ */
+public class ArrayParamTypeHandler extends BaseTypeHandler<ArrayParam> {
+
+    /**
+     * Register type handler to configuration if not registered.
+     *
+     * @param configuration mybatis configuration
+     */
+    public static void register(final Configuration configuration) {
+        TypeHandlerRegistry typeHandlerRegistry = configuration.getTypeHandlerRegistry();
+        synchronized (typeHandlerRegistry) {
+            if (!typeHandlerRegistry.hasTypeHandler(ArrayParam.class)) {
+                typeHandlerRegistry.register(ArrayParam.class, new ArrayParamTypeHandler());
+            }
+        }
+    }
+
+    @Override
+    public void setNonNullParameter(PreparedStatement ps, int i, ArrayParam parameter, JdbcType jdbcType)
+            throws SQLException {
+        Array array = ps.getConnection().createArrayOf(parameter.getElementTypeName(), parameter.getValues());
+        ps.setArray(i, array);
+    }
+
+    @Override
+    public ArrayParam getNullableResult(ResultSet rs, String columnName) {
+        throw new UnsupportedOperationException("ArrayParam is only used for parameters");
+    }
+
+    @Override
+    public ArrayParam getNullableResult(ResultSet rs, int columnIndex) {
+        throw new UnsupportedOperationException("ArrayParam is only used for parameters");
+    }
+
+    @Override
+    public ArrayParam getNullableResult(CallableStatement cs, int columnIndex) {
+        throw new UnsupportedOperationException("ArrayParam is only used for parameters");
+    }
+}
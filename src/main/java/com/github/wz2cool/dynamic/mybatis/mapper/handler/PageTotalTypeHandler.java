@@ -0,0 +1,75 @@
+package com.github.wz2cool.dynamic.mybatis.mapper.handler;
+
+import com.github.wz2cool.dynamic.mybatis.mapper.constant.MapperConstants;
+import org.apache.ibatis.type.BaseTypeHandler;
+import org.apache.ibatis.type.JdbcType;
+
+import java.sql.CallableStatement;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Read {@link MapperConstants#PAGE_TOTAL_COLUMN} column of page rows, the column is mapped without property,
+ * so that it is not auto mapped to entity, and value of first row is set to total of current page query.
+ *
+ * @author Frank
+ */
+public class PageTotalTypeHandler extends BaseTypeHandler<Long> {
+    /**
+     * statement is executed in caller thread, total is only set while reading rows of page.
+     */
+    private static final ThreadLocal<AtomicLong> PAGE_TOTAL = new ThreadLocal<>();
+
+    /**
+     * Run page query, total is set from total column of first row if rows are read from result set.
+     *
+     * @param total total count, not changed if column is not selected or rows are not read (such as local cache).
+     * @param query page query
+     * @param <R>   result type
+     * @return result of query
+     */
+    public static <R> R readPageTotal(final AtomicLong total, final Supplier<R> query) {
+        AtomicLong outerTotal = PAGE_TOTAL.get();
+        PAGE_TOTAL.set(total);
+        try {
+            return query.get();
+        } finally {
+            if (outerTotal == null) {
+                PAGE_TOTAL.remove();
+            } else {
+                PAGE_TOTAL.set(outerTotal);
+            }
+        }
+    }
+
+    @Override
+    public void setNonNullParameter(PreparedStatement ps, int i, Long parameter, JdbcType jdbcType) {
+        throw new UnsupportedOperationException("PageTotalTypeHandler is only used for results");
+    }
+
+    @Override
+    public Long getNullableResult(ResultSet rs, String columnName) throws SQLException {
+        long value = rs.getLong(columnName);
+        if (rs.wasNull()) {
+            return null;
+        }
+        AtomicLong total = PAGE_TOTAL.get();
+        if (total != null && total.get() < 0) {
+            total.set(value);
+        }
+        return value;
+    }
+
+    @Override
+    public Long getNullableResult(ResultSet rs, int columnIndex) {
+        throw new UnsupportedOperationException("PageTotalTypeHandler is only used for named column");
+    }
+
+    @Override
+    public Long getNullableResult(CallableStatement cs, int columnIndex) {
+        throw new UnsupportedOperationException("PageTotalTypeHandler is only used for results");
+    }
+}
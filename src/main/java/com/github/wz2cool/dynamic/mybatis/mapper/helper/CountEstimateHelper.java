@@ -0,0 +1,107 @@
+package com.github.wz2cool.dynamic.mybatis.mapper.helper;
+
+import com.github.wz2cool.dynamic.mybatis.mapper.constant.MapperConstants;
+
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Read estimated count from rows of "selectCountEstimateRowsByDynamicQuery".
+ *
+ * @author Frank
+ */
+public class CountEstimateHelper {
+    private static final String POSTGRESQL_PLAN_COLUMN = "QUERY PLAN";
+    private static final String MYSQL_ROWS_COLUMN = "rows";
+    private static final String MYSQL_FILTERED_COLUMN = "filtered";
+    private static final Pattern POSTGRESQL_PLAN_ROWS_PATTERN = Pattern.compile("\"Plan Rows\"\\s*:\\s*(\\d+)");
+    private static final double MAX_FILTERED_PERCENT = 100.0;
+
+    private CountEstimateHelper() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Get estimated count.
+     *
+     * @param rows rows of "EXPLAIN (FORMAT JSON)" on PostgreSQL, "EXPLAIN" on MySQL
+     *             or exact count column on other databases.
+     * @return estimated count, 0 if no rows, null if rows are not recognized.
+     */
+    public static Long getEstimatedCount(final List<Map<String, Object>> rows) {
+        if (rows == null || rows.isEmpty()) {
+            // statement is skipped if filters are always false.
+            return 0L;
+        }
+
+        Map<String, Object> row = rows.get(0);
+        if (row == null) {
+            return null;
+        }
+        if (containsKey(row, MapperConstants.ESTIMATED_COUNT_COLUMN)) {
+            return toLong(getValue(row, MapperConstants.ESTIMATED_COUNT_COLUMN));
+        }
+        if (containsKey(row, POSTGRESQL_PLAN_COLUMN)) {
+            return getPostgresqlEstimatedCount(getValue(row, POSTGRESQL_PLAN_COLUMN));
+        }
+        if (containsKey(row, MYSQL_ROWS_COLUMN)) {
+            return getMysqlEstimatedCount(getValue(row, MYSQL_ROWS_COLUMN), getValue(row, MYSQL_FILTERED_COLUMN));
+        }
+        return null;
+    }
+
+    private static Long getPostgresqlEstimatedCount(final Object plan) {
+        if (plan == null) {
+            return null;
+        }
+        // first "Plan Rows" belongs to top plan node.
+        Matcher matcher = POSTGRESQL_PLAN_ROWS_PATTERN.matcher(plan.toString());
+        return matcher.find() ? Long.valueOf(matcher.group(1)) : null;
+    }
+
+    private static Long getMysqlEstimatedCount(final Object rows, final Object filtered) {
+        Long rowCount = toLong(rows);
+        if (rowCount == null) {
+            return null;
+        }
+        if (!(filtered instanceof Number)) {
+            return rowCount;
+        }
+        double filteredPercent = ((Number) filtered).doubleValue();
+        return Math.round(rowCount * Math.min(filteredPercent, MAX_FILTERED_PERCENT) / MAX_FILTERED_PERCENT);
+    }
+
+    private static Long toLong(final Object value) {
+        if (value instanceof Number) {
+            return ((Number) value).longValue();
+        }
+        if (value instanceof String) {
+            try {
+                return Long.valueOf((String) value);
+            } catch (NumberFormatException ex) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    private static boolean containsKey(final Map<String, Object> row, final String column) {
+        for (String key : row.keySet()) {
+            if (column.equalsIgnoreCase(key)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Object getValue(final Map<String, Object> row, final String column) {
+        for (Map.Entry<String, Object> entry : row.entrySet()) {
+            if (column.equalsIgnoreCase(entry.getKey())) {
+                return entry.getValue();
+            }
+        }
+        return null;
+    }
+}
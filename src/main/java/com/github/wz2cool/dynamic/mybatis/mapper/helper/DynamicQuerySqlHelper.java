@@ -1,6 +1,7 @@
 package com.github.wz2cool.dynamic.mybatis.mapper.helper;
 
 import com.github.wz2cool.dynamic.mybatis.mapper.constant.MapperConstants;
+import com.github.wz2cool.dynamic.mybatis.mapper.dialect.DatabaseDialect;
 
 /**
  * @author Frank
@@ -11,13 +12,21 @@ public class DynamicQuerySqlHelper {
     }
 
     public static String getBindFilterParams(boolean isMapUnderscoreToCamelCase) {
+        return getBindFilterParams(isMapUnderscoreToCamelCase, null);
+    }
+
+    public static String getBindFilterParams(boolean isMapUnderscoreToCamelCase, DatabaseDialect dialect) {
         StringBuilder sql = new StringBuilder();
         sql.append("<bind name=\"");
         sql.append(MapperConstants.DYNAMIC_QUERY_PARAMS).append("\" ");
         sql.append("value=\"");
         sql.append("@com.github.wz2cool.dynamic.mybatis.mapper.provider.DynamicQueryProvider");
         sql.append("@getDynamicQueryParamInternal(");
-        sql.append(MapperConstants.DYNAMIC_QUERY).append(", ").append(isMapUnderscoreToCamelCase).append(")");
+        sql.append(MapperConstants.DYNAMIC_QUERY).append(", ").append(isMapUnderscoreToCamelCase);
+        if (dialect != null) {
+            sql.append(", '").append(dialect.name()).append("'");
+        }
+        sql.append(")");
         sql.append("\"/>");
         return sql.toString();
     }
@@ -37,4 +46,79 @@ public class DynamicQuerySqlHelper {
         return String.format("<if test=\"%s != null and %s != ''\">ORDER BY ${%s}</if>",
                 newExpression, newExpression, newExpression);
     }
-}
\ No newline at end of file
+
+    /**
+     * Get limit clause, must be appended after sort clause.
+     *
+     * @param dialect database dialect
+     * @return limit clause
+     */
+    public static String getLimitClause(DatabaseDialect dialect) {
+        return getLimitClause(dialect, getOffsetLimitClause(dialect));
+    }
+
+    /**
+     * Get limit clause, must be appended after sort clause.
+     *
+     * @param dialect           database dialect
+     * @param offsetLimitClause clause created by {@link #getOffsetLimitClause(DatabaseDialect)}
+     *                          or {@link #getFetchFirstClause(DatabaseDialect, String)}
+     * @return limit clause
+     */
+    public static String getLimitClause(DatabaseDialect dialect, String offsetLimitClause) {
+        return getLimitClause(dialect, offsetLimitClause, true);
+    }
+
+    /**
+     * Get limit clause, must be appended after sort clause.
+     *
+     * @param dialect           database dialect
+     * @param offsetLimitClause clause created by {@link #getOffsetLimitClause(DatabaseDialect)}
+     *                          or {@link #getFetchFirstClause(DatabaseDialect, String)}
+     * @param orderBy           whether sort clause is appended before, such as false for exists statement.
+     * @return limit clause
+     */
+    public static String getLimitClause(DatabaseDialect dialect, String offsetLimitClause, boolean orderBy) {
+        if (dialect == DatabaseDialect.SQLSERVER && !orderBy) {
+            // sorts of dynamic query are not rendered, OFFSET FETCH of sql server requires ORDER BY.
+            return " ORDER BY (SELECT NULL)" + offsetLimitClause;
+        }
+        if (dialect == DatabaseDialect.SQLSERVER) {
+            // OFFSET FETCH of sql server requires ORDER BY.
+            String sortExpression = String.format("%s.%s", MapperConstants.DYNAMIC_QUERY_PARAMS, MapperConstants.SORT_EXPRESSION);
+            return String.format("<if test=\"%s == null or %s == ''\">ORDER BY (SELECT NULL)</if>",
+                    sortExpression, sortExpression) + offsetLimitClause;
+        }
+
+        return offsetLimitClause;
+    }
+
+    /**
+     * Get offset and limit part of limit clause, no xml, sql server also needs ORDER BY before it.
+     *
+     * @param dialect database dialect
+     * @return offset and limit clause
+     */
+    public static String getOffsetLimitClause(DatabaseDialect dialect) {
+        if (dialect == DatabaseDialect.SQLSERVER) {
+            return String.format(" OFFSET #{%s} ROWS FETCH NEXT #{%s} ROWS ONLY", MapperConstants.OFFSET, MapperConstants.LIMIT);
+        }
+
+        return String.format(" LIMIT #{%s} OFFSET #{%s}", MapperConstants.LIMIT, MapperConstants.OFFSET);
+    }
+
+    /**
+     * Get limit part of limit clause without offset, no xml, sql server also needs ORDER BY before it.
+     *
+     * @param dialect database dialect
+     * @param limit   literal or placeholder, such as "1" or "#{limit}"
+     * @return limit clause
+     */
+    public static String getFetchFirstClause(DatabaseDialect dialect, String limit) {
+        if (dialect == DatabaseDialect.SQLSERVER) {
+            return String.format(" OFFSET 0 ROWS FETCH NEXT %s ROWS ONLY", limit);
+        }
+
+        return String.format(" LIMIT %s", limit);
+    }
+}
@@ -0,0 +1,200 @@
+package com.github.wz2cool.dynamic.mybatis.mapper.helper;
+
+import com.github.wz2cool.dynamic.mybatis.mapper.dialect.DatabaseDialect;
+import tk.mybatis.mapper.entity.EntityColumn;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Build insert or update in one statement by dialect.
+ *
+ * @author Frank
+ */
+public class UpsertSqlHelper {
+    private static final String SEPARATOR = ", ";
+
+    private UpsertSqlHelper() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Get upsert sql.
+     *
+     * @param dialect    database dialect, ANSI "MERGE" is used if unknown.
+     * @param tableName  table name
+     * @param columns    columns of entity, insertable columns are inserted, updatable columns (not key) are updated.
+     * @param keys       key columns of conflict, such as primary key columns of entity.
+     * @param entityName name of record param, such as "record"
+     * @return upsert sql
+     */
+    public static String getUpsertSql(final DatabaseDialect dialect,
+                                      final String tableName,
+                                      final Collection<EntityColumn> columns,
+                                      final Collection<EntityColumn> keys,
+                                      final String entityName) {
+        List<EntityColumn> insertColumns = new ArrayList<>();
+        List<EntityColumn> keyColumns = new ArrayList<>(keys);
+        List<EntityColumn> updateColumns = new ArrayList<>();
+        for (EntityColumn column : columns) {
+            if (column.isInsertable()) {
+                insertColumns.add(column);
+            }
+            if (!keyColumns.contains(column) && column.isUpdatable()) {
+                updateColumns.add(column);
+            }
+        }
+        if (insertColumns.isEmpty() || keyColumns.isEmpty()) {
+            throw new UnsupportedOperationException(
+                    String.format("upsert of table \"%s\" needs insertable columns and key columns", tableName));
+        }
+
+        switch (dialect) {
+            case POSTGRESQL:
+                return getOnConflictSql(tableName, insertColumns, keyColumns, updateColumns, entityName);
+            case MYSQL:
+                return getOnDuplicateKeySql(tableName, insertColumns, keyColumns, updateColumns, entityName);
+            case H2:
+                return getMergeKeySql(tableName, insertColumns, keyColumns, updateColumns, entityName);
+            default:
+                return getMergeSql(tableName, insertColumns, keyColumns, updateColumns, entityName);
+        }
+    }
+
+    private static String getOnConflictSql(final String tableName,
+                                           final List<EntityColumn> insertColumns,
+                                           final List<EntityColumn> keyColumns,
+                                           final List<EntityColumn> updateColumns,
+                                           final String entityName) {
+        StringBuilder sql = appendInsert(new StringBuilder(), tableName, insertColumns, entityName);
+        sql.append(" ON CONFLICT (");
+        appendColumns(sql, keyColumns, "");
+        sql.append(')');
+        if (updateColumns.isEmpty()) {
+            return sql.append(" DO NOTHING").toString();
+        }
+
+        sql.append(" DO UPDATE SET ");
+        for (int i = 0; i < updateColumns.size(); i++) {
+            String column = updateColumns.get(i).getColumn();
+            sql.append(i == 0 ? "" : SEPARATOR).append(column).append(" = EXCLUDED.").append(column);
+        }
+        return sql.toString();
+    }
+
+    private static String getOnDuplicateKeySql(final String tableName,
+                                               final List<EntityColumn> insertColumns,
+                                               final List<EntityColumn> keyColumns,
+                                               final List<EntityColumn> updateColumns,
+                                               final String entityName) {
+        StringBuilder sql = appendInsert(new StringBuilder(), tableName, insertColumns, entityName);
+        sql.append(" ON DUPLICATE KEY UPDATE ");
+        // assign key to itself if nothing to update, so that duplicated row is ignored.
+        List<EntityColumn> useUpdateColumns = updateColumns.isEmpty() ? keyColumns.subList(0, 1) : updateColumns;
+        for (int i = 0; i < useUpdateColumns.size(); i++) {
+            String column = useUpdateColumns.get(i).getColumn();
+            sql.append(i == 0 ? "" : SEPARATOR).append(column).append(" = VALUES(").append(column).append(')');
+        }
+        return sql.toString();
+    }
+
+    /**
+     * h2 (1.4.196) has no ANSI "MERGE ... USING", "MERGE ... KEY" writes all listed columns,
+     * so columns which should not be updated select their current value if row exists.
+     */
+    private static String getMergeKeySql(final String tableName,
+                                         final List<EntityColumn> insertColumns,
+                                         final List<EntityColumn> keyColumns,
+                                         final List<EntityColumn> updateColumns,
+                                         final String entityName) {
+        StringBuilder keyCondition = new StringBuilder();
+        for (int i = 0; i < keyColumns.size(); i++) {
+            EntityColumn column = keyColumns.get(i);
+            keyCondition.append(i == 0 ? "" : " AND ")
+                    .append(column.getColumn()).append(" = ").append(column.getColumnHolder(entityName));
+        }
+
+        StringBuilder sql = new StringBuilder("MERGE INTO ").append(tableName).append(" (");
+        appendColumns(sql, insertColumns, "");
+        sql.append(") KEY (");
+        appendColumns(sql, keyColumns, "");
+        sql.append(") SELECT ");
+        for (int i = 0; i < insertColumns.size(); i++) {
+            EntityColumn column = insertColumns.get(i);
+            sql.append(i == 0 ? "" : SEPARATOR);
+            if (keyColumns.contains(column) || updateColumns.contains(column)) {
+                sql.append(column.getColumnHolder(entityName));
+            } else {
+                sql.append("CASE WHEN EXISTS (SELECT 1 FROM ").append(tableName).append(" WHERE ").append(keyCondition)
+                        .append(") THEN (SELECT ").append(column.getColumn()).append(" FROM ").append(tableName)
+                        .append(" WHERE ").append(keyCondition).append(") ELSE ")
+                        .append(column.getColumnHolder(entityName)).append(" END");
+            }
+        }
+        return sql.toString();
+    }
+
+    private static String getMergeSql(final String tableName,
+                                      final List<EntityColumn> insertColumns,
+                                      final List<EntityColumn> keyColumns,
+                                      final List<EntityColumn> updateColumns,
+                                      final String entityName) {
+        StringBuilder sql = new StringBuilder("MERGE INTO ").append(tableName).append(" AS target USING (VALUES (");
+        appendValues(sql, insertColumns, entityName);
+        sql.append(")) AS source (");
+        appendColumns(sql, insertColumns, "");
+        sql.append(") ON ");
+        appendKeyCondition(sql, keyColumns);
+        appendMergeActions(sql, insertColumns, updateColumns);
+        // sql server requires MERGE to be terminated by semicolon.
+        return sql.append(';').toString();
+    }
+
+    private static void appendKeyCondition(final StringBuilder sql, final List<EntityColumn> keyColumns) {
+        for (int i = 0; i < keyColumns.size(); i++) {
+            String column = keyColumns.get(i).getColumn();
+            sql.append(i == 0 ? "" : " AND ").append("target.").append(column).append(" = source.").append(column);
+        }
+    }
+
+    private static void appendMergeActions(final StringBuilder sql,
+                                           final List<EntityColumn> insertColumns,
+                                           final List<EntityColumn> updateColumns) {
+        if (!updateColumns.isEmpty()) {
+            sql.append(" WHEN MATCHED THEN UPDATE SET ");
+            for (int i = 0; i < updateColumns.size(); i++) {
+                String column = updateColumns.get(i).getColumn();
+                sql.append(i == 0 ? "" : SEPARATOR).append(column).append(" = source.").append(column);
+            }
+        }
+        sql.append(" WHEN NOT MATCHED THEN INSERT (");
+        appendColumns(sql, insertColumns, "");
+        sql.append(") VALUES (");
+        appendColumns(sql, insertColumns, "source.");
+        sql.append(')');
+    }
+
+    private static StringBuilder appendInsert(final StringBuilder sql,
+                                              final String tableName,
+                                              final List<EntityColumn> insertColumns,
+                                              final String entityName) {
+        sql.append("INSERT INTO ").append(tableName).append(" (");
+        appendColumns(sql, insertColumns, "");
+        sql.append(") VALUES (");
+        appendValues(sql, insertColumns, entityName);
+        return sql.append(')');
+    }
+
+    private static void appendColumns(final StringBuilder sql, final List<EntityColumn> columns, final String prefix) {
+        for (int i = 0; i < columns.size(); i++) {
+            sql.append(i == 0 ? "" : SEPARATOR).append(prefix).append(columns.get(i).getColumn());
+        }
+    }
+
+    private static void appendValues(final StringBuilder sql, final List<EntityColumn> columns, final String entityName) {
+        for (int i = 0; i < columns.size(); i++) {
+            sql.append(i == 0 ? "" : SEPARATOR).append(columns.get(i).getColumnHolder(entityName));
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.github.wz2cool.dynamic.mybatis.mapper.interceptor;
+
+import com.github.wz2cool.dynamic.BaseFilterDescriptor;
+import com.github.wz2cool.dynamic.DynamicQuery;
+import com.github.wz2cool.dynamic.mybatis.FilterOptimizer;
+import com.github.wz2cool.dynamic.mybatis.mapper.constant.MapperConstants;
+import org.apache.ibatis.binding.MapperMethod;
+import org.apache.ibatis.cache.CacheKey;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ResultMap;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Plugin;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Return empty result of dynamic query mapper without database round trip
+ * if filters of dynamic query are always false (such as "IN" nothing).
+ * Skipped if PageHelper page is started, because PageHelper clears its page after query.
+ * <p>
+ * Filters are optimized only once per execution, optimized filters are passed to sql source
+ * by {@link MapperConstants#OPTIMIZED_FILTERS} of parameter map during execution.
+ * <p>
+ * Register it as mybatis plugin, such as a spring bean of mybatis spring boot starter,
+ * always false filters are still rendered as "1 = 0" and sent to database if it is not registered.
+ *
+ * @author Frank
+ */
+@Intercepts({
+        @Signature(type = Executor.class, method = "query",
+                args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class}),
+        @Signature(type = Executor.class, method = "query",
+                args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class, CacheKey.class, BoundSql.class}),
+        @Signature(type = Executor.class, method = "queryCursor",
+                args = {MappedStatement.class, Object.class, RowBounds.class}),
+        @Signature(type = Executor.class, method = "update", args = {MappedStatement.class, Object.class})
+})
+public class EmptyQueryInterceptor implements Interceptor {
+    private static final Set<String> MAPPED_STATEMENT_IDS = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Register mapped statement of dynamic query mapper, only registered statements are intercepted.
+     *
+     * @param ms mapped statement, parameter must contain {@link MapperConstants#DYNAMIC_QUERY}.
+     */
+    public static void registerStatement(final MappedStatement ms) {
+        MAPPED_STATEMENT_IDS.add(ms.getId());
+    }
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        Object[] args = invocation.getArgs();
+        MappedStatement ms = (MappedStatement) args[0];
+        DynamicQuery dynamicQuery = InterceptorHelper.getDynamicQuery(args[1]);
+        if (!MAPPED_STATEMENT_IDS.contains(ms.getId()) || dynamicQuery == null) {
+            return invocation.proceed();
+        }
+
+        BaseFilterDescriptor[] optimizedFilters = FilterOptimizer.optimize(dynamicQuery);
+        if (FilterOptimizer.isOptimizedAlwaysFalse(optimizedFilters) && !InterceptorHelper.isPageStarted()) {
+            if ("queryCursor".equals(invocation.getMethod().getName())) {
+                return new EmptyCursor<>();
+            }
+            return ms.getSqlCommandType() == SqlCommandType.SELECT ? getEmptyResult(ms) : 0;
+        }
+        if (!(args[1] instanceof MapperMethod.ParamMap)) {
+            return invocation.proceed();
+        }
+
+        // sql source renders optimized filters of this execution instead of optimizing again.
+        Map<String, Object> paramMap = (MapperMethod.ParamMap<Object>) args[1];
+        paramMap.put(MapperConstants.OPTIMIZED_FILTERS, optimizedFilters);
+        try {
+            return invocation.proceed();
+        } finally {
+            paramMap.remove(MapperConstants.OPTIMIZED_FILTERS);
+        }
+    }
+
+    /**
+     * count statement returns one row of 0, others return no row.
+     */
+    private static List<Object> getEmptyResult(final MappedStatement ms) {
+        List<ResultMap> resultMaps = ms.getResultMaps();
+        Class<?> resultType = resultMaps.isEmpty() ? null : resultMaps.get(0).getType();
+        if (resultType == Integer.class || resultType == int.class) {
+            return Collections.singletonList(0);
+        }
+        if (resultType == Long.class || resultType == long.class) {
+            return Collections.singletonList(0L);
+        }
+        return Collections.emptyList();
+    }
+
+    private static class EmptyCursor<T> implements Cursor<T> {
+        @Override
+        public boolean isOpen() {
+            return false;
+        }
+
+        @Override
+        public boolean isConsumed() {
+            return true;
+        }
+
+        @Override
+        public int getCurrentIndex() {
+            return -1;
+        }
+
+        @Override
+        public Iterator<T> iterator() {
+            return Collections.emptyIterator();
+        }
+
+        @Override
+        public void close() {
+            // nothing to close.
+        }
+    }
+
+    @Override
+    public Object plugin(Object target) {
+        return target instanceof Executor ? Plugin.wrap(target, this) : target;
+    }
+
+    @Override
+    public void setProperties(Properties properties) {
+        // no properties.
+    }
+}
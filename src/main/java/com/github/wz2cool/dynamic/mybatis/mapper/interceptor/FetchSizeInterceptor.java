@@ -0,0 +1,71 @@
+package com.github.wz2cool.dynamic.mybatis.mapper.interceptor;
+
+import com.github.wz2cool.dynamic.mybatis.mapper.constant.MapperConstants;
+import org.apache.ibatis.executor.statement.StatementHandler;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Plugin;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.session.Configuration;
+
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Set fetch size of statement by "fetchSize" param of dynamic query mapper,
+ * mybatis only support fetch size per mapped statement.
+ * <p>
+ * Register it as mybatis plugin, such as a spring bean of mybatis spring boot starter,
+ * "streamByDynamicQuery" fails if it is not registered, instead of loading all rows silently.
+ *
+ * @author Frank
+ */
+@Intercepts(@Signature(type = StatementHandler.class, method = "prepare", args = {Connection.class, Integer.class}))
+public class FetchSizeInterceptor implements Interceptor {
+
+    /**
+     * Check if interceptor is registered to configuration.
+     *
+     * @param configuration mybatis configuration
+     * @throws IllegalStateException if interceptor is not registered.
+     */
+    public static void checkRegistered(final Configuration configuration) {
+        for (Interceptor interceptor : configuration.getInterceptors()) {
+            if (interceptor instanceof FetchSizeInterceptor) {
+                return;
+            }
+        }
+        throw new IllegalStateException(
+                "fetchSize of dynamic query mapper needs FetchSizeInterceptor registered as mybatis plugin");
+    }
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        Object result = invocation.proceed();
+        StatementHandler statementHandler = (StatementHandler) invocation.getTarget();
+        Object parameterObject = statementHandler.getParameterHandler().getParameterObject();
+        if (result instanceof Statement && parameterObject instanceof Map) {
+            Map paramMap = (Map) parameterObject;
+            if (paramMap.containsKey(MapperConstants.DYNAMIC_QUERY) && paramMap.containsKey(MapperConstants.FETCH_SIZE)) {
+                Object fetchSize = paramMap.get(MapperConstants.FETCH_SIZE);
+                if (fetchSize instanceof Integer) {
+                    ((Statement) result).setFetchSize((Integer) fetchSize);
+                }
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public Object plugin(Object target) {
+        return target instanceof StatementHandler ? Plugin.wrap(target, this) : target;
+    }
+
+    @Override
+    public void setProperties(Properties properties) {
+        // no properties.
+    }
+}
@@ -0,0 +1,51 @@
+package com.github.wz2cool.dynamic.mybatis.mapper.interceptor;
+
+import com.github.wz2cool.dynamic.DynamicQuery;
+import com.github.wz2cool.dynamic.mybatis.mapper.constant.MapperConstants;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+
+/**
+ * @author Frank
+ */
+class InterceptorHelper {
+    private static final Method GET_LOCAL_PAGE_METHOD = getLocalPageMethod();
+
+    private InterceptorHelper() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Get dynamic query from parameter of dynamic query mapper.
+     *
+     * @param parameterObject parameter object of mapped statement
+     * @return dynamic query, null if not found.
+     */
+    static DynamicQuery getDynamicQuery(final Object parameterObject) {
+        if (!(parameterObject instanceof Map)) {
+            return null;
+        }
+        Map paramMap = (Map) parameterObject;
+        Object dynamicQuery = paramMap.containsKey(MapperConstants.DYNAMIC_QUERY)
+                ? paramMap.get(MapperConstants.DYNAMIC_QUERY) : null;
+        return dynamicQuery instanceof DynamicQuery ? (DynamicQuery) dynamicQuery : null;
+    }
+
+    /**
+     * Check if PageHelper page is started, PageHelper clears its page only after query.
+     *
+     * @return true if PageHelper page is started.
+     */
+    static boolean isPageStarted() throws ReflectiveOperationException {
+        return GET_LOCAL_PAGE_METHOD != null && GET_LOCAL_PAGE_METHOD.invoke(null) != null;
+    }
+
+    private static Method getLocalPageMethod() {
+        try {
+            return Class.forName("com.github.pagehelper.page.PageMethod").getMethod("getLocalPage");
+        } catch (ClassNotFoundException | NoSuchMethodException e) {
+            return null;
+        }
+    }
+}
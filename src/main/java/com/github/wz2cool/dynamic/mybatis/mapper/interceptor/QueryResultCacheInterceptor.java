@@ -0,0 +1,253 @@
+package com.github.wz2cool.dynamic.mybatis.mapper.interceptor;
+
+import com.github.wz2cool.dynamic.DynamicQuery;
+import com.github.wz2cool.dynamic.FrozenDynamicQuery;
+import org.apache.ibatis.cache.CacheKey;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Plugin;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+import tk.mybatis.mapper.mapperhelper.EntityHelper;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Opt-in cache of "selectByDynamicQuery" and "selectCountByDynamicQuery" results,
+ * keyed by mapped statement, table and fingerprint of dynamic query, bounded by size and time to live.
+ * <p>
+ * Cached results of a table are invalidated when any statement (such as "updateByDynamicQuery",
+ * "deleteByDynamicQuery" or insert/update methods of base mapper) of a dynamic query mapper of that table runs,
+ * and again when the transaction ends, queries of tables written by current transaction skip the cache.
+ * Writes from other mappers or outside mybatis are not seen, so only use it for tables which rarely change,
+ * rows in cached lists are shared and should not be modified.
+ * <p>
+ * Register it as mybatis plugin, properties: "maxSize" (default 1024), "ttlMillis" (default 60000),
+ * entries are kept in lru segments, each segment keeps at most 1/16 of max size.
+ *
+ * @author Frank
+ */
+@Intercepts({
+        @Signature(type = Executor.class, method = "query",
+                args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class}),
+        @Signature(type = Executor.class, method = "query",
+                args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class, CacheKey.class, BoundSql.class}),
+        @Signature(type = Executor.class, method = "update", args = {MappedStatement.class, Object.class}),
+        @Signature(type = Executor.class, method = "commit", args = {boolean.class}),
+        @Signature(type = Executor.class, method = "rollback", args = {boolean.class}),
+        @Signature(type = Executor.class, method = "close", args = {boolean.class})
+})
+public class QueryResultCacheInterceptor implements Interceptor {
+    private static final int DEFAULT_MAX_SIZE = 1024;
+    private static final int SEGMENT_COUNT = 16;
+    private static final long DEFAULT_TTL_MILLIS = 60_000L;
+    private static final Set<String> CACHEABLE_METHODS =
+            new HashSet<>(Arrays.asList("selectByDynamicQuery", "selectCountByDynamicQuery"));
+    /**
+     * mapper namespace -&gt; table name, registered while building statements of dynamic query mapper.
+     */
+    private static final Map<String, String> NAMESPACE_TABLES = new ConcurrentHashMap<>();
+
+    private volatile int maxSize;
+    private volatile long ttlMillis;
+    /**
+     * version is part of cache key, invalidating a table only increases its version,
+     * old entries are evicted by size or time.
+     */
+    private final Map<String, AtomicLong> tableVersions = new ConcurrentHashMap<>();
+    private final Map<Executor, Set<String>> writtenTables = Collections.synchronizedMap(new WeakHashMap<>());
+    /**
+     * lru segments selected by hash of key, so that lookups of different keys do not wait for one lock.
+     */
+    private final CacheSegment[] segments = new CacheSegment[SEGMENT_COUNT];
+
+    public QueryResultCacheInterceptor() {
+        this(DEFAULT_MAX_SIZE, DEFAULT_TTL_MILLIS);
+    }
+
+    public QueryResultCacheInterceptor(int maxSize, long ttlMillis) {
+        this.maxSize = maxSize;
+        this.ttlMillis = ttlMillis;
+        for (int i = 0; i < segments.length; i++) {
+            segments[i] = new CacheSegment();
+        }
+    }
+
+    /**
+     * Register table of dynamic query mapper.
+     *
+     * @param ms          any mapped statement of mapper
+     * @param entityClass entity class of mapper
+     */
+    public static void registerTable(final MappedStatement ms, final Class<?> entityClass) {
+        NAMESPACE_TABLES.putIfAbsent(getNamespace(ms), EntityHelper.getEntityTable(entityClass).getName());
+    }
+
+    /**
+     * Invalidate all cached results.
+     */
+    public void clear() {
+        for (CacheSegment segment : segments) {
+            synchronized (segment) {
+                segment.clear();
+            }
+        }
+    }
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        String method = invocation.getMethod().getName();
+        if ("query".equals(method)) {
+            return query(invocation);
+        }
+        if ("update".equals(method)) {
+            return update(invocation);
+        }
+
+        // commit, rollback or close.
+        Executor executor = (Executor) invocation.getTarget();
+        try {
+            return invocation.proceed();
+        } finally {
+            Set<String> tables = writtenTables.remove(executor);
+            if (tables != null) {
+                tables.forEach(this::invalidate);
+            }
+        }
+    }
+
+    private Object query(final Invocation invocation) throws Throwable {
+        Object[] args = invocation.getArgs();
+        MappedStatement ms = (MappedStatement) args[0];
+        String table = NAMESPACE_TABLES.get(getNamespace(ms));
+        DynamicQuery dynamicQuery = InterceptorHelper.getDynamicQuery(args[1]);
+        if (table == null || dynamicQuery == null
+                || !CACHEABLE_METHODS.contains(ms.getId().substring(ms.getId().lastIndexOf('.') + 1))
+                || args[2] != RowBounds.DEFAULT || args[3] != null
+                || isWritten((Executor) invocation.getTarget(), table)
+                || InterceptorHelper.isPageStarted()) {
+            return invocation.proceed();
+        }
+
+        // frozen query returns itself, fingerprint is computed only once.
+        FrozenDynamicQuery frozenQuery = dynamicQuery.freeze();
+        if (!frozenQuery.hasExactFingerprint()) {
+            // values of unknown types may collide in fingerprint.
+            return invocation.proceed();
+        }
+        String key = ms.getId() + "#" + getTableVersion(table).get() + "#" + frozenQuery.getFingerprint();
+        CacheSegment segment = getSegment(key);
+        long now = System.currentTimeMillis();
+        CacheEntry cachedEntry;
+        synchronized (segment) {
+            cachedEntry = segment.get(key);
+        }
+        if (cachedEntry != null && cachedEntry.expireTime > now) {
+            return new ArrayList<>(cachedEntry.result);
+        }
+
+        Object result = invocation.proceed();
+        if (result instanceof List) {
+            CacheEntry entry = new CacheEntry(new ArrayList<>((List<?>) result), now + ttlMillis);
+            synchronized (segment) {
+                segment.put(key, entry);
+            }
+        }
+        return result;
+    }
+
+    private CacheSegment getSegment(final String key) {
+        int hash = key.hashCode();
+        return segments[(hash ^ (hash >>> 16)) & (SEGMENT_COUNT - 1)];
+    }
+
+    private Object update(final Invocation invocation) throws Throwable {
+        MappedStatement ms = (MappedStatement) invocation.getArgs()[0];
+        String table = NAMESPACE_TABLES.get(getNamespace(ms));
+        if (table == null) {
+            return invocation.proceed();
+        }
+
+        Executor executor = (Executor) invocation.getTarget();
+        writtenTables.computeIfAbsent(executor, key -> Collections.newSetFromMap(new ConcurrentHashMap<>())).add(table);
+        invalidate(table);
+        return invocation.proceed();
+    }
+
+    private boolean isWritten(final Executor executor, final String table) {
+        Set<String> tables = writtenTables.get(executor);
+        return tables != null && tables.contains(table);
+    }
+
+    private void invalidate(final String table) {
+        getTableVersion(table).incrementAndGet();
+    }
+
+    private AtomicLong getTableVersion(final String table) {
+        return tableVersions.computeIfAbsent(table, key -> new AtomicLong());
+    }
+
+    private static String getNamespace(final MappedStatement ms) {
+        String id = ms.getId();
+        return id.substring(0, Math.max(id.lastIndexOf('.'), 0));
+    }
+
+    @Override
+    public Object plugin(Object target) {
+        return target instanceof Executor ? Plugin.wrap(target, this) : target;
+    }
+
+    @Override
+    public void setProperties(Properties properties) {
+        String maxSizeProperty = properties.getProperty("maxSize");
+        if (maxSizeProperty != null) {
+            this.maxSize = Integer.parseInt(maxSizeProperty);
+        }
+        String ttlMillisProperty = properties.getProperty("ttlMillis");
+        if (ttlMillisProperty != null) {
+            this.ttlMillis = Long.parseLong(ttlMillisProperty);
+        }
+    }
+
+    /**
+     * lru map of one segment, guarded by itself.
+     */
+    private class CacheSegment extends LinkedHashMap<String, CacheEntry> {
+        private static final long serialVersionUID = -1735128400271306458L;
+
+        private CacheSegment() {
+            super(16, 0.75f, true);
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CacheEntry> eldest) {
+            return size() > (maxSize + SEGMENT_COUNT - 1) / SEGMENT_COUNT;
+        }
+    }
+
+    private static class CacheEntry {
+        private final List<?> result;
+        private final long expireTime;
+
+        private CacheEntry(List<?> result, long expireTime) {
+            this.result = result;
+            this.expireTime = expireTime;
+        }
+    }
+}
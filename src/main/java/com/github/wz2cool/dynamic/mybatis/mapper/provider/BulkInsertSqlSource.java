@@ -0,0 +1,86 @@
+package com.github.wz2cool.dynamic.mybatis.mapper.provider;
+
+import com.github.wz2cool.dynamic.mybatis.mapper.constant.MapperConstants;
+import org.apache.ibatis.builder.SqlSourceBuilder;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.SqlSource;
+import org.apache.ibatis.session.Configuration;
+import tk.mybatis.mapper.entity.EntityColumn;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Build multi-row insert sql in java, no xml "foreach" per call.
+ * only sql of full chunk is parsed once and reused, the last chunk of other size is parsed per call,
+ * so that memory of cached sql is linear to chunk size.
+ *
+ * @author Frank
+ */
+class BulkInsertSqlSource implements SqlSource {
+    private final SqlSourceBuilder sqlSourceBuilder;
+    private final String insertHead;
+    private final List<EntityColumn> columns;
+    private final int chunkRows;
+    private volatile SqlSource chunkSqlSource;
+
+    /**
+     * Create sql source.
+     *
+     * @param configuration configuration
+     * @param insertHead    such as "INSERT INTO product (a, b) VALUES "
+     * @param columns       inserted columns, same order as insert head.
+     * @param chunkRows     rows of full chunk, sql of this row count is cached.
+     */
+    BulkInsertSqlSource(Configuration configuration, String insertHead, List<EntityColumn> columns, int chunkRows) {
+        this.sqlSourceBuilder = new SqlSourceBuilder(configuration);
+        this.insertHead = insertHead;
+        this.columns = columns;
+        this.chunkRows = chunkRows;
+    }
+
+    @Override
+    public BoundSql getBoundSql(Object parameterObject) {
+        List<?> records = (List<?>) ((Map) parameterObject).get(MapperConstants.RECORDS);
+        if (records == null || records.isEmpty()) {
+            throw new IllegalArgumentException("records can not be empty");
+        }
+
+        int rowCount = records.size();
+        return getSqlSource(rowCount).getBoundSql(parameterObject);
+    }
+
+    private SqlSource getSqlSource(int rowCount) {
+        if (rowCount != chunkRows) {
+            return createSqlSource(rowCount);
+        }
+        SqlSource sqlSource = chunkSqlSource;
+        if (sqlSource == null) {
+            // parsed twice at worst, same result.
+            sqlSource = createSqlSource(rowCount);
+            chunkSqlSource = sqlSource;
+        }
+        return sqlSource;
+    }
+
+    private SqlSource createSqlSource(int rowCount) {
+        StringBuilder sql = new StringBuilder(insertHead);
+        for (int i = 0; i < rowCount; i++) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            String entityName = MapperConstants.RECORDS + "[" + i + "]";
+            sql.append('(');
+            for (int j = 0; j < columns.size(); j++) {
+                if (j > 0) {
+                    sql.append(", ");
+                }
+                sql.append(columns.get(j).getColumnHolder(entityName));
+            }
+            sql.append(')');
+        }
+        return sqlSourceBuilder.parse(sql.toString(), HashMap.class, Collections.emptyMap());
+    }
+}
@@ -2,65 +2,419 @@ package com.github.wz2cool.dynamic.mybatis.mapper.provider;
 
 import com.github.wz2cool.dynamic.BaseFilterDescriptor;
 import com.github.wz2cool.dynamic.DynamicQuery;
+import com.github.wz2cool.dynamic.DynamicUpdate;
+import com.github.wz2cool.dynamic.FrozenDynamicQuery;
 import com.github.wz2cool.dynamic.BaseSortDescriptor;
+import com.github.wz2cool.dynamic.mybatis.FilterOptimizer;
+import com.github.wz2cool.dynamic.mybatis.InExpressionStrategy;
 import com.github.wz2cool.dynamic.mybatis.ParamExpression;
+import com.github.wz2cool.dynamic.mybatis.ParamPlaceholderStrategy;
 import com.github.wz2cool.dynamic.mybatis.QueryHelper;
 import com.github.wz2cool.dynamic.mybatis.mapper.constant.MapperConstants;
+import com.github.wz2cool.dynamic.mybatis.mapper.dialect.DatabaseDialect;
+import com.github.wz2cool.dynamic.mybatis.mapper.dialect.DialectHelper;
+import com.github.wz2cool.dynamic.mybatis.mapper.handler.ArrayParamTypeHandler;
+import com.github.wz2cool.dynamic.mybatis.mapper.handler.PageTotalTypeHandler;
 import com.github.wz2cool.dynamic.mybatis.mapper.helper.DynamicQuerySqlHelper;
 import com.github.wz2cool.dynamic.mybatis.mapper.helper.BaseEnhancedMapperTemplate;
+import com.github.wz2cool.dynamic.mybatis.mapper.helper.UpsertSqlHelper;
+import com.github.wz2cool.dynamic.mybatis.mapper.interceptor.EmptyQueryInterceptor;
+import com.github.wz2cool.dynamic.mybatis.mapper.interceptor.FetchSizeInterceptor;
+import com.github.wz2cool.dynamic.mybatis.mapper.interceptor.QueryResultCacheInterceptor;
 import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ResultMap;
+import org.apache.ibatis.mapping.ResultMapping;
+import org.apache.ibatis.mapping.SqlSource;
+import org.apache.ibatis.reflection.SystemMetaObject;
+import org.apache.ibatis.session.Configuration;
+import tk.mybatis.mapper.MapperException;
+import tk.mybatis.mapper.entity.EntityColumn;
+import tk.mybatis.mapper.mapperhelper.EntityHelper;
 import tk.mybatis.mapper.mapperhelper.MapperHelper;
 import tk.mybatis.mapper.mapperhelper.SqlHelper;
 
+import java.security.InvalidParameterException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
 import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * @author Frank
  */
 public class DynamicQueryProvider extends BaseEnhancedMapperTemplate {
-    private static final QueryHelper QUERY_HELPER = new QueryHelper();
+    private static final String PLACEHOLDER_PREFIX = MapperConstants.DYNAMIC_QUERY_PARAMS + ".";
+    private static final String UPDATE_PLACEHOLDER_PREFIX = MapperConstants.DYNAMIC_UPDATE_PARAMS + ".";
+    private static final Map<InExpressionStrategy, QueryHelper> QUERY_HELPERS = new EnumMap<>(InExpressionStrategy.class);
+    private static final Map<FrozenDynamicQuery, Map<String, Map<String, Object>>> FROZEN_QUERY_PARAMS =
+            Collections.synchronizedMap(new WeakHashMap<>());
+
+    static {
+        for (InExpressionStrategy inExpressionStrategy : InExpressionStrategy.values()) {
+            QUERY_HELPERS.put(inExpressionStrategy,
+                    new QueryHelper(ParamPlaceholderStrategy.POSITIONAL, inExpressionStrategy));
+        }
+    }
 
     public DynamicQueryProvider(Class<?> mapperClass, MapperHelper mapperHelper) {
         super(mapperClass, mapperHelper);
     }
 
-    public String selectCountByDynamicQuery(MappedStatement ms) {
+    public void selectCountByDynamicQuery(MappedStatement ms) {
         Class<?> entityClass = getEntityClass(ms);
-        StringBuilder sql = new StringBuilder();
-        sql.append(DynamicQuerySqlHelper.getBindFilterParams(ms.getConfiguration().isMapUnderscoreToCamelCase()));
-        sql.append(SqlHelper.selectCount(entityClass));
-        sql.append(SqlHelper.fromTable(entityClass, tableName(entityClass)));
-        sql.append(DynamicQuerySqlHelper.getWhereClause());
-        return sql.toString();
+        registerInterceptors(ms, entityClass);
+        setDynamicQuerySqlSource(ms, SqlHelper.selectCount(entityClass), false,
+                SqlHelper.fromTable(entityClass, tableName(entityClass)), false, null, false, "");
     }
 
-    public String deleteByDynamicQuery(MappedStatement ms) {
+    public void selectCappedCountByDynamicQuery(MappedStatement ms) {
         Class<?> entityClass = getEntityClass(ms);
-        StringBuilder sql = new StringBuilder();
-        sql.append(DynamicQuerySqlHelper.getBindFilterParams(ms.getConfiguration().isMapUnderscoreToCamelCase()));
-        sql.append(SqlHelper.deleteFromTable(entityClass, tableName(entityClass)));
-        sql.append(DynamicQuerySqlHelper.getWhereClause());
-        return sql.toString();
+        DatabaseDialect dialect = DialectHelper.getDialect(ms.getConfiguration());
+        registerInterceptors(ms, entityClass);
+        // stop scanning after "cap" rows instead of counting all matched rows.
+        setDynamicQuerySqlSource(ms, "SELECT COUNT(*) FROM (SELECT 1 AS capped_row", false,
+                SqlHelper.fromTable(entityClass, tableName(entityClass)), false,
+                DynamicQuerySqlHelper.getFetchFirstClause(dialect, "#{" + MapperConstants.LIMIT + "}"), false,
+                ") capped_rows");
+    }
+
+    public void selectCountEstimateRowsByDynamicQuery(MappedStatement ms) {
+        Class<?> entityClass = getEntityClass(ms);
+        DatabaseDialect dialect = DialectHelper.getDialect(ms.getConfiguration());
+        registerInterceptors(ms, entityClass);
+        // "SELECT 1" instead of "SELECT COUNT(*)", MySQL has no row estimate if count is optimized away.
+        setDynamicQuerySqlSource(ms, getCountEstimateSqlHead(dialect), false,
+                SqlHelper.fromTable(entityClass, tableName(entityClass)), false, null, false, "");
+    }
+
+    public void selectOneIfExistsByDynamicQuery(MappedStatement ms) {
+        Class<?> entityClass = getEntityClass(ms);
+        DatabaseDialect dialect = DialectHelper.getDialect(ms.getConfiguration());
+        registerInterceptors(ms, entityClass);
+        setDynamicQuerySqlSource(ms, "SELECT 1", false,
+                SqlHelper.fromTable(entityClass, tableName(entityClass)), false,
+                DynamicQuerySqlHelper.getFetchFirstClause(dialect, "1"), false, "");
     }
 
-    public String selectByDynamicQuery(MappedStatement ms) {
+    public void deleteByDynamicQuery(MappedStatement ms) {
         Class<?> entityClass = getEntityClass(ms);
+        registerInterceptors(ms, entityClass);
+        setDynamicQuerySqlSource(ms, SqlHelper.deleteFromTable(entityClass, tableName(entityClass)), false,
+                "", false, null, false, "");
+    }
+
+    public void selectByDynamicQuery(MappedStatement ms) {
+        selectByDynamicQuery(ms, null);
+    }
+
+    public void selectRowBoundsByDynamicQuery(MappedStatement ms) {
+        selectByDynamicQuery(ms, null);
+    }
+
+    public void selectLimitByDynamicQuery(MappedStatement ms) {
+        DatabaseDialect dialect = DialectHelper.getDialect(ms.getConfiguration());
+        selectByDynamicQuery(ms, DynamicQuerySqlHelper.getOffsetLimitClause(dialect));
+    }
+
+    public void streamByDynamicQuery(MappedStatement ms) {
+        selectByDynamicQuery(ms, null);
+        Configuration configuration = ms.getConfiguration();
+        SqlSource sqlSource = ms.getSqlSource();
+        setSqlSource(ms, parameterObject -> {
+            FetchSizeInterceptor.checkRegistered(configuration);
+            return sqlSource.getBoundSql(parameterObject);
+        });
+    }
+
+    public void selectPageRowsByDynamicQuery(MappedStatement ms) {
+        DatabaseDialect dialect = DialectHelper.getDialect(ms.getConfiguration());
+        boolean pageTotal = supportsCountOver(dialect);
+        selectByDynamicQuery(ms, DynamicQuerySqlHelper.getOffsetLimitClause(dialect), pageTotal);
+        if (pageTotal) {
+            setPageTotalResultMap(ms);
+        }
+    }
+
+    /**
+     * map total column without property by {@link PageTotalTypeHandler}, so that it is not auto mapped to entity,
+     * such as failing with "autoMappingUnknownColumnBehavior=FAILING".
+     */
+    static void setPageTotalResultMap(MappedStatement ms) {
+        Configuration configuration = ms.getConfiguration();
+        ResultMap entityResultMap = ms.getResultMaps().get(0);
+        List<ResultMapping> resultMappings = new ArrayList<>(entityResultMap.getResultMappings());
+        resultMappings.add(new ResultMapping.Builder(
+                configuration, null, MapperConstants.PAGE_TOTAL_COLUMN, new PageTotalTypeHandler())
+                .javaType(Long.class).build());
+        ResultMap resultMap = new ResultMap.Builder(configuration,
+                ms.getId() + "-" + MapperConstants.PAGE_TOTAL_COLUMN, entityResultMap.getType(), resultMappings,
+                entityResultMap.getAutoMapping()).build();
+        SystemMetaObject.forObject(ms).setValue("resultMaps", Collections.singletonList(resultMap));
+    }
+
+    private void selectByDynamicQuery(MappedStatement ms, String limitClause) {
+        selectByDynamicQuery(ms, limitClause, false);
+    }
+
+    private void selectByDynamicQuery(MappedStatement ms, String limitClause, boolean pageTotal) {
+        Class<?> entityClass = getEntityClass(ms);
+        registerInterceptors(ms, entityClass);
         setResultType(ms, entityClass);
+        setDynamicQuerySqlSource(ms, "SELECT", true,
+                SqlHelper.fromTable(entityClass, tableName(entityClass)), true, limitClause, pageTotal, "");
+    }
+
+    /**
+     * MySQL before 8.0 and H2 before 1.4.198 not support window function.
+     */
+    private static boolean supportsCountOver(DatabaseDialect dialect) {
+        return dialect == DatabaseDialect.POSTGRESQL || dialect == DatabaseDialect.SQLSERVER;
+    }
+
+    private static String getCountEstimateSqlHead(DatabaseDialect dialect) {
+        switch (dialect) {
+            case POSTGRESQL:
+                return "EXPLAIN (FORMAT JSON) SELECT 1";
+            case MYSQL:
+                return "EXPLAIN SELECT 1";
+            default:
+                return "SELECT COUNT(*) AS " + MapperConstants.ESTIMATED_COUNT_COLUMN;
+        }
+    }
+
+    private static void registerInterceptors(MappedStatement ms, Class<?> entityClass) {
+        EmptyQueryInterceptor.registerStatement(ms);
+        QueryResultCacheInterceptor.registerTable(ms, entityClass);
+    }
+
+    /**
+     * Use {@link DynamicQuerySqlSource} to build sql in java,
+     * xml script is only used if table name is dynamic (xml in table name), page total column is not supported in xml.
+     */
+    private void setDynamicQuerySqlSource(MappedStatement ms,
+                                          String sqlHead,
+                                          boolean selectColumns,
+                                          String fromClause,
+                                          boolean orderBy,
+                                          String limitClause,
+                                          boolean pageTotal,
+                                          String sqlTail) {
+        Configuration configuration = ms.getConfiguration();
+        DatabaseDialect dialect = DialectHelper.getDialect(configuration);
+        if (getInExpressionStrategy(dialect) != InExpressionStrategy.PLACEHOLDER) {
+            ArrayParamTypeHandler.register(configuration);
+        }
+
+        if (!isXmlScript(sqlHead) && !isXmlScript(fromClause)) {
+            setSqlSource(ms, new DynamicQuerySqlSource(
+                    configuration, dialect, sqlHead, selectColumns, fromClause, orderBy, limitClause, pageTotal, sqlTail));
+            return;
+        }
+
         StringBuilder sql = new StringBuilder();
-        sql.append(DynamicQuerySqlHelper.getBindFilterParams(ms.getConfiguration().isMapUnderscoreToCamelCase()));
-        sql.append("SELECT");
-        sql.append(String.format("<if test=\"%s.%s\">distinct</if>",
-                MapperConstants.DYNAMIC_QUERY_PARAMS, MapperConstants.DISTINCT));
-        //支持查询指定列
-        sql.append(DynamicQuerySqlHelper.getSelectColumnsClause());
-        sql.append(SqlHelper.fromTable(entityClass, tableName(entityClass)));
+        sql.append(getBindFilterParams(ms));
+        sql.append(sqlHead);
+        if (selectColumns) {
+            sql.append(String.format("<if test=\"%s.%s\">distinct</if>",
+                    MapperConstants.DYNAMIC_QUERY_PARAMS, MapperConstants.DISTINCT));
+            //支持查询指定列
+            sql.append(DynamicQuerySqlHelper.getSelectColumnsClause());
+        }
+        sql.append(fromClause);
         sql.append(DynamicQuerySqlHelper.getWhereClause());
-        sql.append(DynamicQuerySqlHelper.getSortClause());
-        return sql.toString();
+        if (orderBy) {
+            sql.append(DynamicQuerySqlHelper.getSortClause());
+        }
+        if (limitClause != null) {
+            sql.append(DynamicQuerySqlHelper.getLimitClause(dialect, limitClause, orderBy));
+        }
+        sql.append(sqlTail);
+        setSqlSource(ms, createSqlSource(ms, sql.toString()));
+    }
+
+    private static boolean isXmlScript(String sql) {
+        return sql.contains("<") || sql.contains("${");
     }
 
-    public String selectRowBoundsByDynamicQuery(MappedStatement ms) {
-        return selectByDynamicQuery(ms);
+    private String getBindFilterParams(MappedStatement ms) {
+        Configuration configuration = ms.getConfiguration();
+        DatabaseDialect dialect = DialectHelper.getDialect(configuration);
+        if (getInExpressionStrategy(dialect) != InExpressionStrategy.PLACEHOLDER) {
+            ArrayParamTypeHandler.register(configuration);
+        }
+        return DynamicQuerySqlHelper.getBindFilterParams(configuration.isMapUnderscoreToCamelCase(), dialect);
+    }
+
+    private static InExpressionStrategy getInExpressionStrategy(DatabaseDialect dialect) {
+        switch (dialect) {
+            case POSTGRESQL:
+                return InExpressionStrategy.ANY_ARRAY;
+            case H2:
+                return InExpressionStrategy.TABLE_ARRAY;
+            case SQLSERVER:
+                return InExpressionStrategy.JSON_ARRAY;
+            default:
+                return InExpressionStrategy.PLACEHOLDER;
+        }
+    }
+
+    public void bulkInsert(MappedStatement ms) {
+        Class<?> entityClass = getEntityClass(ms);
+        registerInterceptors(ms, entityClass);
+        List<EntityColumn> columns = new ArrayList<>();
+        StringBuilder insertHead = new StringBuilder(SqlHelper.insertIntoTable(entityClass, tableName(entityClass)));
+        insertHead.append('(');
+        for (EntityColumn column : EntityHelper.getColumns(entityClass)) {
+            if (column.isInsertable()) {
+                insertHead.append(columns.isEmpty() ? "" : ", ").append(column.getColumn());
+                columns.add(column);
+            }
+        }
+        insertHead.append(") VALUES ");
+
+        if (!isXmlScript(insertHead.toString())) {
+            Configuration configuration = ms.getConfiguration();
+            int chunkRows = DialectHelper.getInsertChunkSize(DialectHelper.getDialect(configuration), columns.size());
+            setSqlSource(ms, new BulkInsertSqlSource(configuration, insertHead.toString(), columns, chunkRows));
+            return;
+        }
+
+        StringBuilder sql = new StringBuilder(insertHead);
+        sql.append(String.format("<foreach collection=\"%s\" item=\"record\" separator=\",\">", MapperConstants.RECORDS));
+        sql.append('(');
+        for (int i = 0; i < columns.size(); i++) {
+            sql.append(i == 0 ? "" : ", ").append(columns.get(i).getColumnHolder("record"));
+        }
+        sql.append(")</foreach>");
+        setSqlSource(ms, createSqlSource(ms, sql.toString()));
+    }
+
+    public void upsert(MappedStatement ms) {
+        Class<?> entityClass = getEntityClass(ms);
+        registerInterceptors(ms, entityClass);
+        DatabaseDialect dialect = DialectHelper.getDialect(ms.getConfiguration());
+        // tk uses all columns as primary key if entity has no id, conflict of all columns is never a real key.
+        List<EntityColumn> keyColumns = new ArrayList<>();
+        for (EntityColumn column : EntityHelper.getPKColumns(entityClass)) {
+            if (column.isId()) {
+                keyColumns.add(column);
+            }
+        }
+        if (keyColumns.isEmpty()) {
+            // fail on call instead of while building mapper, other methods of mapper still work.
+            String errMsg = String.format(
+                    "entity \"%s\" has no property annotated with @Id, upsert needs @Id to match existing rows",
+                    entityClass.getName());
+            setSqlSource(ms, parameterObject -> {
+                throw new MapperException(errMsg);
+            });
+            return;
+        }
+
+        String sql = UpsertSqlHelper.getUpsertSql(dialect, tableName(entityClass),
+                EntityHelper.getColumns(entityClass), keyColumns, MapperConstants.RECORD);
+        setSqlSource(ms, createSqlSource(ms, sql));
+    }
+
+    public void updateSetByDynamicQuery(MappedStatement ms) {
+        Class<?> entityClass = getEntityClass(ms);
+        registerInterceptors(ms, entityClass);
+        setDynamicUpdateSqlSource(ms, SqlHelper.updateTable(entityClass, tableName(entityClass)) + "SET ", "", "", "");
+    }
+
+    public void updateSetLimitByDynamicQuery(MappedStatement ms) {
+        Class<?> entityClass = getEntityClass(ms);
+        registerInterceptors(ms, entityClass);
+        DatabaseDialect dialect = DialectHelper.getDialect(ms.getConfiguration());
+        String tableName = tableName(entityClass);
+        String limit = "#{" + MapperConstants.LIMIT + "}";
+        switch (dialect) {
+            case MYSQL:
+            case H2:
+                setDynamicUpdateSqlSource(ms, SqlHelper.updateTable(entityClass, tableName) + "SET ",
+                        "", " LIMIT " + limit, "");
+                return;
+            case SQLSERVER:
+                setDynamicUpdateSqlSource(ms, "UPDATE TOP (" + limit + ") " + tableName + " SET ", "", "", "");
+                return;
+            default:
+                String rowKey = getRowKey(dialect, entityClass);
+                setDynamicUpdateSqlSource(ms, SqlHelper.updateTable(entityClass, tableName) + "SET ",
+                        "WHERE " + rowKey + " IN (SELECT " + rowKey + SqlHelper.fromTable(entityClass, tableName),
+                        DynamicQuerySqlHelper.getFetchFirstClause(dialect, limit), ")");
+        }
+    }
+
+    public void deleteLimitByDynamicQuery(MappedStatement ms) {
+        Class<?> entityClass = getEntityClass(ms);
+        registerInterceptors(ms, entityClass);
+        DatabaseDialect dialect = DialectHelper.getDialect(ms.getConfiguration());
+        String tableName = tableName(entityClass);
+        String limit = "#{" + MapperConstants.LIMIT + "}";
+        switch (dialect) {
+            case MYSQL:
+            case H2:
+                setDynamicQuerySqlSource(ms, SqlHelper.deleteFromTable(entityClass, tableName), false,
+                        "", false, " LIMIT " + limit, false, "");
+                return;
+            case SQLSERVER:
+                setDynamicQuerySqlSource(ms, "DELETE TOP (" + limit + ")", false,
+                        SqlHelper.fromTable(entityClass, tableName), false, null, false, "");
+                return;
+            default:
+                String rowKey = getRowKey(dialect, entityClass);
+                setDynamicQuerySqlSource(ms, "DELETE FROM " + tableName + " WHERE " + rowKey + " IN (SELECT " + rowKey,
+                        false, SqlHelper.fromTable(entityClass, tableName), false,
+                        DynamicQuerySqlHelper.getFetchFirstClause(dialect, limit), false, ")");
+        }
+    }
+
+    /**
+     * key of row in "IN" subquery if "LIMIT" is not supported in update and delete,
+     * physical row id on PostgreSQL, primary key columns on other databases.
+     */
+    private static String getRowKey(DatabaseDialect dialect, Class<?> entityClass) {
+        if (dialect == DatabaseDialect.POSTGRESQL) {
+            return "ctid";
+        }
+
+        List<String> keyColumns = new ArrayList<>();
+        for (EntityColumn column : EntityHelper.getPKColumns(entityClass)) {
+            keyColumns.add(column.getColumn());
+        }
+        String rowKey = String.join(", ", keyColumns);
+        return keyColumns.size() > 1 ? "(" + rowKey + ")" : rowKey;
+    }
+
+    private void setDynamicUpdateSqlSource(MappedStatement ms,
+                                           String updateHead,
+                                           String whereHead,
+                                           String limitClause,
+                                           String whereTail) {
+        Configuration configuration = ms.getConfiguration();
+        DatabaseDialect dialect = DialectHelper.getDialect(configuration);
+        if (!isXmlScript(updateHead) && !isXmlScript(whereHead)) {
+            if (getInExpressionStrategy(dialect) != InExpressionStrategy.PLACEHOLDER) {
+                ArrayParamTypeHandler.register(configuration);
+            }
+            setSqlSource(ms, new DynamicUpdateSqlSource(
+                    configuration, dialect, updateHead, whereHead, limitClause, whereTail));
+            return;
+        }
+
+        StringBuilder sql = new StringBuilder();
+        sql.append(getBindFilterParams(ms));
+        sql.append(String.format("<bind name=\"%s\" value=\"@%s@getDynamicUpdateParamInternal(%s)\"/>",
+                MapperConstants.DYNAMIC_UPDATE_PARAMS, DynamicQueryProvider.class.getName(), MapperConstants.DYNAMIC_UPDATE));
+        sql.append(updateHead);
+        sql.append(String.format("${%s.%s} ", MapperConstants.DYNAMIC_UPDATE_PARAMS, MapperConstants.UPDATE_SET_EXPRESSION));
+        sql.append(whereHead);
+        sql.append(DynamicQuerySqlHelper.getWhereClause());
+        sql.append(limitClause).append(whereTail);
+        setSqlSource(ms, createSqlSource(ms, sql.toString()));
     }
 
     public String updateSelectiveByDynamicQuery(MappedStatement ms) {
@@ -73,8 +427,9 @@ public class DynamicQueryProvider extends BaseEnhancedMapperTemplate {
 
     private String updateByDynamicQuery(MappedStatement ms, boolean noNull) {
         Class<?> entityClass = getEntityClass(ms);
+        registerInterceptors(ms, entityClass);
         StringBuilder sql = new StringBuilder();
-        sql.append(DynamicQuerySqlHelper.getBindFilterParams(ms.getConfiguration().isMapUnderscoreToCamelCase()));
+        sql.append(getBindFilterParams(ms));
         sql.append(SqlHelper.updateTable(entityClass, tableName(entityClass), "example"));
         sql.append(SqlHelper.updateSetColumns(entityClass, "record", noNull, isNotEmpty()));
         sql.append(DynamicQuerySqlHelper.getWhereClause());
@@ -84,30 +439,119 @@ public class DynamicQueryProvider extends BaseEnhancedMapperTemplate {
 
     /// region for xml query
 
+    public static Map<String, Object> getDynamicUpdateParamInternal(final DynamicUpdate dynamicUpdate) {
+        if (dynamicUpdate == null) {
+            throw new IllegalArgumentException("dynamicUpdate can not be null");
+        }
+
+        ParamExpression setExpression = QUERY_HELPERS.get(InExpressionStrategy.PLACEHOLDER).toUpdateSetExpression(
+                dynamicUpdate.getEntityClass(), dynamicUpdate.getUpdates(), UPDATE_PLACEHOLDER_PREFIX);
+        Map<String, Object> paramMap = setExpression.getParamMap();
+        paramMap.put(MapperConstants.UPDATE_SET_EXPRESSION, setExpression.getExpression());
+        return paramMap;
+    }
+
     public static Map<String, Object> getDynamicQueryParamInternal(
             final DynamicQuery dynamicQuery,
             final boolean isMapUnderscoreToCamelCase) {
+        return getDynamicQueryParamInternal(
+                InExpressionStrategy.PLACEHOLDER, dynamicQuery, null, isMapUnderscoreToCamelCase);
+    }
+
+    public static Map<String, Object> getDynamicQueryParamInternal(
+            final DynamicQuery dynamicQuery,
+            final boolean isMapUnderscoreToCamelCase,
+            final String dialectName) {
+        DatabaseDialect dialect = DatabaseDialect.valueOf(dialectName);
+        Map<String, Object> params = getDynamicQueryParamInternal(
+                getInExpressionStrategy(dialect), dynamicQuery, null, isMapUnderscoreToCamelCase);
+        checkBindParameters(params, dialect);
+        return params;
+    }
+
+    /**
+     * Get params of parameter object of statement,
+     * reuse optimized filters of current execution if {@link EmptyQueryInterceptor} has put them.
+     *
+     * @param parameterObject parameter object of statement
+     * @param isMapUnderscoreToCamelCase is map underscore to camel case
+     * @param dialect         database dialect
+     * @return params of dynamic query
+     */
+    static Map<String, Object> getDynamicQueryParamInternal(
+            final Map parameterObject,
+            final boolean isMapUnderscoreToCamelCase,
+            final DatabaseDialect dialect) {
+        DynamicQuery dynamicQuery = (DynamicQuery) parameterObject.get(MapperConstants.DYNAMIC_QUERY);
+        BaseFilterDescriptor[] optimizedFilters = parameterObject.containsKey(MapperConstants.OPTIMIZED_FILTERS)
+                ? (BaseFilterDescriptor[]) parameterObject.get(MapperConstants.OPTIMIZED_FILTERS) : null;
+        Map<String, Object> params = getDynamicQueryParamInternal(
+                getInExpressionStrategy(dialect), dynamicQuery, optimizedFilters, isMapUnderscoreToCamelCase);
+        checkBindParameters(params, dialect);
+        return params;
+    }
+
+    /**
+     * fail before database does, values which can not be bound as array (such as list containing null)
+     * still need one parameter per value.
+     */
+    private static void checkBindParameters(final Map<String, Object> params, final DatabaseDialect dialect) {
+        // where, sort, distinct and select columns are not bind parameters.
+        int bindParameters = params.size() - 4;
+        int maxBindParameters = DialectHelper.getMaxBindParameters(dialect);
+        if (bindParameters > maxBindParameters) {
+            String errMsg = String.format(
+                    "dynamic query needs %d bind parameters, more than %d allowed by %s, use smaller \"IN\" lists",
+                    bindParameters, maxBindParameters, dialect);
+            throw new InvalidParameterException(errMsg);
+        }
+    }
+
+    /**
+     * frozen query can not be changed, so that params are rendered only once,
+     * such as rows and count statements of one page.
+     */
+    private static Map<String, Object> getDynamicQueryParamInternal(
+            final InExpressionStrategy inExpressionStrategy,
+            final DynamicQuery dynamicQuery,
+            final BaseFilterDescriptor[] optimizedFilters,
+            final boolean isMapUnderscoreToCamelCase) {
+        QueryHelper queryHelper = QUERY_HELPERS.get(inExpressionStrategy);
+        if (!(dynamicQuery instanceof FrozenDynamicQuery)) {
+            BaseFilterDescriptor[] filters = optimizedFilters == null
+                    ? FilterOptimizer.optimize(dynamicQuery) : optimizedFilters;
+            return getDynamicQueryParamInternal(queryHelper, dynamicQuery, filters, isMapUnderscoreToCamelCase);
+        }
+
+        String renderKey = inExpressionStrategy.name() + isMapUnderscoreToCamelCase;
+        Map<String, Map<String, Object>> renderedParams = FROZEN_QUERY_PARAMS.computeIfAbsent(
+                (FrozenDynamicQuery) dynamicQuery, key -> new ConcurrentHashMap<>(4));
+        return renderedParams.computeIfAbsent(renderKey, key -> Collections.unmodifiableMap(getDynamicQueryParamInternal(
+                queryHelper, dynamicQuery, FilterOptimizer.optimize(dynamicQuery), isMapUnderscoreToCamelCase)));
+    }
+
+    private static Map<String, Object> getDynamicQueryParamInternal(
+            final QueryHelper queryHelper,
+            final DynamicQuery dynamicQuery,
+            final BaseFilterDescriptor[] filters,
+            final boolean isMapUnderscoreToCamelCase) {
         Class<?> entityClass = dynamicQuery.getEntityClass();
-        BaseFilterDescriptor[] filters = dynamicQuery.getFilters();
         BaseSortDescriptor[] sorts = dynamicQuery.getSorts();
         String[] selectedProperties = dynamicQuery.getSelectedProperties();
         String[] ignoredProperties = dynamicQuery.getIgnoredProperties();
 
-        ParamExpression whereParamExpression = QUERY_HELPER.toWhereExpression(entityClass, filters);
-        String whereExpression = whereParamExpression.getExpression();
+        // placeholders are rendered as "#{dynamicQueryParams.xxx}" directly, keys of param map are "xxx".
+        ParamExpression whereParamExpression =
+                queryHelper.toWhereExpression(entityClass, filters, PLACEHOLDER_PREFIX);
         Map<String, Object> paramMap = whereParamExpression.getParamMap();
-        for (Map.Entry<String, Object> param : paramMap.entrySet()) {
-            String key = param.getKey();
-            String newKey = String.format("%s.%s", MapperConstants.DYNAMIC_QUERY_PARAMS, key);
-            whereExpression = whereExpression.replace(key, newKey);
-        }
-        paramMap.put(MapperConstants.WHERE_EXPRESSION, whereExpression);
+        paramMap.put(MapperConstants.WHERE_EXPRESSION, whereParamExpression.getExpression());
 
-        ParamExpression sortExpression = QUERY_HELPER.toSortExpression(entityClass, sorts);
+        ParamExpression sortExpression = queryHelper.toSortExpression(entityClass, sorts, PLACEHOLDER_PREFIX);
+        paramMap.putAll(sortExpression.getParamMap());
         paramMap.put(MapperConstants.SORT_EXPRESSION, sortExpression.getExpression());
         paramMap.put(MapperConstants.DISTINCT, dynamicQuery.isDistinct());
 
-        String selectColumnExpression = QUERY_HELPER.toSelectColumnsExpression(
+        String selectColumnExpression = queryHelper.toSelectColumnsExpression(
                 entityClass, selectedProperties, ignoredProperties, isMapUnderscoreToCamelCase);
         paramMap.put(MapperConstants.SELECT_COLUMNS_EXPRESSION, selectColumnExpression);
         return paramMap;
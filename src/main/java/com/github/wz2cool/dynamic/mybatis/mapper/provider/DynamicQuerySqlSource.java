@@ -0,0 +1,135 @@
+package com.github.wz2cool.dynamic.mybatis.mapper.provider;
+
+import com.github.wz2cool.dynamic.DynamicQuery;
+import com.github.wz2cool.dynamic.mybatis.mapper.constant.MapperConstants;
+import com.github.wz2cool.dynamic.mybatis.mapper.dialect.DatabaseDialect;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.ibatis.builder.SqlSourceBuilder;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.SqlSource;
+import org.apache.ibatis.session.Configuration;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Build sql of dynamic query statement in java, no xml script, OGNL or "${}" substitution per call.
+ * params are named by position, so that sql of same filters and sorts is same text,
+ * it is parsed once and only values are bound per call.
+ *
+ * @author Frank
+ */
+class DynamicQuerySqlSource implements SqlSource {
+    private static final int MAX_PARSED_SQL_CACHE_SIZE = 256;
+
+    private final Configuration configuration;
+    private final SqlSourceBuilder sqlSourceBuilder;
+    private final DatabaseDialect dialect;
+    private final String sqlHead;
+    private final boolean selectColumns;
+    private final String fromClause;
+    private final boolean orderBy;
+    private final String limitClause;
+    private final boolean pageTotal;
+    private final String sqlTail;
+    private final Map<String, SqlSource> parsedSqlCache = new ConcurrentHashMap<>();
+
+    /**
+     * Create sql source.
+     *
+     * @param configuration configuration
+     * @param dialect       database dialect
+     * @param sqlHead       such as "SELECT", "SELECT COUNT(*)" or "DELETE FROM product"
+     * @param selectColumns append distinct and selected columns of dynamic query after head.
+     * @param fromClause    from clause, empty if head contains table.
+     * @param orderBy       append sorts of dynamic query.
+     * @param limitClause   limit clause using "#{offset}" and "#{limit}", null if no limit.
+     * @param pageTotal     append "COUNT(*) OVER()" column after selected columns if query is not distinct.
+     * @param sqlTail       appended at last, such as alias of derived table, empty if no tail.
+     */
+    DynamicQuerySqlSource(Configuration configuration,
+                          DatabaseDialect dialect,
+                          String sqlHead,
+                          boolean selectColumns,
+                          String fromClause,
+                          boolean orderBy,
+                          String limitClause,
+                          boolean pageTotal,
+                          String sqlTail) {
+        this.configuration = configuration;
+        this.sqlSourceBuilder = new SqlSourceBuilder(configuration);
+        this.dialect = dialect;
+        this.sqlHead = sqlHead;
+        this.selectColumns = selectColumns;
+        this.fromClause = fromClause;
+        this.orderBy = orderBy;
+        this.limitClause = limitClause;
+        this.pageTotal = pageTotal;
+        this.sqlTail = sqlTail;
+    }
+
+    @Override
+    public BoundSql getBoundSql(Object parameterObject) {
+        DynamicQuery dynamicQuery = (DynamicQuery) ((Map) parameterObject).get(MapperConstants.DYNAMIC_QUERY);
+        Map<String, Object> dynamicQueryParams = DynamicQueryProvider.getDynamicQueryParamInternal(
+                (Map) parameterObject, configuration.isMapUnderscoreToCamelCase(), dialect);
+
+        StringBuilder sql = new StringBuilder(sqlHead);
+        if (selectColumns) {
+            if (dynamicQuery.isDistinct()) {
+                sql.append(" distinct");
+            }
+            sql.append(' ').append(dynamicQueryParams.get(MapperConstants.SELECT_COLUMNS_EXPRESSION));
+            if (pageTotal && !dynamicQuery.isDistinct()) {
+                // window is applied before limit, distinct is applied after window.
+                sql.append(", COUNT(*) OVER() AS ").append(MapperConstants.PAGE_TOTAL_COLUMN);
+            }
+            sql.append(' ');
+        }
+        sql.append(fromClause);
+
+        String whereExpression = (String) dynamicQueryParams.get(MapperConstants.WHERE_EXPRESSION);
+        if (StringUtils.isNotEmpty(whereExpression)) {
+            sql.append("WHERE ").append(whereExpression);
+        }
+
+        String sortExpression = (String) dynamicQueryParams.get(MapperConstants.SORT_EXPRESSION);
+        boolean hasSort = orderBy && StringUtils.isNotEmpty(sortExpression);
+        if (hasSort) {
+            sql.append(" ORDER BY ").append(sortExpression);
+        }
+        if (limitClause != null) {
+            if (!hasSort && dialect == DatabaseDialect.SQLSERVER) {
+                // OFFSET FETCH of sql server requires ORDER BY.
+                sql.append(" ORDER BY (SELECT NULL)");
+            }
+            sql.append(limitClause);
+        }
+        sql.append(sqlTail);
+
+        BoundSql boundSql = getParsedSqlSource(sql.toString(), parameterObject).getBoundSql(parameterObject);
+        boundSql.setAdditionalParameter(MapperConstants.DYNAMIC_QUERY_PARAMS, dynamicQueryParams);
+        return boundSql;
+    }
+
+    /**
+     * only "#{}" placeholders left, same as what DynamicSqlSource does after xml nodes applied,
+     * java type of params is not resolved by values of one call, type handlers are resolved by values per call,
+     * so that parsed sql can be shared by calls of different values.
+     */
+    private SqlSource getParsedSqlSource(final String sql, final Object parameterObject) {
+        SqlSource sqlSource = parsedSqlCache.get(sql);
+        if (sqlSource != null) {
+            return sqlSource;
+        }
+
+        sqlSource = sqlSourceBuilder.parse(sql, parameterObject.getClass(), Collections.emptyMap());
+        if (parsedSqlCache.size() >= MAX_PARSED_SQL_CACHE_SIZE) {
+            // too many shapes of query, such as "IN" lists of many sizes, start again instead of keeping old ones.
+            parsedSqlCache.clear();
+        }
+        parsedSqlCache.putIfAbsent(sql, sqlSource);
+        return sqlSource;
+    }
+}
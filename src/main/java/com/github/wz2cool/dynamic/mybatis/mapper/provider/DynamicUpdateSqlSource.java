@@ -0,0 +1,79 @@
+package com.github.wz2cool.dynamic.mybatis.mapper.provider;
+
+import com.github.wz2cool.dynamic.DynamicUpdate;
+import com.github.wz2cool.dynamic.mybatis.mapper.constant.MapperConstants;
+import com.github.wz2cool.dynamic.mybatis.mapper.dialect.DatabaseDialect;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.ibatis.builder.SqlSourceBuilder;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.SqlSource;
+import org.apache.ibatis.session.Configuration;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Build "UPDATE ... SET ... WHERE ..." sql of dynamic update in java.
+ *
+ * @author Frank
+ */
+class DynamicUpdateSqlSource implements SqlSource {
+    private final Configuration configuration;
+    private final SqlSourceBuilder sqlSourceBuilder;
+    private final DatabaseDialect dialect;
+    private final String updateHead;
+    private final String whereHead;
+    private final String limitClause;
+    private final String whereTail;
+
+    /**
+     * Create sql source.
+     *
+     * @param configuration configuration
+     * @param dialect       database dialect
+     * @param updateHead    such as "UPDATE product SET "
+     * @param whereHead     added before where clause, such as "WHERE id IN (SELECT id FROM product ", empty if none.
+     * @param limitClause   added after where clause, such as " LIMIT #{limit}", empty if none.
+     * @param whereTail     added at last, such as ")", empty if none.
+     */
+    DynamicUpdateSqlSource(Configuration configuration,
+                           DatabaseDialect dialect,
+                           String updateHead,
+                           String whereHead,
+                           String limitClause,
+                           String whereTail) {
+        this.configuration = configuration;
+        this.sqlSourceBuilder = new SqlSourceBuilder(configuration);
+        this.dialect = dialect;
+        this.updateHead = updateHead;
+        this.whereHead = whereHead;
+        this.limitClause = limitClause;
+        this.whereTail = whereTail;
+    }
+
+    @Override
+    public BoundSql getBoundSql(Object parameterObject) {
+        Map parameterMap = (Map) parameterObject;
+        DynamicUpdate dynamicUpdate = (DynamicUpdate) parameterMap.get(MapperConstants.DYNAMIC_UPDATE);
+        Map<String, Object> dynamicUpdateParams = DynamicQueryProvider.getDynamicUpdateParamInternal(dynamicUpdate);
+        Map<String, Object> dynamicQueryParams = DynamicQueryProvider.getDynamicQueryParamInternal(
+                parameterMap, configuration.isMapUnderscoreToCamelCase(), dialect);
+
+        StringBuilder sql = new StringBuilder(updateHead);
+        sql.append(dynamicUpdateParams.get(MapperConstants.UPDATE_SET_EXPRESSION)).append(' ');
+        sql.append(whereHead);
+        String whereExpression = (String) dynamicQueryParams.get(MapperConstants.WHERE_EXPRESSION);
+        if (StringUtils.isNotEmpty(whereExpression)) {
+            sql.append("WHERE ").append(whereExpression);
+        }
+        sql.append(limitClause).append(whereTail);
+
+        Map<String, Object> additionalParameters = new HashMap<>(4);
+        additionalParameters.put(MapperConstants.DYNAMIC_UPDATE_PARAMS, dynamicUpdateParams);
+        additionalParameters.put(MapperConstants.DYNAMIC_QUERY_PARAMS, dynamicQueryParams);
+        SqlSource sqlSource = sqlSourceBuilder.parse(sql.toString(), parameterObject.getClass(), additionalParameters);
+        BoundSql boundSql = sqlSource.getBoundSql(parameterObject);
+        additionalParameters.forEach(boundSql::setAdditionalParameter);
+        return boundSql;
+    }
+}
@@ -1,6 +1,9 @@
 package com.github.wz2cool.dynamic;
 
 import com.github.wz2cool.dynamic.builder.DynamicQueryBuilder;
+import com.github.wz2cool.dynamic.model.BatchUpdateItem;
+import com.github.wz2cool.dynamic.model.KeysetPage;
+import com.github.wz2cool.dynamic.model.PageResult;
 import com.github.wz2cool.dynamic.mybatis.MybatisQueryProvider;
 import com.github.wz2cool.dynamic.mybatis.ParamExpression;
 import com.github.wz2cool.dynamic.mybatis.db.mapper.NorthwindDao;
@@ -10,17 +13,27 @@ import com.github.wz2cool.dynamic.mybatis.db.model.entity.table.Category;
 import com.github.wz2cool.dynamic.mybatis.db.model.entity.table.Product;
 import com.github.wz2cool.dynamic.mybatis.db.model.entity.table.User;
 import com.github.wz2cool.dynamic.mybatis.db.model.entity.view.ProductView;
+import com.github.wz2cool.dynamic.mybatis.mapper.batch.DynamicQueryBatchExecutor;
+import com.github.wz2cool.dynamic.mybatis.mapper.constant.CountMode;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.session.SqlSessionFactory;
 import org.junit.Assert;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
+import tk.mybatis.mapper.MapperException;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
+import java.security.InvalidParameterException;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -48,6 +61,12 @@ public class DbFilterTest {
     @Autowired
     private ProductDao productDao;
 
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private SqlSessionFactory sqlSessionFactory;
+
     @Test
     public void testSelectFirst() {
         DynamicQuery<Product> query = DynamicQuery.createQuery(Product.class)
@@ -439,4 +458,381 @@ public class DbFilterTest {
             assertEquals(true, StringUtils.isBlank(user.getPassword()));
         }
     }
+
+    @Test
+    public void testSelectByManyParams() {
+        Integer[] ids = new Integer[12];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = 100 + i;
+        }
+        ids[1] = 1;
+        DynamicQuery<Product> query = DynamicQuery.createQuery(Product.class)
+                .and(Product::getProductID, in(ids));
+        List<Product> products = productDao.selectByDynamicQuery(query);
+        assertEquals(1, products.size());
+        assertEquals(Integer.valueOf(1), products.get(0).getProductID());
+    }
+
+    @Test
+    public void testSelectLimitByDynamicQuery() {
+        DynamicQuery<Product> query = DynamicQuery.createQuery(Product.class)
+                .and(Product::getProductID, lessThan(100))
+                .orderBy(Product::getProductID, asc());
+        List<Product> products = productDao.selectLimitByDynamicQuery(query, 1, 2);
+        assertEquals(2, products.size());
+        assertEquals(Integer.valueOf(2), products.get(0).getProductID());
+        assertEquals(Integer.valueOf(3), products.get(1).getProductID());
+    }
+
+    @Test
+    public void testSelectKeysetByDynamicQuery() {
+        DynamicQuery<Product> query = DynamicQuery.createQuery(Product.class)
+                .and(Product::getProductID, lessThan(100))
+                .or(Product::getProductID, isEqual(200))
+                .orderBy(Product::getPrice, desc())
+                .orderBy(Product::getProductID, asc());
+        List<Integer> expectedIds = productDao.selectByDynamicQuery(query).stream()
+                .map(Product::getProductID).collect(Collectors.toList());
+
+        List<Integer> ids = new ArrayList<>();
+        String cursor = null;
+        do {
+            KeysetPage<Product> page = productDao.selectKeysetByDynamicQuery(query, cursor, 2);
+            assertTrue(page.getItems().size() <= 2);
+            page.getItems().forEach(p -> ids.add(p.getProductID()));
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        assertEquals(expectedIds, ids);
+        assertEquals(2, query.getFilters().length);
+
+        // frozen query can be shared by pages.
+        FrozenDynamicQuery<Product> frozenQuery = query.freeze();
+        List<Integer> frozenIds = new ArrayList<>();
+        cursor = null;
+        do {
+            KeysetPage<Product> page = productDao.selectKeysetByDynamicQuery(frozenQuery, cursor, 3);
+            page.getItems().forEach(p -> frozenIds.add(p.getProductID()));
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+        assertEquals(expectedIds, frozenIds);
+    }
+
+    @Test
+    @Transactional
+    public void testStreamByDynamicQuery() throws Exception {
+        DynamicQuery<Product> query = DynamicQuery.createQuery(Product.class)
+                .and(Product::getProductID, lessThan(100))
+                .orderBy(Product::getProductID, asc());
+        List<Integer> expectedIds = productDao.selectByDynamicQuery(query).stream()
+                .map(Product::getProductID).collect(Collectors.toList());
+
+        List<Integer> ids = new ArrayList<>();
+        try (Cursor<Product> cursor = productDao.streamByDynamicQuery(query, 2)) {
+            cursor.forEach(p -> ids.add(p.getProductID()));
+        }
+        assertEquals(expectedIds, ids);
+    }
+
+    @Test
+    public void testSelectSameSqlWithDifferentValueTypes() {
+        // same sql text is parsed once, type handlers of params follow values of each call.
+        DynamicQuery<Product> query = DynamicQuery.createQuery(Product.class);
+        query.addFilters(new FilterDescriptor(FilterCondition.AND, "productID", FilterOperator.EQUAL, 1));
+        assertEquals(1, productDao.selectByDynamicQuery(query).size());
+
+        query = DynamicQuery.createQuery(Product.class);
+        query.addFilters(new FilterDescriptor(FilterCondition.AND, "productID", FilterOperator.EQUAL, 2L));
+        List<Product> products = productDao.selectByDynamicQuery(query);
+        assertEquals(1, products.size());
+        assertEquals(Integer.valueOf(2), products.get(0).getProductID());
+    }
+
+    @Test
+    public void testSelectByLargeInList() {
+        List<Integer> ids = new ArrayList<>();
+        for (int i = 1; i <= 2000; i++) {
+            ids.add(i);
+        }
+        DynamicQuery<Product> query = DynamicQuery.createQuery(Product.class)
+                .and(Product::getProductID, in(ids.toArray(new Integer[0])));
+        List<Product> products = productDao.selectByDynamicQuery(query);
+        assertEquals(4, products.size());
+
+        query = DynamicQuery.createQuery(Product.class)
+                .and(Product::getProductID, notIn(ids.subList(1, 2000).toArray(new Integer[0])));
+        products = productDao.selectByDynamicQuery(query);
+        assertEquals(1, products.size());
+        assertEquals(Integer.valueOf(1), products.get(0).getProductID());
+
+        // mixed types can not be in one array, every value needs one parameter, which is more than limit of database.
+        List<Number> placeholderIds = new ArrayList<>();
+        for (int i = 1; i <= 40000; i++) {
+            placeholderIds.add(i);
+        }
+        placeholderIds.add(40001L);
+        DynamicQuery<Product> placeholderQuery = DynamicQuery.createQuery(Product.class);
+        placeholderQuery.addFilters(new FilterDescriptor(
+                FilterCondition.AND, "productID", FilterOperator.IN, placeholderIds.toArray()));
+        try {
+            productDao.selectByDynamicQuery(placeholderQuery);
+            Assert.fail("query over limit of bind parameters should fail");
+        } catch (Exception e) {
+            Throwable cause = e;
+            while (cause.getCause() != null) {
+                cause = cause.getCause();
+            }
+            assertEquals(InvalidParameterException.class, cause.getClass());
+        }
+    }
+
+    @Test
+    @Transactional
+    public void testAlwaysFalseDynamicQuery() {
+        DynamicQuery<Product> query = DynamicQuery.createQuery(Product.class)
+                .and(Product::getProductID, greaterThan(0))
+                .and(Product::getProductID, in(new Integer[0]));
+        assertEquals(0, productDao.selectByDynamicQuery(query).size());
+        assertEquals(0, productDao.selectCountByDynamicQuery(query));
+        assertEquals(false, productDao.selectFirstByDynamicQuery(query).isPresent());
+        try (Cursor<Product> cursor = productDao.streamByDynamicQuery(query, 2)) {
+            assertEquals(false, cursor.iterator().hasNext());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        Product product = new Product();
+        product.setProductName("always false");
+        assertEquals(0, productDao.updateSelectiveByDynamicQuery(product, query));
+        assertEquals(0, productDao.deleteByDynamicQuery(query));
+        assertEquals(4, productDao.selectCountByDynamicQuery(DynamicQuery.createQuery(Product.class)));
+    }
+
+    @Test
+    public void testSelectPageByDynamicQuery() {
+        DynamicQuery<Product> query = DynamicQuery.createQuery(Product.class)
+                .and(Product::getPrice, greaterThan(BigDecimal.ZERO))
+                .orderBy(Product::getProductID, asc());
+
+        PageResult<Product> page = productDao.selectPageByDynamicQuery(query, 0, 3);
+        assertEquals(3, page.getItems().size());
+        assertEquals(4, page.getTotal());
+        assertEquals(Integer.valueOf(1), page.getItems().get(0).getProductID());
+
+        // last page, total is computed from rows.
+        page = productDao.selectPageByDynamicQuery(query, 3, 3);
+        assertEquals(1, page.getItems().size());
+        assertEquals(4, page.getTotal());
+        assertEquals(Integer.valueOf(4), page.getItems().get(0).getProductID());
+
+        page = productDao.selectPageByDynamicQuery(query, 10, 3);
+        assertEquals(0, page.getItems().size());
+        assertEquals(4, page.getTotal());
+    }
+
+    @Test
+    public void testExistsAndCappedCountByDynamicQuery() {
+        DynamicQuery<Product> query = DynamicQuery.createQuery(Product.class)
+                .and(Product::getPrice, greaterThan(BigDecimal.ZERO));
+        assertEquals(true, productDao.existsByDynamicQuery(query));
+        assertEquals(2, productDao.selectCountByDynamicQuery(query, 2));
+        assertEquals(4, productDao.selectCountByDynamicQuery(query, 10));
+
+        DynamicQuery<Product> noMatchQuery = DynamicQuery.createQuery(Product.class)
+                .and(Product::getProductID, greaterThan(100));
+        assertEquals(false, productDao.existsByDynamicQuery(noMatchQuery));
+        assertEquals(0, productDao.selectCountByDynamicQuery(noMatchQuery, 10));
+
+        DynamicQuery<Product> alwaysFalseQuery = DynamicQuery.createQuery(Product.class)
+                .and(Product::getProductID, in(new Integer[0]));
+        assertEquals(false, productDao.existsByDynamicQuery(alwaysFalseQuery));
+        assertEquals(0, productDao.selectCountByDynamicQuery(alwaysFalseQuery, 10));
+    }
+
+    @Test
+    public void testSelectEstimatedCountByDynamicQuery() {
+        DynamicQuery<Product> query = DynamicQuery.createQuery(Product.class)
+                .and(Product::getProductID, greaterThan(1));
+        assertEquals(3, productDao.selectCountByDynamicQuery(query, CountMode.EXACT));
+        // h2 has no row estimate, fall back to exact count.
+        assertEquals(3, productDao.selectCountByDynamicQuery(query, CountMode.ESTIMATED));
+
+        DynamicQuery<Product> alwaysFalseQuery = DynamicQuery.createQuery(Product.class)
+                .and(Product::getProductID, in(new Integer[0]));
+        assertEquals(0, productDao.selectCountByDynamicQuery(alwaysFalseQuery, CountMode.ESTIMATED));
+    }
+
+    @Test
+    @Transactional
+    public void testBatchUpdateAndDeleteByDynamicQuery() {
+        DynamicQueryBatchExecutor batchExecutor = new DynamicQueryBatchExecutor(sqlSessionFactory);
+        List<BatchUpdateItem<Product>> items = new ArrayList<>();
+        for (int productId = 1; productId <= 4; productId++) {
+            Product product = new Product();
+            product.setProductName("batch" + productId);
+            items.add(BatchUpdateItem.of(product, DynamicQuery.createQuery(Product.class)
+                    .and(Product::getProductID, isEqual(productId))));
+        }
+        Product notFoundProduct = new Product();
+        notFoundProduct.setProductName("notFound");
+        items.add(BatchUpdateItem.of(notFoundProduct, DynamicQuery.createQuery(Product.class)
+                .and(Product::getProductID, in(new Integer[0]))));
+        items.add(BatchUpdateItem.of(notFoundProduct, DynamicQuery.createQuery(Product.class)
+                .and(Product::getProductID, greaterThan(100))));
+
+        int[] updateCounts = batchExecutor.updateSelectiveByDynamicQuery(ProductDao.class, items);
+        assertEquals("[1, 1, 1, 1, 0, 0]", Arrays.toString(updateCounts));
+        assertEquals("batch3", productDao.selectByDynamicQuery(DynamicQuery.createQuery(Product.class)
+                .and(Product::getProductID, isEqual(3))).get(0).getProductName());
+
+        List<DynamicQuery<Product>> deleteQueries = Arrays.asList(
+                DynamicQuery.createQuery(Product.class).and(Product::getProductID, greaterThan(100)),
+                DynamicQuery.createQuery(Product.class).and(Product::getProductID, isEqual(4)));
+        assertEquals("[0, 1]", Arrays.toString(batchExecutor.deleteByDynamicQuery(ProductDao.class, deleteQueries)));
+        assertEquals(3, productDao.selectCountByDynamicQuery(DynamicQuery.createQuery(Product.class)));
+    }
+
+    @Test
+    @Transactional
+    public void testBulkInsert() {
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < 2500; i++) {
+            User user = new User();
+            user.setId(10000 + i);
+            user.setUsername("bulk" + i);
+            users.add(user);
+        }
+        DynamicQueryBatchExecutor batchExecutor = new DynamicQueryBatchExecutor(sqlSessionFactory);
+        assertEquals(1250, batchExecutor.bulkInsert(UserDao.class, users.subList(0, 1250), false));
+        assertEquals(1250, batchExecutor.bulkInsert(UserDao.class, users.subList(1250, 2500), true));
+        assertEquals(2500, userDao.selectCountByDynamicQuery(DynamicQuery.createQuery(User.class)
+                .and(User::getUsername, startWith("bulk"))));
+
+        for (User user : users) {
+            user.setId(user.getId() + 10000);
+        }
+        assertEquals(2500, userDao.bulkInsert(users, 1000));
+    }
+
+    @Test
+    public void testUpsertWithoutId() {
+        try {
+            productDao.upsert(new Product());
+            Assert.fail("upsert of entity without id should fail");
+        } catch (Exception e) {
+            Throwable cause = e;
+            while (cause.getCause() != null) {
+                cause = cause.getCause();
+            }
+            assertEquals(MapperException.class, cause.getClass());
+            assertEquals(true, cause.getMessage().contains(Product.class.getName()));
+            assertEquals(true, cause.getMessage().contains("@Id"));
+        }
+    }
+
+    @Test
+    @Transactional
+    public void testUpsert() {
+        User existingUser = new User();
+        existingUser.setId(1);
+        existingUser.setUsername("upsertUsr1");
+        User newUser = new User();
+        newUser.setId(3000);
+        newUser.setUsername("upsertUsr3000");
+        assertEquals(1, userDao.upsert(existingUser));
+        assertEquals(1, userDao.upsert(newUser));
+
+        DynamicQuery<User> query = DynamicQuery.createQuery(User.class)
+                .and(User::getUsername, startWith("upsert"));
+        assertEquals(2, userDao.selectCountByDynamicQuery(query));
+
+        existingUser.setUsername("batchUsr1");
+        User batchUser = new User();
+        batchUser.setId(3001);
+        batchUser.setUsername("batchUsr3001");
+        DynamicQueryBatchExecutor batchExecutor = new DynamicQueryBatchExecutor(sqlSessionFactory);
+        assertEquals("[1, 1]", Arrays.toString(batchExecutor.upsert(UserDao.class, Arrays.asList(existingUser, batchUser))));
+        assertEquals(2, userDao.selectCountByDynamicQuery(DynamicQuery.createQuery(User.class)
+                .and(User::getUsername, startWith("batchUsr"))));
+        // existing user is updated, not duplicated.
+        assertEquals(2, userDao.selectCountByDynamicQuery(DynamicQuery.createQuery(User.class)
+                .and(User::getId, lessThan(3000))));
+    }
+
+    @Test
+    @Transactional
+    public void testUpdateSetByDynamicQuery() {
+        DynamicQuery<Product> query = DynamicQuery.createQuery(Product.class)
+                .and(Product::getProductID, in(1, 2));
+        DynamicUpdate<Product> update = DynamicUpdate.createUpdate(Product.class)
+                .set(Product::getPrice, add(10))
+                .set(Product::getProductName, "updated");
+        assertEquals(2, productDao.updateSetByDynamicQuery(update, query));
+
+        List<Product> products = productDao.selectByDynamicQuery(query.orderBy(Product::getProductID, asc()));
+        assertEquals(0, new BigDecimal("28").compareTo(products.get(0).getPrice()));
+        assertEquals(0, new BigDecimal("17.5").compareTo(products.get(1).getPrice()));
+        assertEquals("updated", products.get(1).getProductName());
+
+        DynamicQuery<Product> product4Query = DynamicQuery.createQuery(Product.class)
+                .and(Product::getProductID, isEqual(4));
+        productDao.updateSetByDynamicQuery(
+                DynamicUpdate.createUpdate(Product.class).set(Product::getPrice, multiply(2)), product4Query);
+        productDao.updateSetByDynamicQuery(
+                DynamicUpdate.createUpdate(Product.class).set(Product::getPrice, subtract(new BigDecimal("0.5"))), product4Query);
+        assertEquals(0, new BigDecimal("32.5").compareTo(productDao.selectByDynamicQuery(product4Query).get(0).getPrice()));
+
+        // null literal resolves to operator overload, still sets column to NULL.
+        productDao.updateSetByDynamicQuery(
+                DynamicUpdate.createUpdate(Product.class).set(Product::getPrice, null), product4Query);
+        assertEquals(null, productDao.selectByDynamicQuery(product4Query).get(0).getPrice());
+    }
+
+    @Test
+    public void testChunkedUpdateAndDelete() {
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            User user = new User();
+            user.setId(20000 + i);
+            user.setUsername("chunk" + i);
+            users.add(user);
+        }
+        assertEquals(25, userDao.bulkInsert(users, 1000));
+
+        try {
+            DynamicQueryBatchExecutor batchExecutor = new DynamicQueryBatchExecutor(sqlSessionFactory);
+            List<Integer> chunkRows = new ArrayList<>();
+            List<Integer> committedRows = new ArrayList<>();
+            DynamicQuery<User> purgeQuery = DynamicQuery.createQuery(User.class)
+                    .and(User::getUsername, isEqual("purge"));
+            long updatedRows = batchExecutor.updateSetInChunks(UserDao.class,
+                    DynamicUpdate.createUpdate(User.class).set(User::getUsername, "purge"),
+                    DynamicQuery.createQuery(User.class).and(User::getUsername, startWith("chunk")),
+                    10, 1, (rows, totalRows) -> {
+                        chunkRows.add(rows);
+                        // each chunk is committed, other connections see it before next chunk.
+                        committedRows.add(jdbcTemplate.queryForObject(
+                                "SELECT COUNT(*) FROM users WHERE username = 'purge'", Integer.class));
+                    });
+            assertEquals(25, updatedRows);
+            assertEquals(Arrays.asList(10, 10, 5), chunkRows);
+            assertEquals(Arrays.asList(10, 20, 25), committedRows);
+
+            chunkRows.clear();
+            assertEquals(25, batchExecutor.deleteInChunks(UserDao.class, purgeQuery, 5, 0,
+                    (rows, totalRows) -> chunkRows.add(rows)));
+            assertEquals(Arrays.asList(5, 5, 5, 5, 5, 0), chunkRows);
+            assertEquals(0, userDao.selectCountByDynamicQuery(purgeQuery));
+            assertEquals(2, userDao.selectCountByDynamicQuery(DynamicQuery.createQuery(User.class)));
+        } finally {
+            jdbcTemplate.update("DELETE FROM users WHERE id >= 20000 AND id < 20025");
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    @Transactional
+    public void testChunkedDeleteInTransaction() {
+        new DynamicQueryBatchExecutor(sqlSessionFactory).deleteInChunks(UserDao.class,
+                DynamicQuery.createQuery(User.class).and(User::getUsername, isEqual("purge")), 5, 0, null);
+    }
 }
@@ -2,6 +2,7 @@ package com.github.wz2cool.dynamic;
 
 import com.github.wz2cool.dynamic.mybatis.MybatisQueryProvider;
 import com.github.wz2cool.dynamic.mybatis.db.mapper.NorthwindDao;
+import com.github.wz2cool.dynamic.mybatis.db.mapper.ProductDao;
 import com.github.wz2cool.dynamic.mybatis.db.mapper.UserDao;
 import com.github.wz2cool.dynamic.mybatis.db.model.entity.table.Product;
 import com.github.wz2cool.dynamic.mybatis.db.model.entity.view.ProductView;
@@ -28,6 +29,8 @@ public class DbSortTest {
     private NorthwindDao northwindDao;
     @Autowired
     private UserDao userDao;
+    @Autowired
+    private ProductDao productDao;
 
     @Test
     public void testIdDescSort() throws Exception {
@@ -65,4 +68,15 @@ public class DbSortTest {
         List<ProductView> productList = northwindDao.getProductViewsByDynamic(queryParam);
         assertEquals(Long.valueOf(2), productList.get(0).getProductID());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testCustomSortByDynamicQuery() throws Exception {
+        CustomSortDescriptor id2TopSort = new CustomSortDescriptor();
+        id2TopSort.setExpression("CASE product_id WHEN {0} THEN {1} ELSE product_id END DESC");
+        id2TopSort.setParams(2, Integer.MAX_VALUE);
+        DynamicQuery<Product> query = DynamicQuery.createQuery(Product.class);
+        query.addSorts(id2TopSort);
+        List<Product> productList = productDao.selectByDynamicQuery(query);
+        assertEquals(Integer.valueOf(2), productList.get(0).getProductID());
+    }
+}
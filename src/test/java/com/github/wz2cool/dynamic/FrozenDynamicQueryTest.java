@@ -0,0 +1,106 @@
+package com.github.wz2cool.dynamic;
+
+import com.github.wz2cool.dynamic.model.Student;
+import org.junit.Test;
+
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.Map;
+
+import static com.github.wz2cool.dynamic.builder.DynamicQueryBuilderHelper.*;
+import static org.junit.Assert.assertEquals;
+
+public class FrozenDynamicQueryTest {
+
+    private DynamicQuery<Student> createQuery(String name, Integer... ages) {
+        return DynamicQuery.createQuery(Student.class)
+                .and(Student::getName, isEqual(name))
+                .and(Student::getAge, in(ages))
+                .orderBy(Student::getAge, desc());
+    }
+
+    @Test
+    public void testFingerprint() {
+        FrozenDynamicQuery<Student> query1 = createQuery("frank", 1, 2).freeze();
+        FrozenDynamicQuery<Student> query2 = createQuery("frank", 1, 2).freeze();
+        FrozenDynamicQuery<Student> query3 = createQuery("marry", 3, 4).freeze();
+        FrozenDynamicQuery<Student> query4 = createQuery("frank", 1, 2, 3).freeze();
+        FrozenDynamicQuery<Student> query5 = createQuery(null, 1, 2).freeze();
+
+        assertEquals(query1.getFingerprint(), query2.getFingerprint());
+        assertEquals(query1, query2);
+        assertEquals(query1.hashCode(), query2.hashCode());
+        assertEquals(32, query1.getFingerprint().toString().length());
+
+        assertEquals(query1.getShapeFingerprint(), query3.getShapeFingerprint());
+        assertEquals(false, query1.getFingerprint().equals(query3.getFingerprint()));
+        assertEquals(false, query1.equals(query3));
+        // count of "IN" values and null value ("IS NULL") change sql.
+        assertEquals(false, query1.getShapeFingerprint().equals(query4.getShapeFingerprint()));
+        assertEquals(false, query1.getShapeFingerprint().equals(query5.getShapeFingerprint()));
+    }
+
+    @Test
+    public void testFingerprintCollision() {
+        Timestamp timestamp1 = Timestamp.valueOf("2017-07-10 12:30:45.123456");
+        Timestamp timestamp2 = Timestamp.valueOf("2017-07-10 12:30:45.123457");
+        FrozenDynamicQuery<Student> query1 = createNoteQuery(timestamp1).freeze();
+        FrozenDynamicQuery<Student> query2 = createNoteQuery(timestamp2).freeze();
+        assertEquals(false, query1.getFingerprint().equals(query2.getFingerprint()));
+        assertEquals(true, query1.hasExactFingerprint());
+        assertEquals(query1.getFingerprint(),
+                createNoteQuery(Timestamp.valueOf("2017-07-10 12:30:45.123456")).freeze().getFingerprint());
+
+        // same toString() of unknown type.
+        FrozenDynamicQuery<Student> query3 = createNoteQuery(new NoteValue()).freeze();
+        FrozenDynamicQuery<Student> query4 = createNoteQuery(new NoteValue()).freeze();
+        assertEquals(false, query3.getFingerprint().equals(query4.getFingerprint()));
+        assertEquals(false, query3.hasExactFingerprint());
+        assertEquals(query3.getShapeFingerprint(), query4.getShapeFingerprint());
+    }
+
+    private DynamicQuery<Student> createNoteQuery(Object note) {
+        DynamicQuery<Student> query = DynamicQuery.createQuery(Student.class);
+        query.addFilters(new FilterDescriptor("note", FilterOperator.EQUAL, note));
+        return query;
+    }
+
+    private static class NoteValue {
+        @Override
+        public String toString() {
+            return "note";
+        }
+    }
+
+    @Test
+    public void testSnapshot() {
+        DynamicQuery<Student> query = createQuery("frank", 1, 2);
+        Integer[] ages = new Integer[]{1, 2};
+        query.addFilters(new FilterDescriptor("age", FilterOperator.IN, ages));
+        FrozenDynamicQuery<Student> frozenQuery = query.freeze();
+        Map<String, Object> paramMap = frozenQuery.toQueryParamMap();
+
+        query.and(Student::getNote, isEqual("note"));
+        ages[0] = 3;
+        ((FilterDescriptor) query.getFilters()[0]).setValue("marry");
+        assertEquals(3, frozenQuery.getFilters().length);
+        assertEquals("frank", ((FilterDescriptor) frozenQuery.getFilters()[0]).getValue());
+        assertEquals(Arrays.asList(1, 2),
+                Arrays.asList((Object[]) ((FilterDescriptor) frozenQuery.getFilters()[2]).getValue()));
+        assertEquals(paramMap.get("whereExpression"), frozenQuery.toQueryParamMap().get("whereExpression"));
+        assertEquals(frozenQuery.getFingerprint(), createQuery("frank", 1, 2)
+                .and(Student::getAge, in(1, 2)).freeze().getFingerprint());
+        assertEquals(frozenQuery, frozenQuery.freeze());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testModifyFrozenQuery() {
+        createQuery("frank", 1, 2).freeze().and(Student::getNote, isEqual("note"));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testModifyFrozenFilter() {
+        FrozenDynamicQuery<Student> frozenQuery = createQuery("frank", 1, 2).freeze();
+        frozenQuery.getFilters()[0].setCondition(FilterCondition.OR);
+    }
+}
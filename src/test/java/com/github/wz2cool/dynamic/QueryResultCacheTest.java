@@ -0,0 +1,62 @@
+package com.github.wz2cool.dynamic;
+
+import com.github.wz2cool.dynamic.mybatis.db.mapper.ProductDao;
+import com.github.wz2cool.dynamic.mybatis.db.model.entity.table.Product;
+import com.github.wz2cool.dynamic.mybatis.mapper.interceptor.QueryResultCacheInterceptor;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import static com.github.wz2cool.dynamic.builder.DynamicQueryBuilderHelper.isEqual;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * cache is opt-in, it is only registered in context of this test, other tests query database directly.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@ContextConfiguration(classes = {TestApplication.class, QueryResultCacheTest.CacheConfiguration.class})
+public class QueryResultCacheTest {
+
+    @Autowired
+    private ProductDao productDao;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    public void testQueryResultCache() {
+        DynamicQuery<Product> query = DynamicQuery.createQuery(Product.class)
+                .and(Product::getProductID, isEqual(4));
+        String productName = productDao.selectByDynamicQuery(query).get(0).getProductName();
+        Product product = new Product();
+        try {
+            // writes outside mapper are not seen by cache.
+            jdbcTemplate.update("UPDATE product SET product_name = ? WHERE product_id = 4", "jdbc");
+            assertEquals(productName, productDao.selectByDynamicQuery(query).get(0).getProductName());
+            assertEquals(productName, productDao.selectByDynamicQuery(query.freeze()).get(0).getProductName());
+
+            product.setProductName("mapper");
+            productDao.updateSelectiveByDynamicQuery(product, query);
+            assertEquals("mapper", productDao.selectByDynamicQuery(query).get(0).getProductName());
+        } finally {
+            product.setProductName(productName);
+            productDao.updateSelectiveByDynamicQuery(product, query);
+        }
+        assertEquals(productName, productDao.selectByDynamicQuery(query).get(0).getProductName());
+    }
+
+    @TestConfiguration
+    static class CacheConfiguration {
+        @Bean
+        public QueryResultCacheInterceptor queryResultCacheInterceptor() {
+            return new QueryResultCacheInterceptor();
+        }
+    }
+}
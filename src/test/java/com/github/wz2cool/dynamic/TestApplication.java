@@ -1,7 +1,10 @@
 package com.github.wz2cool.dynamic;
 
+import com.github.wz2cool.dynamic.mybatis.mapper.interceptor.EmptyQueryInterceptor;
+import com.github.wz2cool.dynamic.mybatis.mapper.interceptor.FetchSizeInterceptor;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.Bean;
 import tk.mybatis.spring.annotation.MapperScan;
 
 /**
@@ -13,4 +16,14 @@ public class TestApplication {
     public static void main(String[] args) {
         SpringApplication.run(TestApplication.class, args);
     }
+
+    @Bean
+    public EmptyQueryInterceptor emptyQueryInterceptor() {
+        return new EmptyQueryInterceptor();
+    }
+
+    @Bean
+    public FetchSizeInterceptor fetchSizeInterceptor() {
+        return new FetchSizeInterceptor();
+    }
 }
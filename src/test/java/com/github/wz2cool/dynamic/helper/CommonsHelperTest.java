@@ -155,6 +155,40 @@ public class CommonsHelperTest {
     }
 
 
+    @Test
+    public void testGetPropertyInfoCachedByCallSite() {
+        List<PropertyInfo> results = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            PropertyInfo propertyInfo = CommonsHelper.getPropertyInfo(Student::getAge);
+            results.add(propertyInfo);
+            // change returned property info should not affect cached one.
+            propertyInfo.setPropertyName("changed");
+            propertyInfo.setOwnerClass(String.class);
+        }
+        assertEquals(false, results.get(0) == results.get(1));
+        assertEquals("changed", results.get(0).getPropertyName());
+
+        PropertyInfo result = CommonsHelper.getPropertyInfo(Student::getName);
+        assertEquals("name", result.getPropertyName());
+        assertEquals(Student.class, result.getOwnerClass());
+    }
+
+    @Test
+    public void testGetPropertyInfoReturnCopy() {
+        PropertyInfo first = null;
+        for (int i = 0; i < 2; i++) {
+            PropertyInfo propertyInfo = CommonsHelper.getPropertyInfo(Student::getAge);
+            if (first == null) {
+                first = propertyInfo;
+                first.setPropertyName("changed");
+                first.setOwnerClass(String.class);
+            } else {
+                assertEquals("age", propertyInfo.getPropertyName());
+                assertEquals(Student.class, propertyInfo.getOwnerClass());
+            }
+        }
+    }
+
     @Test
     public void testToStringSafe() {
         String result = CommonsHelper.toStringSafe(null);
@@ -5,6 +5,7 @@ import com.github.wz2cool.dynamic.model.Student;
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 
 /**
  * Created by Frank on 7/11/2017.
@@ -67,4 +68,36 @@ public class EntityCacheTest {
     public void TestHasPropertyEntityNull() {
         EntityCache.getInstance().hasProperty(null, "name");
     }
+
+    @Test
+    public void TestHasPropertyIgnoreCase() {
+        boolean result = EntityCache.getInstance().hasProperty(Student.class, "NAME");
+        assertEquals(true, result);
+    }
+
+    @Test
+    public void TestGetAllColumnsExpressionCached() {
+        String result = EntityCache.getInstance().getAllColumnsExpression(Student.class, false);
+        assertSame(result, EntityCache.getInstance().getAllColumnsExpression(Student.class, false));
+        assertEquals(EntityCache.getInstance().getColumnInfos(Student.class).length,
+                result.split(", ").length);
+    }
+
+    @Test
+    public void TestGetColumnsExpressionCachedByProjection() {
+        String result = EntityCache.getInstance().getColumnsExpression(
+                Student.class, new String[]{"age", "name", "notFoundProperty"}, null, true);
+        assertEquals(2, result.split(", ").length);
+        assertEquals(true, result.contains("name AS name"));
+        assertEquals(true, result.contains("age AS age"));
+        // same columns in other order use same cached expression.
+        assertSame(result, EntityCache.getInstance().getColumnsExpression(
+                Student.class, new String[]{"name", "age"}, null, true));
+
+        result = EntityCache.getInstance().getColumnsExpression(
+                Student.class, null, new String[]{"note"}, false);
+        assertEquals(false, result.contains("note"));
+        assertEquals(EntityCache.getInstance().getColumnInfos(Student.class).length - 1,
+                result.split(", ").length);
+    }
 }
@@ -139,5 +139,23 @@ public class ExpressionHelperTest {
         String result = dbExpressionHelper.getBetweenExpression(queryColumnInfo, "p1", "p2");
         assertEquals("string_property BETWEEN #{p1} AND #{p2}", result);
     }
-}
 
+    @Test
+    public void testGetInExpressionChunked() {
+        ExpressionHelper h2DbExpressionHelper = new ExpressionHelper();
+
+        ColumnInfo queryColumnInfo = new ColumnInfo();
+        queryColumnInfo.setColumnName("id");
+        String[] placeholders = new String[ExpressionHelper.IN_CHUNK_SIZE + 1];
+        for (int i = 0; i < placeholders.length; i++) {
+            placeholders[i] = "p" + i;
+        }
+
+        String result = h2DbExpressionHelper.getInExpression(queryColumnInfo, placeholders);
+        assertEquals(true, result.startsWith("(id IN (#{p0},#{p1},"));
+        assertEquals(true, result.endsWith(",#{p999}) OR id IN (#{p1000}))"));
+
+        result = h2DbExpressionHelper.getNotInExpression(queryColumnInfo, placeholders);
+        assertEquals(true, result.endsWith(",#{p999}) AND id NOT IN (#{p1000}))"));
+    }
+}
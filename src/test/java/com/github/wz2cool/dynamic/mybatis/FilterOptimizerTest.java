@@ -0,0 +1,152 @@
+package com.github.wz2cool.dynamic.mybatis;
+
+import com.github.wz2cool.dynamic.BaseFilterDescriptor;
+import com.github.wz2cool.dynamic.CustomFilterDescriptor;
+import com.github.wz2cool.dynamic.DynamicQuery;
+import com.github.wz2cool.dynamic.FilterCondition;
+import com.github.wz2cool.dynamic.FilterDescriptor;
+import com.github.wz2cool.dynamic.FilterGroupDescriptor;
+import com.github.wz2cool.dynamic.FilterOperator;
+import com.github.wz2cool.dynamic.FrozenDynamicQuery;
+import com.github.wz2cool.dynamic.exception.PropertyNotFoundInternalException;
+import com.github.wz2cool.dynamic.model.Student;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class FilterOptimizerTest {
+    private final QueryHelper queryHelper = new QueryHelper(ParamPlaceholderStrategy.POSITIONAL);
+
+    private String toWhereExpression(BaseFilterDescriptor... filters) {
+        BaseFilterDescriptor[] result = FilterOptimizer.optimize(Student.class, filters);
+        return queryHelper.toWhereExpression(Student.class, result).getExpression();
+    }
+
+    @Test
+    public void testFlattenGroups() {
+        FilterGroupDescriptor<Student> innerGroup = new FilterGroupDescriptor<>();
+        innerGroup.setFilters(new BaseFilterDescriptor[]{new FilterDescriptor("age", FilterOperator.EQUAL, 20)});
+        FilterGroupDescriptor<Student> outerGroup = new FilterGroupDescriptor<>();
+        outerGroup.setFilters(new BaseFilterDescriptor[]{
+                innerGroup, new FilterDescriptor("name", FilterOperator.EQUAL, "frank")});
+
+        assertEquals("(age = #{param_age_EQUAL_0} AND name = #{param_name_EQUAL_1})",
+                toWhereExpression(outerGroup));
+
+        // "a AND (b OR c)" keeps brackets.
+        FilterGroupDescriptor<Student> orGroup = new FilterGroupDescriptor<>();
+        orGroup.setFilters(new BaseFilterDescriptor[]{
+                new FilterDescriptor("age", FilterOperator.EQUAL, 20),
+                new FilterDescriptor(FilterCondition.OR, "age", FilterOperator.EQUAL, 30)});
+        assertEquals("(name = #{param_name_EQUAL_0} AND " +
+                        "(age = #{param_age_EQUAL_1} OR age = #{param_age_EQUAL_2}))",
+                toWhereExpression(new FilterDescriptor("name", FilterOperator.EQUAL, "frank"), orGroup));
+
+        // "a OR (b OR c)" is merged.
+        orGroup.setCondition(FilterCondition.OR);
+        assertEquals("(name = #{param_name_EQUAL_0} OR age = #{param_age_EQUAL_1} OR age = #{param_age_EQUAL_2})",
+                toWhereExpression(new FilterDescriptor("name", FilterOperator.EQUAL, "frank"), orGroup));
+        // input is not modified.
+        assertEquals(FilterCondition.OR, orGroup.getCondition());
+        assertEquals(2, orGroup.getFilters().length);
+    }
+
+    @Test
+    public void testRemoveSameFilters() {
+        assertEquals("(age = #{param_age_EQUAL_0})", toWhereExpression(
+                new FilterDescriptor("age", FilterOperator.EQUAL, 20),
+                new FilterDescriptor("age", FilterOperator.EQUAL, 20)));
+        assertEquals("(age = #{param_age_EQUAL_0} OR name = #{param_name_EQUAL_1})", toWhereExpression(
+                new FilterDescriptor("age", FilterOperator.EQUAL, 20),
+                new FilterDescriptor(FilterCondition.OR, "name", FilterOperator.EQUAL, "frank"),
+                new FilterDescriptor(FilterCondition.OR, "age", FilterOperator.EQUAL, 20)));
+        assertEquals("(age IN (#{param_age_IN_0},#{param_age_IN_1}))", toWhereExpression(
+                new FilterDescriptor("age", FilterOperator.IN, new Integer[]{20, 30, 20}),
+                new FilterDescriptor("age", FilterOperator.IN, new int[]{20, 30})));
+    }
+
+    @Test
+    public void testSingleValueIn() {
+        assertEquals("(age = #{param_age_EQUAL_0})",
+                toWhereExpression(new FilterDescriptor("age", FilterOperator.IN, new Integer[]{20})));
+        assertEquals("(age <> #{param_age_NOT_EQUAL_0})",
+                toWhereExpression(new FilterDescriptor("age", FilterOperator.NOT_IN, new Integer[]{20, 20})));
+    }
+
+    @Test
+    public void testMergeRanges() {
+        assertEquals("(age BETWEEN #{param_age_BETWEEN_0} AND #{param_age_BETWEEN_1} AND name = #{param_name_EQUAL_2})",
+                toWhereExpression(
+                        new FilterDescriptor("age", FilterOperator.LESS_THAN_OR_EQUAL, 30),
+                        new FilterDescriptor("name", FilterOperator.EQUAL, "frank"),
+                        new FilterDescriptor("age", FilterOperator.GREATER_THAN_OR_EQUAL, 20)));
+        assertEquals("(age = #{param_age_EQUAL_0})", toWhereExpression(
+                new FilterDescriptor("age", FilterOperator.GREATER_THAN_OR_EQUAL, 20),
+                new FilterDescriptor("age", FilterOperator.LESS_THAN_OR_EQUAL, 20)));
+        // different terms are not merged.
+        assertEquals("(age >= #{param_age_GREATER_THAN_OR_EQUAL_0} OR age <= #{param_age_LESS_THAN_OR_EQUAL_1})",
+                toWhereExpression(
+                        new FilterDescriptor("age", FilterOperator.GREATER_THAN_OR_EQUAL, 20),
+                        new FilterDescriptor(FilterCondition.OR, "age", FilterOperator.LESS_THAN_OR_EQUAL, 30)));
+    }
+
+    @Test
+    public void testKeepStringRange() {
+        // order of string depends on database collation, "'b' <= name <= 'C'" matches "B" if case insensitive.
+        assertEquals("(name BETWEEN #{param_name_BETWEEN_0} AND #{param_name_BETWEEN_1})", toWhereExpression(
+                new FilterDescriptor("name", FilterOperator.GREATER_THAN_OR_EQUAL, "b"),
+                new FilterDescriptor("name", FilterOperator.LESS_THAN_OR_EQUAL, "C")));
+        assertEquals("(name BETWEEN #{param_name_BETWEEN_0} AND #{param_name_BETWEEN_1})", toWhereExpression(
+                new FilterDescriptor("name", FilterOperator.BETWEEN, new String[]{"b", "C"})));
+        assertEquals(false, FilterOptimizer.isAlwaysFalse(Student.class, new BaseFilterDescriptor[]{
+                new FilterDescriptor("name", FilterOperator.BETWEEN, new String[]{"b", "C"})}));
+    }
+
+    @Test
+    public void testFoldConstants() {
+        FilterDescriptor emptyIn = new FilterDescriptor("age", FilterOperator.IN, new Integer[0]);
+        FilterDescriptor emptyNotIn = new FilterDescriptor("age", FilterOperator.NOT_IN, new Integer[0]);
+        FilterDescriptor nameFilter = new FilterDescriptor(FilterCondition.OR, "name", FilterOperator.EQUAL, "frank");
+
+        assertEquals("(1 = 0)", toWhereExpression(emptyIn));
+        assertEquals("(1 = 0)", toWhereExpression(new FilterDescriptor("age", FilterOperator.BETWEEN, new int[]{30, 20})));
+        assertEquals(0, FilterOptimizer.optimize(Student.class, new BaseFilterDescriptor[]{emptyNotIn}).length);
+        assertEquals("(name = #{param_name_EQUAL_0})", toWhereExpression(emptyIn, nameFilter));
+        // "TRUE OR a" is always true.
+        assertEquals(0, FilterOptimizer.optimize(Student.class, new BaseFilterDescriptor[]{emptyNotIn, nameFilter}).length);
+    }
+
+    @Test
+    public void testOptimizeFrozenQueryOnce() {
+        DynamicQuery<Student> query = DynamicQuery.createQuery(Student.class);
+        query.addFilters(new FilterDescriptor("age", FilterOperator.IN, new Integer[0]));
+        FrozenDynamicQuery<Student> frozenQuery = query.freeze();
+
+        BaseFilterDescriptor[] optimizedFilters = FilterOptimizer.optimize(frozenQuery);
+        assertEquals(true, optimizedFilters == FilterOptimizer.optimize(frozenQuery));
+        assertEquals(true, FilterOptimizer.isOptimizedAlwaysFalse(optimizedFilters));
+        assertEquals(true, FilterOptimizer.isOptimizedAlwaysFalse(FilterOptimizer.optimize(query)));
+
+        query.setFilters(new BaseFilterDescriptor[]{new FilterDescriptor("age", FilterOperator.IN, new Integer[]{1})});
+        assertEquals(false, FilterOptimizer.isOptimizedAlwaysFalse(FilterOptimizer.optimize(query)));
+        assertEquals(false, FilterOptimizer.isOptimizedAlwaysFalse(FilterOptimizer.optimize(Student.class, null)));
+    }
+
+    @Test
+    public void testKeepCustomFilterGroup() {
+        FilterGroupDescriptor<Student> group = new FilterGroupDescriptor<>();
+        group.setFilters(new BaseFilterDescriptor[]{new FilterDescriptor("age", FilterOperator.IN, new Integer[]{20})});
+        assertEquals("(age = 1 OR age = 2 AND (age = #{param_age_EQUAL_0}) AND age = #{param_age_EQUAL_1})",
+                toWhereExpression(
+                        new CustomFilterDescriptor("age = 1 OR age = 2"),
+                        group,
+                        new FilterDescriptor("age", FilterOperator.EQUAL, 20)));
+    }
+
+    @Test(expected = PropertyNotFoundInternalException.class)
+    public void testValidateRemovedFilter() {
+        FilterOptimizer.optimize(Student.class, new BaseFilterDescriptor[]{
+                new FilterDescriptor("age", FilterOperator.IN, new Integer[0]),
+                new FilterDescriptor("notExists", FilterOperator.EQUAL, 1)});
+    }
+}
@@ -0,0 +1,195 @@
+package com.github.wz2cool.dynamic.mybatis;
+
+import com.github.wz2cool.dynamic.DynamicQuery;
+import com.github.wz2cool.dynamic.FilterDescriptor;
+import com.github.wz2cool.dynamic.FilterGroupDescriptor;
+import com.github.wz2cool.dynamic.FrozenDynamicQuery;
+import com.github.wz2cool.dynamic.mybatis.db.model.entity.table.Product;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static com.github.wz2cool.dynamic.builder.DynamicQueryBuilderHelper.asc;
+import static com.github.wz2cool.dynamic.builder.DynamicQueryBuilderHelper.desc;
+import static com.github.wz2cool.dynamic.builder.DynamicQueryBuilderHelper.lessThan;
+import static org.junit.Assert.assertEquals;
+
+public class KeysetHelperTest {
+
+    @Test
+    public void testGetSeekFilter() {
+        DynamicQuery<Product> query = DynamicQuery.createQuery(Product.class)
+                .orderBy(Product::getPrice, desc())
+                .orderBy(Product::getProductID, asc());
+        Product product = new Product();
+        product.setPrice(BigDecimal.valueOf(16.5));
+        product.setProductID(3);
+
+        String cursor = KeysetHelper.createCursor(query, product);
+        FilterGroupDescriptor<Product> seekFilter = KeysetHelper.getSeekFilter(query, cursor);
+        ParamExpression result = new QueryHelper(ParamPlaceholderStrategy.POSITIONAL)
+                .toWhereExpression(Product.class, seekFilter.getFilters());
+        assertEquals("(price <= #{param_price_LESS_THAN_OR_EQUAL_0} AND " +
+                        "((price < #{param_price_LESS_THAN_1}) OR " +
+                        "(price = #{param_price_EQUAL_2} AND product_id > #{param_productID_GREATER_THAN_3})))",
+                result.getExpression());
+        assertEquals(new BigDecimal("16.5"), result.getParamMap().get("param_price_EQUAL_2"));
+        assertEquals(3, result.getParamMap().get("param_productID_GREATER_THAN_3"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testGetSeekFilterNotMatchSorts() {
+        DynamicQuery<Product> query = DynamicQuery.createQuery(Product.class)
+                .orderBy(Product::getProductID, asc());
+        Product product = new Product();
+        product.setProductID(3);
+        String cursor = KeysetHelper.createCursor(query, product);
+
+        DynamicQuery<Product> otherQuery = DynamicQuery.createQuery(Product.class)
+                .orderBy(Product::getPrice, asc());
+        KeysetHelper.getSeekFilter(otherQuery, cursor);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testGetSeekFilterNotMatchDirection() {
+        DynamicQuery<Product> query = DynamicQuery.createQuery(Product.class)
+                .orderBy(Product::getProductID, asc());
+        Product product = new Product();
+        product.setProductID(3);
+        String cursor = KeysetHelper.createCursor(query, product);
+
+        DynamicQuery<Product> descQuery = DynamicQuery.createQuery(Product.class)
+                .orderBy(Product::getProductID, desc());
+        KeysetHelper.getSeekFilter(descQuery, cursor);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testCreateCursorWithoutSorts() {
+        Product product = new Product();
+        product.setProductID(3);
+        KeysetHelper.createCursor(DynamicQuery.createQuery(Product.class), product);
+    }
+
+    @Test
+    public void testJavaTimeEnumAndUuidCursor() {
+        DynamicQuery<Event> query = DynamicQuery.createQuery(Event.class)
+                .orderBy(Event::getStartAt, asc())
+                .orderBy(Event::getDay, asc())
+                .orderBy(Event::getPublishedAt, desc())
+                .orderBy(Event::getLevel, asc())
+                .orderBy(Event::getUuid, asc());
+        Event event = new Event();
+        event.setStartAt(LocalDateTime.of(2017, 7, 10, 12, 30, 45, 123456789));
+        event.setDay(LocalDate.of(2017, 7, 10));
+        event.setPublishedAt(Instant.ofEpochSecond(1500000000L, 123456789));
+        event.setLevel(Level.HIGH);
+        event.setUuid(UUID.randomUUID());
+
+        String cursor = KeysetHelper.createCursor(query, event);
+        FilterGroupDescriptor<Event> seekFilter = KeysetHelper.getSeekFilter(query, cursor);
+        FilterGroupDescriptor<?> lastGroup = (FilterGroupDescriptor<?>) ((FilterGroupDescriptor<?>) seekFilter.getFilters()[1])
+                .getFilters()[4];
+        assertEquals(event.getStartAt(), ((FilterDescriptor) lastGroup.getFilters()[0]).getValue());
+        assertEquals(event.getDay(), ((FilterDescriptor) lastGroup.getFilters()[1]).getValue());
+        assertEquals(event.getPublishedAt(), ((FilterDescriptor) lastGroup.getFilters()[2]).getValue());
+        assertEquals(Level.HIGH, ((FilterDescriptor) lastGroup.getFilters()[3]).getValue());
+        assertEquals(event.getUuid(), ((FilterDescriptor) lastGroup.getFilters()[4]).getValue());
+    }
+
+    @Test
+    public void testTimestampCursorKeepNanos() {
+        DynamicQuery<Event> query = DynamicQuery.createQuery(Event.class)
+                .orderBy(Event::getCreatedAt, asc());
+        Event event = new Event();
+        Timestamp createdAt = Timestamp.valueOf("2017-07-10 12:30:45.123456789");
+        event.setCreatedAt(createdAt);
+
+        String cursor = KeysetHelper.createCursor(query, event);
+        FilterGroupDescriptor<Event> seekFilter = KeysetHelper.getSeekFilter(query, cursor);
+        assertEquals(createdAt, ((FilterDescriptor) seekFilter.getFilters()[0]).getValue());
+    }
+
+    @Test
+    public void testCreateSeekQueryNotChangeQuery() {
+        FrozenDynamicQuery<Product> query = DynamicQuery.createQuery(Product.class)
+                .and(Product::getProductID, lessThan(100))
+                .orderBy(Product::getProductID, asc())
+                .freeze();
+        Product product = new Product();
+        product.setProductID(3);
+        String cursor = KeysetHelper.createCursor(query, product);
+
+        DynamicQuery<Product> firstPageQuery = KeysetHelper.createSeekQuery(query, null);
+        assertEquals(1, firstPageQuery.getFilters().length);
+        DynamicQuery<Product> seekQuery = KeysetHelper.createSeekQuery(query, cursor);
+        assertEquals(2, seekQuery.getFilters().length);
+        assertEquals(1, seekQuery.getSorts().length);
+        assertEquals(1, query.getFilters().length);
+    }
+
+    public enum Level {
+        LOW, HIGH
+    }
+
+    public static class Event {
+        private Timestamp createdAt;
+        private LocalDateTime startAt;
+        private LocalDate day;
+        private Instant publishedAt;
+        private Level level;
+        private UUID uuid;
+
+        public Timestamp getCreatedAt() {
+            return createdAt;
+        }
+
+        public void setCreatedAt(Timestamp createdAt) {
+            this.createdAt = createdAt;
+        }
+
+        public LocalDateTime getStartAt() {
+            return startAt;
+        }
+
+        public void setStartAt(LocalDateTime startAt) {
+            this.startAt = startAt;
+        }
+
+        public LocalDate getDay() {
+            return day;
+        }
+
+        public void setDay(LocalDate day) {
+            this.day = day;
+        }
+
+        public Instant getPublishedAt() {
+            return publishedAt;
+        }
+
+        public void setPublishedAt(Instant publishedAt) {
+            this.publishedAt = publishedAt;
+        }
+
+        public Level getLevel() {
+            return level;
+        }
+
+        public void setLevel(Level level) {
+            this.level = level;
+        }
+
+        public UUID getUuid() {
+            return uuid;
+        }
+
+        public void setUuid(UUID uuid) {
+            this.uuid = uuid;
+        }
+    }
+}
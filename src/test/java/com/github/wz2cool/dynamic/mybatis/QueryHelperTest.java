@@ -8,8 +8,10 @@ import com.github.wz2cool.dynamic.mybatis.db.model.entity.view.ProductView;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.math.BigDecimal;
 import java.security.InvalidParameterException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.regex.Pattern;
 
@@ -41,6 +43,31 @@ public class QueryHelperTest {
     }
 
 
+    @Test
+    public void TestToUpdateSetExpression() {
+        QueryHelper positionalQueryHelper = new QueryHelper(ParamPlaceholderStrategy.POSITIONAL);
+        UpdateDescriptor[] updates = new UpdateDescriptor[]{
+                new UpdateDescriptor("age", UpdateOperator.ADD, 1),
+                new UpdateDescriptor("name", UpdateOperator.SET, null)};
+        ParamExpression result = positionalQueryHelper.toUpdateSetExpression(Student.class, updates, "p.");
+        assertEquals("age = age + #{p.param_set_age_0}, name = NULL", result.getExpression());
+        assertEquals(1, result.getParamMap().get("param_set_age_0"));
+    }
+
+    @Test(expected = InvalidParameterException.class)
+    public void TestToUpdateSetExpressionSamePropertyTwice() {
+        UpdateDescriptor[] updates = new UpdateDescriptor[]{
+                new UpdateDescriptor("age", UpdateOperator.MULTIPLY, 2),
+                new UpdateDescriptor("age", UpdateOperator.SUBTRACT, 1)};
+        queryHelper.toUpdateSetExpression(Student.class, updates, "");
+    }
+
+    @Test(expected = InvalidParameterException.class)
+    public void TestToUpdateSetExpressionNullOperand() {
+        UpdateDescriptor[] updates = new UpdateDescriptor[]{new UpdateDescriptor("age", UpdateOperator.ADD, null)};
+        queryHelper.toUpdateSetExpression(Student.class, updates, "");
+    }
+
     @Test(expected = InvalidParameterException.class)
     public void TestGetFilterValuesInvalidInOperator() {
         FilterDescriptor filterDescriptor = new FilterDescriptor(
@@ -358,4 +385,139 @@ public class QueryHelperTest {
         result = queryHelper.toSortExpression(Student.class, nullSortBase);
         assertEquals("", result.getExpression());
     }
+
+    @Test
+    public void testToWhereExpressionReuseTemplate() {
+        FilterDescriptor ageFilter =
+                new FilterDescriptor(FilterCondition.AND, "age", FilterOperator.IN, new int[]{20, 30});
+        FilterDescriptor nameFilter =
+                new FilterDescriptor(FilterCondition.OR, "name", FilterOperator.START_WITH, "fr");
+        queryHelper.toWhereExpression(Student.class, new BaseFilterDescriptor[]{ageFilter, nameFilter});
+
+        ageFilter.setValue(new int[]{40, 50});
+        nameFilter.setValue("ma");
+        ParamExpression result = queryHelper.toWhereExpression(Student.class, new BaseFilterDescriptor[]{ageFilter, nameFilter});
+        String pattern = "^\\(age IN \\(#\\{param_age_IN_\\w+\\},#\\{param_age_IN_\\w+\\}\\) OR name LIKE #\\{param_name_START_WITH_\\w+\\}\\)$";
+        assertEquals(true, Pattern.matches(pattern, result.getExpression()));
+        List<Object> values = new ArrayList<>(result.getParamMap().values());
+        assertEquals(40, values.get(0));
+        assertEquals(50, values.get(1));
+        assertEquals("ma%", values.get(2));
+
+        nameFilter.setOperator(FilterOperator.EQUAL);
+        nameFilter.setValue(null);
+        result = queryHelper.toWhereExpression(Student.class, new BaseFilterDescriptor[]{ageFilter, nameFilter});
+        assertEquals(true, result.getExpression().endsWith("OR name IS NULL)"));
+    }
+
+    @Test
+    public void testToSortExpressionReuseTemplate() {
+        CustomSortDescriptor customSortDescriptor = new CustomSortDescriptor();
+        customSortDescriptor.setExpression("CASE {0} WHEN 1 Then 1 ELSE {1} END");
+        customSortDescriptor.setParams(1, 2);
+        SortDescriptor nameSort = new SortDescriptor("name", SortDirection.DESC);
+        queryHelper.toSortExpression(Student.class, nameSort, customSortDescriptor);
+
+        customSortDescriptor.setParams(3, 4);
+        ParamExpression result = queryHelper.toSortExpression(Student.class, nameSort, customSortDescriptor);
+        String pattern = "^name DESC, CASE #\\{param_custom_sort_\\w+\\} WHEN 1 Then 1 ELSE #\\{param_custom_sort_\\w+\\} END$";
+        assertEquals(true, Pattern.matches(pattern, result.getExpression()));
+        List<Object> values = new ArrayList<>(result.getParamMap().values());
+        assertEquals(3, values.get(0));
+        assertEquals(4, values.get(1));
+    }
+
+    @Test
+    public void testToWhereExpressionPositionalPlaceholder() {
+        QueryHelper positionalQueryHelper = new QueryHelper(ParamPlaceholderStrategy.POSITIONAL);
+        FilterDescriptor ageFilter =
+                new FilterDescriptor(FilterCondition.AND, "age", FilterOperator.BETWEEN, new int[]{20, 30});
+        FilterDescriptor nameFilter =
+                new FilterDescriptor(FilterCondition.AND, "name", FilterOperator.EQUAL, "frank");
+        BaseFilterDescriptor[] filters = new BaseFilterDescriptor[]{ageFilter, nameFilter};
+
+        ParamExpression result1 = positionalQueryHelper.toWhereExpression(Student.class, filters);
+        nameFilter.setValue("marry");
+        ParamExpression result2 = positionalQueryHelper.toWhereExpression(Student.class, filters);
+        assertEquals("(age BETWEEN #{param_age_BETWEEN_0} AND #{param_age_BETWEEN_1} AND name = #{param_name_EQUAL_2})",
+                result1.getExpression());
+        assertEquals(result1.getExpression(), result2.getExpression());
+        assertEquals("marry", result2.getParamMap().get("param_name_EQUAL_2"));
+    }
+
+    @Test
+    public void testToWhereExpressionArrayIn() {
+        QueryHelper arrayQueryHelper =
+                new QueryHelper(ParamPlaceholderStrategy.POSITIONAL, InExpressionStrategy.ANY_ARRAY);
+        Integer[] ages = new Integer[200];
+        for (int i = 0; i < ages.length; i++) {
+            ages[i] = i;
+        }
+        FilterDescriptor ageFilter =
+                new FilterDescriptor(FilterCondition.AND, "age", FilterOperator.IN, ages);
+
+        ParamExpression result = arrayQueryHelper.toWhereExpression(Student.class, new BaseFilterDescriptor[]{ageFilter});
+        assertEquals("(age = ANY(#{param_age_IN_0}))", result.getExpression());
+        ArrayParam arrayParam = (ArrayParam) result.getParamMap().get("param_age_IN_0");
+        assertEquals("int4", arrayParam.getElementTypeName());
+        assertEquals(200, arrayParam.getValues().length);
+
+        // small list keeps placeholders.
+        ageFilter.setValue(new Integer[]{1, 2});
+        result = arrayQueryHelper.toWhereExpression(Student.class, new BaseFilterDescriptor[]{ageFilter});
+        assertEquals("(age IN (#{param_age_IN_0},#{param_age_IN_1}))", result.getExpression());
+    }
+
+    @Test
+    public void testToWhereExpressionJsonArrayIn() {
+        QueryHelper jsonQueryHelper =
+                new QueryHelper(ParamPlaceholderStrategy.POSITIONAL, InExpressionStrategy.JSON_ARRAY);
+        String[] names = new String[200];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = "n" + i;
+        }
+        names[1] = "a\"b\\c";
+        FilterDescriptor nameFilter =
+                new FilterDescriptor(FilterCondition.AND, "name", FilterOperator.NOT_IN, names);
+
+        ParamExpression result = jsonQueryHelper.toWhereExpression(Student.class, new BaseFilterDescriptor[]{nameFilter});
+        assertEquals("(name NOT IN (SELECT value FROM OPENJSON(#{param_name_NOT_IN_0}) WITH (value nvarchar(max) '$')))",
+                result.getExpression());
+        String json = (String) result.getParamMap().get("param_name_NOT_IN_0");
+        assertEquals(true, json.startsWith("[\"n0\",\"a\\\"b\\\\c\",\"n2\","));
+        assertEquals(true, json.endsWith(",\"n199\"]"));
+
+        // decimal has no json type, keeps placeholders.
+        BigDecimal[] prices = new BigDecimal[200];
+        Arrays.fill(prices, BigDecimal.ONE);
+        FilterDescriptor priceFilter =
+                new FilterDescriptor(FilterCondition.AND, "age", FilterOperator.IN, prices);
+        result = jsonQueryHelper.toWhereExpression(Student.class, new BaseFilterDescriptor[]{priceFilter});
+        assertEquals(200, result.getParamMap().size());
+    }
+
+    @Test
+    public void testToWhereExpressionCustomFilterReuseIndex() {
+        QueryHelper positionalQueryHelper = new QueryHelper(ParamPlaceholderStrategy.POSITIONAL);
+        CustomFilterDescriptor customFilterDescriptor =
+                new CustomFilterDescriptor("age > {0} AND age < {1} OR age = {0} OR note = '{01}{2}'", 20, 30);
+
+        ParamExpression result = positionalQueryHelper.toWhereExpression(
+                Student.class, new BaseFilterDescriptor[]{customFilterDescriptor});
+        assertEquals("(age > #{param_custom_filter_0} AND age < #{param_custom_filter_1} " +
+                "OR age = #{param_custom_filter_0} OR note = '{01}{2}')", result.getExpression());
+        assertEquals(2, result.getParamMap().size());
+    }
+
+    @Test
+    public void testToWhereExpressionPlaceholderPrefix() {
+        QueryHelper positionalQueryHelper = new QueryHelper(ParamPlaceholderStrategy.POSITIONAL);
+        FilterDescriptor ageFilter =
+                new FilterDescriptor(FilterCondition.AND, "age", FilterOperator.EQUAL, 20);
+
+        ParamExpression result = positionalQueryHelper.toWhereExpression(
+                Student.class, new BaseFilterDescriptor[]{ageFilter}, "dynamicQueryParams.");
+        assertEquals("(age = #{dynamicQueryParams.param_age_EQUAL_0})", result.getExpression());
+        assertEquals(20, result.getParamMap().get("param_age_EQUAL_0"));
+    }
 }
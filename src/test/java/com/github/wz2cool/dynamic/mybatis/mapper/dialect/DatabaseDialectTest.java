@@ -0,0 +1,19 @@
+package com.github.wz2cool.dynamic.mybatis.mapper.dialect;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class DatabaseDialectTest {
+    @Test
+    public void testOf() {
+        assertEquals(DatabaseDialect.H2, DatabaseDialect.of("H2"));
+        assertEquals(DatabaseDialect.MYSQL, DatabaseDialect.of("MySQL"));
+        assertEquals(DatabaseDialect.MYSQL, DatabaseDialect.of("MariaDB"));
+        assertEquals(DatabaseDialect.POSTGRESQL, DatabaseDialect.of("PostgreSQL"));
+        assertEquals(DatabaseDialect.SQLSERVER, DatabaseDialect.of("Microsoft SQL Server"));
+        assertEquals(DatabaseDialect.SQLSERVER, DatabaseDialect.of("sqlserver"));
+        assertEquals(DatabaseDialect.UNKNOWN, DatabaseDialect.of("Oracle"));
+        assertEquals(DatabaseDialect.UNKNOWN, DatabaseDialect.of(null));
+    }
+}
@@ -0,0 +1,58 @@
+package com.github.wz2cool.dynamic.mybatis.mapper.dialect;
+
+import org.apache.ibatis.datasource.unpooled.UnpooledDataSource;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.transaction.jdbc.JdbcTransactionFactory;
+import org.junit.Test;
+
+import java.util.Properties;
+
+import static org.junit.Assert.assertEquals;
+
+public class DialectHelperTest {
+    @Test
+    public void testGetInsertChunkSize() {
+        assertEquals(700, DialectHelper.getInsertChunkSize(DatabaseDialect.SQLSERVER, 3));
+        assertEquals(1000, DialectHelper.getInsertChunkSize(DatabaseDialect.MYSQL, 3));
+        assertEquals(1, DialectHelper.getInsertChunkSize(DatabaseDialect.SQLSERVER, 3000));
+    }
+
+    @Test
+    public void testGetDialectCachedByConfiguration() {
+        Configuration configuration = new Configuration();
+        configuration.setDatabaseId("h2");
+        assertEquals(DatabaseDialect.H2, DialectHelper.getDialect(configuration));
+        // cached in configuration, database id is not read again.
+        configuration.setDatabaseId("mysql");
+        assertEquals(DatabaseDialect.H2, DialectHelper.getDialect(configuration));
+
+        Configuration otherConfiguration = new Configuration();
+        otherConfiguration.setDatabaseId("mysql");
+        assertEquals(DatabaseDialect.MYSQL, DialectHelper.getDialect(otherConfiguration));
+
+        // user variables are shared by configurations of spring, they are not changed.
+        Properties variables = new Properties();
+        Configuration h2Configuration = new Configuration();
+        h2Configuration.setVariables(variables);
+        h2Configuration.setDatabaseId("h2");
+        Configuration postgresqlConfiguration = new Configuration();
+        postgresqlConfiguration.setVariables(variables);
+        postgresqlConfiguration.setDatabaseId("postgresql");
+        assertEquals(DatabaseDialect.H2, DialectHelper.getDialect(h2Configuration));
+        assertEquals(DatabaseDialect.POSTGRESQL, DialectHelper.getDialect(postgresqlConfiguration));
+        assertEquals(0, variables.size());
+    }
+
+    @Test
+    public void testGetDialectNotCacheFailedConnection() {
+        UnpooledDataSource dataSource = new UnpooledDataSource("org.h2.Driver", "jdbc:unknown:test", "sa", "");
+        Configuration configuration = new Configuration();
+        configuration.setEnvironment(new Environment("test", new JdbcTransactionFactory(), dataSource));
+        assertEquals(DatabaseDialect.UNKNOWN, DialectHelper.getDialect(configuration));
+
+        // database is reachable now.
+        dataSource.setUrl("jdbc:h2:mem:dialect_test");
+        assertEquals(DatabaseDialect.H2, DialectHelper.getDialect(configuration));
+    }
+}
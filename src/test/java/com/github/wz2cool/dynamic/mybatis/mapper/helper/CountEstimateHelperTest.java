@@ -0,0 +1,61 @@
+package com.github.wz2cool.dynamic.mybatis.mapper.helper;
+
+import com.github.wz2cool.dynamic.mybatis.mapper.constant.MapperConstants;
+import org.junit.Test;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * @author Frank
+ */
+public class CountEstimateHelperTest {
+    @Test(expected = InvocationTargetException.class)
+    public void testCountEstimateHelper() throws Exception {
+        Constructor<CountEstimateHelper> c = CountEstimateHelper.class.getDeclaredConstructor();
+        c.setAccessible(true);
+        c.newInstance();
+    }
+
+    @Test
+    public void testGetPostgresqlEstimatedCount() {
+        String plan = "[{\"Plan\": {\"Node Type\": \"Seq Scan\", \"Relation Name\": \"product\", "
+                + "\"Startup Cost\": 0.00, \"Total Cost\": 1693.00, \"Plan Rows\": 98765, \"Plan Width\": 4}}]";
+        assertEquals(Long.valueOf(98765), CountEstimateHelper.getEstimatedCount(rows("QUERY PLAN", plan)));
+    }
+
+    @Test
+    public void testGetMysqlEstimatedCount() {
+        Map<String, Object> row = new HashMap<>();
+        row.put("rows", 2000L);
+        row.put("filtered", new BigDecimal("33.33"));
+        List<Map<String, Object>> rows = Collections.singletonList(row);
+        assertEquals(Long.valueOf(667), CountEstimateHelper.getEstimatedCount(rows));
+
+        row.put("filtered", null);
+        assertEquals(Long.valueOf(2000), CountEstimateHelper.getEstimatedCount(rows));
+
+        row.put("rows", null);
+        assertNull(CountEstimateHelper.getEstimatedCount(rows));
+    }
+
+    @Test
+    public void testGetFallbackCount() {
+        assertEquals(Long.valueOf(3), CountEstimateHelper.getEstimatedCount(
+                rows(MapperConstants.ESTIMATED_COUNT_COLUMN.toUpperCase(), 3L)));
+        assertEquals(Long.valueOf(0), CountEstimateHelper.getEstimatedCount(Collections.emptyList()));
+        assertNull(CountEstimateHelper.getEstimatedCount(rows("unknown", 1)));
+    }
+
+    private static List<Map<String, Object>> rows(String column, Object value) {
+        return Collections.singletonList(Collections.singletonMap(column, value));
+    }
+}
@@ -1,12 +1,14 @@
 package com.github.wz2cool.dynamic.mybatis.mapper.helper;
 
 import com.github.wz2cool.dynamic.mybatis.MybatisQueryProvider;
-import com.github.wz2cool.dynamic.mybatis.mapper.helper.DynamicQuerySqlHelper;
+import com.github.wz2cool.dynamic.mybatis.mapper.dialect.DatabaseDialect;
 import org.junit.Test;
 
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 
+import static org.junit.Assert.assertEquals;
+
 /**
  * \* Created with IntelliJ IDEA.
  * \* User: Frank
@@ -23,4 +25,27 @@ public class DynamicQuerySqlHelperTest {
         c.setAccessible(true);
         c.newInstance();
     }
-}
\ No newline at end of file
+
+    @Test
+    public void TestGetOffsetLimitClause() {
+        assertEquals(" LIMIT #{limit} OFFSET #{offset}",
+                DynamicQuerySqlHelper.getOffsetLimitClause(DatabaseDialect.H2));
+        assertEquals(" OFFSET #{offset} ROWS FETCH NEXT #{limit} ROWS ONLY",
+                DynamicQuerySqlHelper.getOffsetLimitClause(DatabaseDialect.SQLSERVER));
+        assertEquals(true, DynamicQuerySqlHelper.getLimitClause(DatabaseDialect.SQLSERVER)
+                .endsWith(DynamicQuerySqlHelper.getOffsetLimitClause(DatabaseDialect.SQLSERVER)));
+        // sorts are not rendered, such as exists statement, ORDER BY does not depend on sorts of query.
+        assertEquals(" ORDER BY (SELECT NULL) OFFSET 0 ROWS FETCH NEXT 1 ROWS ONLY",
+                DynamicQuerySqlHelper.getLimitClause(DatabaseDialect.SQLSERVER,
+                        DynamicQuerySqlHelper.getFetchFirstClause(DatabaseDialect.SQLSERVER, "1"), false));
+        assertEquals(" LIMIT 1", DynamicQuerySqlHelper.getLimitClause(DatabaseDialect.H2,
+                DynamicQuerySqlHelper.getFetchFirstClause(DatabaseDialect.H2, "1"), false));
+    }
+
+    @Test
+    public void TestGetFetchFirstClause() {
+        assertEquals(" LIMIT 1", DynamicQuerySqlHelper.getFetchFirstClause(DatabaseDialect.MYSQL, "1"));
+        assertEquals(" OFFSET 0 ROWS FETCH NEXT #{limit} ROWS ONLY",
+                DynamicQuerySqlHelper.getFetchFirstClause(DatabaseDialect.SQLSERVER, "#{limit}"));
+    }
+}
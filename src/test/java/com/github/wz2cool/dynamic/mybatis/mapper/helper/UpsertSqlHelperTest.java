@@ -0,0 +1,76 @@
+package com.github.wz2cool.dynamic.mybatis.mapper.helper;
+
+import com.github.wz2cool.dynamic.mybatis.mapper.dialect.DatabaseDialect;
+import org.junit.Test;
+import tk.mybatis.mapper.entity.EntityColumn;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author Frank
+ */
+public class UpsertSqlHelperTest {
+    @Test(expected = InvocationTargetException.class)
+    public void testUpsertSqlHelper() throws Exception {
+        Constructor<UpsertSqlHelper> c = UpsertSqlHelper.class.getDeclaredConstructor();
+        c.setAccessible(true);
+        c.newInstance();
+    }
+
+    @Test
+    public void testGetUpsertSql() {
+        EntityColumn id = createColumn("id", true);
+        EntityColumn username = createColumn("username", true);
+        EntityColumn createdTime = createColumn("created_time", false);
+        List<EntityColumn> columns = Arrays.asList(id, username, createdTime);
+        List<EntityColumn> keys = Collections.singletonList(id);
+
+        assertEquals("INSERT INTO users (id, username, created_time) "
+                        + "VALUES (#{record.id}, #{record.username}, #{record.created_time}) "
+                        + "ON CONFLICT (id) DO UPDATE SET username = EXCLUDED.username",
+                UpsertSqlHelper.getUpsertSql(DatabaseDialect.POSTGRESQL, "users", columns, keys, "record"));
+        assertEquals("INSERT INTO users (id, username, created_time) "
+                        + "VALUES (#{record.id}, #{record.username}, #{record.created_time}) "
+                        + "ON DUPLICATE KEY UPDATE username = VALUES(username)",
+                UpsertSqlHelper.getUpsertSql(DatabaseDialect.MYSQL, "users", columns, keys, "record"));
+        // not updatable column keeps current value, same as other databases.
+        assertEquals("MERGE INTO users (id, username, created_time) KEY (id) "
+                        + "SELECT #{record.id}, #{record.username}, "
+                        + "CASE WHEN EXISTS (SELECT 1 FROM users WHERE id = #{record.id}) "
+                        + "THEN (SELECT created_time FROM users WHERE id = #{record.id}) "
+                        + "ELSE #{record.created_time} END",
+                UpsertSqlHelper.getUpsertSql(DatabaseDialect.H2, "users", columns, keys, "record"));
+        assertEquals("MERGE INTO users AS target USING "
+                        + "(VALUES (#{record.id}, #{record.username}, #{record.created_time})) "
+                        + "AS source (id, username, created_time) ON target.id = source.id "
+                        + "WHEN MATCHED THEN UPDATE SET username = source.username "
+                        + "WHEN NOT MATCHED THEN INSERT (id, username, created_time) "
+                        + "VALUES (source.id, source.username, source.created_time);",
+                UpsertSqlHelper.getUpsertSql(DatabaseDialect.SQLSERVER, "users", columns, keys, "record"));
+    }
+
+    @Test
+    public void testGetUpsertSqlWithoutUpdateColumns() {
+        EntityColumn id = createColumn("id", true);
+        List<EntityColumn> columns = Collections.singletonList(id);
+        assertEquals("INSERT INTO tag (id) VALUES (#{record.id}) ON CONFLICT (id) DO NOTHING",
+                UpsertSqlHelper.getUpsertSql(DatabaseDialect.POSTGRESQL, "tag", columns, columns, "record"));
+        assertEquals("INSERT INTO tag (id) VALUES (#{record.id}) ON DUPLICATE KEY UPDATE id = VALUES(id)",
+                UpsertSqlHelper.getUpsertSql(DatabaseDialect.MYSQL, "tag", columns, columns, "record"));
+    }
+
+    private static EntityColumn createColumn(String name, boolean updatable) {
+        EntityColumn column = new EntityColumn();
+        column.setColumn(name);
+        column.setProperty(name);
+        column.setInsertable(true);
+        column.setUpdatable(updatable);
+        return column;
+    }
+}
@@ -0,0 +1,49 @@
+package com.github.wz2cool.dynamic.mybatis.mapper.provider;
+
+import com.github.wz2cool.dynamic.DynamicQuery;
+import com.github.wz2cool.dynamic.mybatis.db.model.entity.table.Product;
+import com.github.wz2cool.dynamic.mybatis.mapper.constant.MapperConstants;
+import com.github.wz2cool.dynamic.mybatis.mapper.dialect.DatabaseDialect;
+import com.github.wz2cool.dynamic.mybatis.mapper.helper.DynamicQuerySqlHelper;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.session.Configuration;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+
+import static com.github.wz2cool.dynamic.builder.DynamicQueryBuilderHelper.desc;
+import static com.github.wz2cool.dynamic.builder.DynamicQueryBuilderHelper.greaterThan;
+import static org.junit.Assert.assertEquals;
+
+public class DynamicQuerySqlSourceTest {
+
+    private String getPageSql(DatabaseDialect dialect, DynamicQuery<Product> query) {
+        DynamicQuerySqlSource sqlSource = new DynamicQuerySqlSource(new Configuration(), dialect,
+                "SELECT", true, "FROM product ", true, DynamicQuerySqlHelper.getOffsetLimitClause(dialect), true, "");
+        Map<String, Object> paramMap = new HashMap<>();
+        paramMap.put(MapperConstants.DYNAMIC_QUERY, query);
+        paramMap.put(MapperConstants.OFFSET, 0);
+        paramMap.put(MapperConstants.LIMIT, 10);
+        BoundSql boundSql = sqlSource.getBoundSql(paramMap);
+        return boundSql.getSql();
+    }
+
+    @Test
+    public void testPageTotalColumn() {
+        DynamicQuery<Product> query = DynamicQuery.createQuery(Product.class)
+                .select(Product::getProductID)
+                .and(Product::getPrice, greaterThan(BigDecimal.TEN))
+                .orderBy(Product::getPrice, desc());
+        assertEquals("SELECT product_id AS productID, COUNT(*) OVER() AS dynamic_query_page_total " +
+                        "FROM product WHERE (price > ?) ORDER BY price DESC LIMIT ? OFFSET ?",
+                getPageSql(DatabaseDialect.POSTGRESQL, query));
+
+        // total of distinct rows can not be counted by window.
+        query.setDistinct(true);
+        assertEquals("SELECT distinct product_id AS productID " +
+                        "FROM product WHERE (price > ?) ORDER BY price DESC LIMIT ? OFFSET ?",
+                getPageSql(DatabaseDialect.POSTGRESQL, query));
+    }
+}
@@ -0,0 +1,56 @@
+package com.github.wz2cool.dynamic.mybatis.mapper.provider;
+
+import com.github.wz2cool.dynamic.mybatis.db.model.entity.table.Product;
+import com.github.wz2cool.dynamic.mybatis.mapper.constant.MapperConstants;
+import com.github.wz2cool.dynamic.mybatis.mapper.handler.PageTotalTypeHandler;
+import org.apache.ibatis.builder.StaticSqlSource;
+import org.apache.ibatis.datasource.unpooled.UnpooledDataSource;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ResultMap;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.session.AutoMappingUnknownColumnBehavior;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.apache.ibatis.transaction.jdbc.JdbcTransactionFactory;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+
+public class PageTotalResultMapTest {
+
+    @Test
+    public void testReadPageTotalColumn() {
+        UnpooledDataSource dataSource = new UnpooledDataSource("org.h2.Driver", "jdbc:h2:mem:page_total", "sa", "");
+        Configuration configuration = new Configuration(
+                new Environment("test", new JdbcTransactionFactory(), dataSource));
+        configuration.setMapUnderscoreToCamelCase(true);
+        // total column is mapped, so that it is not unknown column of entity.
+        configuration.setAutoMappingUnknownColumnBehavior(AutoMappingUnknownColumnBehavior.FAILING);
+
+        String sql = "SELECT 1 AS productID, 'p1' AS productName, 2 AS " + MapperConstants.PAGE_TOTAL_COLUMN +
+                " UNION ALL SELECT 2, 'p2', 2";
+        ResultMap entityResultMap = new ResultMap.Builder(
+                configuration, "pageRows-Inline", Product.class, new ArrayList<>()).build();
+        MappedStatement ms = new MappedStatement.Builder(configuration, "pageRows",
+                new StaticSqlSource(configuration, sql), SqlCommandType.SELECT)
+                .resultMaps(Collections.singletonList(entityResultMap)).build();
+        DynamicQueryProvider.setPageTotalResultMap(ms);
+        configuration.addMappedStatement(ms);
+
+        AtomicLong total = new AtomicLong(-1);
+        try (SqlSession sqlSession = new SqlSessionFactoryBuilder().build(configuration).openSession()) {
+            List<Product> products = PageTotalTypeHandler.readPageTotal(total, () -> sqlSession.selectList("pageRows"));
+            assertEquals(2, products.size());
+            assertEquals(Integer.valueOf(2), products.get(1).getProductID());
+            assertEquals("p2", products.get(1).getProductName());
+        }
+        assertEquals(2, total.get());
+    }
+}